@@ -0,0 +1,135 @@
+package org.aspic.inference;
+
+/**
+ * A rule store that keeps the heap and the rows in growable arrays.
+ *
+ * @author erickok
+ */
+class ArrayRuleStore extends RuleStore {
+
+	private static final long serialVersionUID = 1L;
+
+	private int[] heap = new int[1024];
+	private int heapSize = 0;
+	private int[] offsets = new int[64];
+	private double[] dobs = new double[64];
+	private int[] names = new int[64];
+	private byte[] flags = new byte[64];
+	private int[] nextWithHash = new int[64];
+	private int[] nextWithTag = new int[64];
+	private int[] sequences = new int[64];
+	private int size = 0;
+
+	int word(int position) {
+		return heap[position];
+	}
+
+	int heapSize() {
+		return heapSize;
+	}
+
+	int size() {
+		return size;
+	}
+
+	int add(CompactKnowledgeBase.IntList record, double dob, int name, byte flags, int nextWithHash, int sequence) {
+		if (size == offsets.length) {
+			int capacity = size * 2;
+			offsets = copyOf(offsets, capacity);
+			names = copyOf(names, capacity);
+			this.nextWithHash = copyOf(this.nextWithHash, capacity);
+			nextWithTag = copyOf(nextWithTag, capacity);
+			sequences = copyOf(sequences, capacity);
+			double[] newDobs = new double[capacity];
+			System.arraycopy(dobs, 0, newDobs, 0, size);
+			dobs = newDobs;
+			byte[] newFlags = new byte[capacity];
+			System.arraycopy(this.flags, 0, newFlags, 0, size);
+			this.flags = newFlags;
+		}
+		if (heapSize + record.size() > heap.length) {
+			heap = copyOf(heap, Math.max(heap.length * 2, heapSize + record.size()));
+		}
+		int row = size++;
+		offsets[row] = heapSize;
+		for (int i = 0; i < record.size(); i++) {
+			heap[heapSize++] = record.get(i);
+		}
+		dobs[row] = dob;
+		names[row] = name;
+		this.flags[row] = flags;
+		this.nextWithHash[row] = nextWithHash;
+		nextWithTag[row] = -1;
+		sequences[row] = sequence;
+		return row;
+	}
+
+	int offset(int row) {
+		return offsets[row];
+	}
+
+	double dob(int row) {
+		return dobs[row];
+	}
+
+	int name(int row) {
+		return names[row];
+	}
+
+	byte flags(int row) {
+		return flags[row];
+	}
+
+	void setFlags(int row, byte flags) {
+		this.flags[row] = flags;
+	}
+
+	int nextWithHash(int row) {
+		return nextWithHash[row];
+	}
+
+	void setNextWithHash(int row, int next) {
+		nextWithHash[row] = next;
+	}
+
+	int nextWithTag(int row) {
+		return nextWithTag[row];
+	}
+
+	void setNextWithTag(int row, int next) {
+		nextWithTag[row] = next;
+	}
+
+	int sequence(int row) {
+		return sequences[row];
+	}
+
+	IntArray createArray(String name) {
+		return new HeapIntArray();
+	}
+
+	/**
+	 * Fills this store with the contents of another one.
+	 * @param store the store to copy from
+	 * @return this store
+	 */
+	ArrayRuleStore copyFrom(RuleStore store) {
+		CompactKnowledgeBase.IntList record = new CompactKnowledgeBase.IntList();
+		for (int row = 0; row < store.size(); row++) {
+			record.clear();
+			for (int position = store.offset(row); position < store.end(row); position++) {
+				record.add(store.word(position));
+			}
+			add(record, store.dob(row), store.name(row), store.flags(row), store.nextWithHash(row), store.sequence(row));
+			nextWithTag[row] = store.nextWithTag(row);
+		}
+		return this;
+	}
+
+	private static int[] copyOf(int[] array, int capacity) {
+		int[] copy = new int[capacity];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, capacity));
+		return copy;
+	}
+
+}
@@ -0,0 +1,133 @@
+package org.aspic.inference;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>A rule caption compiled into literal text segments and <code>{Variable}</code>
+ * slots.  The caption text is split only once, when it is set on a rule.  Applying
+ * a substitution to a rule then just records, per slot, the element that was
+ * substituted for its variable; the caption string is rendered only when it is
+ * actually requested.</p>
+ * <p>Instantiation follows the rules of the original string based implementation:
+ * a slot whose variable is substituted shows the substituted element (still
+ * between braces, so that a variable that was substituted for a variable can be
+ * instantiated further by a later substitution) and text following a <code>{</code>
+ * without a closing <code>}</code> is dropped.  An unmatched slot stays open for
+ * later substitutions if <code>keepUnmatchedSlots</code> is set (as for claim
+ * captions); otherwise it is closed and rendered as plain text without its opening
+ * brace.</p>
+ *
+ * @author erickok
+ */
+class CaptionTemplate implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String source; // the caption as it was set, returned as long as no substitution is applied
+	private final String[] literals; // literals[0] precedes the first slot, literals[i+1] follows slots[i]
+	private final String[] slots; // variable names of the slots
+	private final boolean keepUnmatchedSlots;
+	private final Element[] bindings; // element currently substituted per slot, or null if unbound
+	private final boolean[] closed; // slots that can no longer be instantiated
+
+	private CaptionTemplate(String source, String[] literals, String[] slots, boolean keepUnmatchedSlots,
+			Element[] bindings, boolean[] closed) {
+		this.source = source;
+		this.literals = literals;
+		this.slots = slots;
+		this.keepUnmatchedSlots = keepUnmatchedSlots;
+		this.bindings = bindings;
+		this.closed = closed;
+	}
+
+	/**
+	 * Compiles a caption into its literal segments and variable slots.
+	 * @param caption The caption text, e.g. <code>the patient {P} has {D}</code>
+	 * @param keepUnmatchedSlots Whether slots remain open if a substitution does not bind their variable
+	 * @return The compiled, not yet instantiated, caption template
+	 */
+	static CaptionTemplate compile(String caption, boolean keepUnmatchedSlots) {
+		List<String> literals = new ArrayList<String>();
+		List<String> slots = new ArrayList<String>();
+		int open = caption.indexOf('{');
+		literals.add(open < 0 ? caption : caption.substring(0, open));
+		while (open >= 0) {
+			int next = caption.indexOf('{', open + 1);
+			String piece = next < 0 ? caption.substring(open + 1) : caption.substring(open + 1, next);
+			int close = piece.indexOf('}');
+			if (close > 0) {
+				slots.add(piece.substring(0, close));
+				literals.add(piece.substring(close + 1));
+			}
+			open = next;
+		}
+		return new CaptionTemplate(caption, literals.toArray(new String[literals.size()]),
+				slots.toArray(new String[slots.size()]), keepUnmatchedSlots, new Element[slots.size()],
+				new boolean[slots.size()]);
+	}
+
+	/**
+	 * Instantiates the open slots whose variable (or currently substituted variable)
+	 * is bound by the substitution.  Nothing is rendered yet.
+	 * @param subs The substitution that is applied to the owning rule
+	 * @return A new template sharing the compiled segments of this one
+	 */
+	CaptionTemplate apply(Substitution subs) {
+		Element[] newBindings = bindings.clone();
+		boolean[] newClosed = closed.clone();
+		for (int i = 0; i < slots.length; i++) {
+			if (newClosed[i]) {
+				continue;
+			}
+			String name;
+			if (newBindings[i] == null) {
+				name = slots[i];
+			} else if (newBindings[i] instanceof Variable) {
+				name = ((Variable) newBindings[i]).getName();
+			} else {
+				// Substituted by a non-variable; this can never match again, but an unmatched slot may still be closed
+				if (!keepUnmatchedSlots) newClosed[i] = true;
+				continue;
+			}
+			Element match = null;
+			for (Variable variable : subs.variables()) {
+				if (variable.getName().equals(name)) {
+					match = subs.get(variable);
+					break;
+				}
+			}
+			if (match != null) {
+				newBindings[i] = match;
+			} else if (!keepUnmatchedSlots) {
+				newClosed[i] = true;
+			}
+		}
+		return new CaptionTemplate(null, literals, slots, keepUnmatchedSlots, newBindings, newClosed);
+	}
+
+	/**
+	 * @return The caption text with all slots instantiated as far as they are bound
+	 */
+	String render() {
+		if (source != null) {
+			return source;
+		}
+		StringBuffer buffer = new StringBuffer(literals[0]);
+		for (int i = 0; i < slots.length; i++) {
+			String name = bindings[i] == null ? slots[i] : bindings[i].inspect();
+			if (closed[i]) {
+				buffer.append(name);
+				buffer.append("}");
+			} else {
+				buffer.append("{");
+				buffer.append(name);
+				buffer.append("}");
+			}
+			buffer.append(literals[i + 1]);
+		}
+		return buffer.toString();
+	}
+
+}
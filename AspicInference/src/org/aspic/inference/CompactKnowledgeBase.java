@@ -0,0 +1,1027 @@
+package org.aspic.inference;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * <p>A KnowledgeBase that stores its plain rules as rows of int arrays rather
+ * than as trees of Element objects.  Every functor and variable name is
+ * interned in a symbol table and a rule is encoded as a record of symbol
+ * words in one shared heap, next to a row with the degree of belief, name
+ * and flags of every rule.  Rules are looked up through int indexes on
+ * rule tag, rule name and (for the duplicate check) a hash of the record,
+ * and are only turned back into Rule objects when the reasoner actually
+ * visits them.  The rule hooks of named rules are not stored at all but are
+ * derived from the name column.  The heap, the rows, the symbol table and
+ * the indexes are all kept in int arrays of a {@link RuleStore}, which holds
+ * them on the Java heap unless a subclass supplies another store.</p>
+ *
+ * <p>Only rules made of atoms, numbers, variables and terms, and without
+ * captions or descriptions, are stored compactly.  Any other rule (e.g. one
+ * using built-in predicates or lists), as well as strict rules that need to
+ * be transposed, is passed on to the ordinary KnowledgeBase store; both
+ * stores are searched by every query, so this is invisible to the
+ * consumer.  Every rule and rule hook is given a sequence number when it is
+ * added, and the rules of the two stores are visited in that order, so a
+ * query finds its arguments in the same order as on a plain
+ * KnowledgeBase.</p>
+ *
+ * <p>Note that the Rule objects handed out for compactly stored rules are
+ * fresh copies: changing them does not change the knowledge base.</p>
+ *
+ * @author erickok
+ */
+public class CompactKnowledgeBase extends KnowledgeBase {
+
+	private static final long serialVersionUID = 1L;
+
+	// an element is encoded as a word with its kind in the lowest bits and a symbol number in the others;
+	// a term's word is followed by its number of arguments and then the arguments themselves
+	private static final int KIND_BITS = 3;
+	private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+	private static final int ATOM = 0;
+	private static final int INTEGER = 1;
+	private static final int FLOAT = 2;
+	private static final int VARIABLE = 3;
+	private static final int TERM = 4;
+	// a symbol that is not (yet) in the symbol table, used when encoding goals
+	private static final int UNKNOWN = -1;
+
+	// rule flags
+	private static final byte AUTO_NAMED = 1;
+	private static final byte REMOVED = 2;
+
+	private SymbolTable symbols;
+	// the encoded rules, one row per rule; removed rules are only flagged
+	private RuleStore store;
+	// indexes into the rule rows, holding a row number plus one (or 0 for none): the first rule in every
+	// hash bucket, the rule with every name symbol and the first and last rule with every rule tag symbol
+	private int hashCapacity = 64;
+	private IntArray rulesByHash;
+	private IntArray rulesByName;
+	private IntArray firstWithTag;
+	private IntArray lastWithTag;
+	// the arities (below 32) with which every symbol is used as a predicate, as bits
+	private IntArray predicateArities;
+	// the sequence numbers of the rules in the ordinary store and of the first rule added for every rule tag there
+	private int sequence = 0;
+	private Map<Rule, Integer> ordinarySequences = new IdentityHashMap<Rule, Integer>();
+	private Map<String, Integer> ordinaryTagSequences = new HashMap<String, Integer>();
+	// sequence numbers to give to the next rules that are added to the ordinary store, rather than new ones
+	private LinkedList<Integer> pendingSequences = new LinkedList<Integer>();
+
+	/**
+	 * default Constructor
+	 */
+	public CompactKnowledgeBase() {
+		super();
+		this.store = new ArrayRuleStore();
+		createIndexes();
+	}
+
+	/**
+	 * Constructor for transposed knowledge base
+	 * @param usingTransposition transposition adds additional transposed rules for every strict rule
+	 **/
+	public CompactKnowledgeBase(Boolean usingTransposition) {
+		super(usingTransposition);
+		this.store = new ArrayRuleStore();
+		createIndexes();
+	}
+
+	/**
+	 * Constructor for a knowledge base on some other rule store
+	 * @param store store that holds the encoded rules
+	 */
+	CompactKnowledgeBase(RuleStore store) {
+		super();
+		this.store = store;
+		createIndexes();
+	}
+
+	private void createIndexes() {
+		symbols = new SymbolTable(store);
+		rulesByHash = store.createArray("hashes");
+		rulesByName = store.createArray("names");
+		firstWithTag = store.createArray("firsttags");
+		lastWithTag = store.createArray("lasttags");
+		predicateArities = store.createArray("arities");
+	}
+
+	/**
+	 * @return number of rules (not counting rule hooks) that are stored compactly
+	 */
+	public int getCompactRuleCount() {
+		int count = 0;
+		for (int i = 0; i < store.size(); i++) {
+			if ((store.flags(i) & REMOVED) == 0) count++;
+		}
+		return count;
+	}
+
+	public void setUsingTransposition(boolean usingTransposition) {
+		if (!isUsingTransposition() && usingTransposition) {
+			// transpositions are managed by the ordinary store, so move the strict rules there first
+			for (int i = 0; i < store.size(); i++) {
+				if ((store.flags(i) & REMOVED) == 0 && store.word(store.offset(i)) > 0 && store.dob(i) == 1.0) {
+					Rule rule = materialize(i);
+					removeRule(rule);
+					// the rule and its rule hook keep their place among the other rules
+					pendingSequences.add(store.sequence(i) - 1);
+					pendingSequences.add(store.sequence(i));
+					super.addRule(rule);
+				}
+			}
+		}
+		super.setUsingTransposition(usingTransposition);
+	}
+
+	public void addRule(Rule rule) {
+		if (!isCompactable(rule)) {
+			super.addRule(rule);
+			return;
+		}
+		if (ruleExists(rule)) {
+			throw new RuntimeException("Rule already exists in knowledge Base");
+		}
+		if (rule.getName() != null && rule.getName().equals(rule.getConsequent())) {
+			throw new RuntimeException("A rule's name cannot be the same as it's consequent.");
+		}
+		if (!rule.isFact()) {
+			if (rule.getName() == null) {
+				rule.setName(new Constant(generateName()));
+				rule.setAutoNamed(true);
+			} else if (isRuleName(rule.getName())) {
+				// same conflict resolution as for rules in the ordinary store
+				Rule conflictingRule = getRuleFromName(rule.getName());
+				if (conflictingRule.isAutoNamed()) {
+					this.removeRule(conflictingRule);
+					conflictingRule.setName(null);
+					this.addRule(conflictingRule);
+				} else {
+					throw new RuleNameException();
+				}
+			}
+		}
+		store(rule);
+		rule.setKnowledgeBase(this);
+		addPredicates(rule);
+	}
+
+	public void addNewFacts(List<Rule> facts) {
+		for (Rule fact : facts) {
+			if (!isCompactable(fact)) {
+				super.addNewFacts(Collections.singletonList(fact));
+				continue;
+			}
+			if (!fact.isFact()) {
+				throw new RuntimeException("Only facts can be added without checking that they exist.");
+			}
+			if (fact.getName() != null && fact.getName().equals(fact.getConsequent())) {
+				throw new RuntimeException("A rule's name cannot be the same as it's consequent.");
+			}
+			store(fact);
+			fact.setKnowledgeBase(this);
+			addPredicates(fact);
+		}
+	}
+
+	public boolean removeRule(Rule rule) throws RuntimeException {
+		int index = findRule(rule);
+		if (index < 0) {
+			if (findRuleHook(rule) >= 0) {
+				throw new RuntimeException("Cannot remove an automatically generated rule - try removing the rule that generated it");
+			}
+			List<Rule> removed = getOrdinaryRulesToRemove(super.getRule(rule));
+			boolean result = super.removeRule(rule);
+			for (Rule candidate : removed) {
+				if (!isOrdinaryRule(candidate)) {
+					ordinarySequences.remove(candidate);
+				}
+			}
+			return result;
+		}
+		store.setFlags(index, (byte) (store.flags(index) | REMOVED));
+		modificationCount++;
+		unlinkTag(index, symbols.find(rule.getConsequent().ruleTag()));
+		if (store.word(store.offset(index)) > 0) {
+			rulesByName.set(store.name(index), 0);
+		}
+		return true;
+	}
+
+	public boolean ruleExists(Rule rule) {
+		return findRule(rule) >= 0 || findRuleHook(rule) >= 0 || super.ruleExists(rule);
+	}
+
+	public Rule getRule(Rule rule) {
+		int index = findRule(rule);
+		if (index >= 0) {
+			return materialize(index);
+		}
+		index = findRuleHook(rule);
+		if (index >= 0) {
+			return materializeRuleHook(index);
+		}
+		return super.getRule(rule);
+	}
+
+	public boolean isRuleName(Constant candidate) {
+		return findRuleByName(candidate) >= 0 || super.isRuleName(candidate);
+	}
+
+	public Rule getRuleFromName(Constant name) {
+		int index = findRuleByName(name);
+		return index >= 0 ? materialize(index) : super.getRuleFromName(name);
+	}
+
+	public Iterator<Rule> ruleIterator() {
+		return new CompactRuleIterator();
+	}
+
+	protected Map<Integer, List<Rule>> getArityMap(String ruleTag) {
+		return getArityMap(ruleTag, null);
+	}
+
+	protected Map<Integer, List<Rule>> getCandidateArityMap(Constant goal) {
+		IntList encoded = new IntList();
+		return getArityMap(goal.ruleTag(), encode(goal, encoded, false) ? encoded.toArray() : null);
+	}
+
+	/**
+	 * Adds a rule to the ordinary store and gives it its sequence number.
+	 */
+	protected void addRuleLocal(Rule rule) {
+		boolean pending = !pendingSequences.isEmpty();
+		Integer ruleSequence = pending ? pendingSequences.removeFirst() : Integer.valueOf(sequence++);
+		super.addRuleLocal(rule);
+		ordinarySequences.put(rule, ruleSequence);
+		String ruleTag = rule.getConsequent().ruleTag();
+		Integer tagSequence = ordinaryTagSequences.get(ruleTag);
+		if (tagSequence == null || tagSequence > ruleSequence) {
+			ordinaryTagSequences.put(ruleTag, ruleSequence);
+		}
+		if (pending) {
+			// move the rule back in front of the rules that were added after it
+			List<Rule> rules = rulesMap.get(ruleTag).get(Integer.valueOf(rule.getAntecedent().size()));
+			int i = rules.size() - 1;
+			while (i > 0 && ordinarySequences.get(rules.get(i - 1)) > ruleSequence) {
+				rules.set(i, rules.get(i - 1));
+				i--;
+			}
+			rules.set(i, rule);
+		}
+	}
+
+	/**
+	 * @deprecated Warning: leaks memory!
+	 */
+	@Deprecated
+	public Object clone() {
+		CompactKnowledgeBase o = (CompactKnowledgeBase) super.clone();
+		o.symbols = (SymbolTable) symbols.clone();
+		o.store = store.copy();
+		o.rulesByHash = rulesByHash.copy(hashCapacity);
+		o.rulesByName = rulesByName.copy(symbols.size());
+		o.firstWithTag = firstWithTag.copy(symbols.size());
+		o.lastWithTag = lastWithTag.copy(symbols.size());
+		o.predicateArities = predicateArities.copy(symbols.size());
+		// the ordinary rules were cloned as well, but are still at the same positions
+		o.ordinarySequences = new IdentityHashMap<Rule, Integer>();
+		for (Map.Entry<String, Map<Integer, List<Rule>>> entry : rulesMap.entrySet()) {
+			for (Map.Entry<Integer, List<Rule>> arityEntry : entry.getValue().entrySet()) {
+				List<Rule> copies = o.rulesMap.get(entry.getKey()).get(arityEntry.getKey());
+				for (int i = 0; i < copies.size(); i++) {
+					o.ordinarySequences.put(copies.get(i), ordinarySequences.get(arityEntry.getValue().get(i)));
+				}
+			}
+		}
+		o.ordinaryTagSequences = new HashMap<String, Integer>(ordinaryTagSequences);
+		o.pendingSequences = new LinkedList<Integer>();
+		return o;
+	}
+
+	/**
+	 * Registers the predicates of a rule in the symbol table rather than in
+	 * the predicates map, which is only used for very large arities.
+	 */
+	protected void addPredicates(Rule rule) {
+		if (rule.isAutoGenerated()) {
+			return;
+		}
+		for (Predicate predicate : rule.getPredicates()) {
+			String functor = predicate.getFunctor();
+			if (functor.equals("~")) {
+				continue;
+			}
+			if (predicate.getArity() < 32) {
+				int symbol = symbols.intern(functor);
+				predicateArities.set(symbol, predicateArities.get(symbol) | (1 << predicate.getArity()));
+			} else {
+				Set<Integer> arities = predicates.get(functor);
+				if (arities == null) {
+					arities = new HashSet<Integer>();
+					predicates.put(functor, arities);
+				}
+				arities.add(Integer.valueOf(predicate.getArity()));
+			}
+		}
+	}
+
+	public Set<String> getAllPredicates() {
+		Set<String> all = new HashSet<String>(super.getAllPredicates());
+		for (int symbol = 0; symbol < symbols.size(); symbol++) {
+			if (predicateArities.get(symbol) != 0) {
+				all.add(symbols.get(symbol));
+			}
+		}
+		return all;
+	}
+
+	public Set<Integer> getPredicateArities(String predicate) {
+		int symbol = symbols.find(predicate);
+		int bits = symbol < 0 ? 0 : predicateArities.get(symbol);
+		if (bits == 0) {
+			return super.getPredicateArities(predicate);
+		}
+		Set<Integer> arities = new HashSet<Integer>();
+		if (super.getPredicateArities(predicate) != null) {
+			arities.addAll(super.getPredicateArities(predicate));
+		}
+		for (int arity = 0; arity < 32; arity++) {
+			if ((bits & (1 << arity)) != 0) {
+				arities.add(Integer.valueOf(arity));
+			}
+		}
+		return arities;
+	}
+
+	/*
+	 * The ordinary rules that removing this knowledge base's copy of a rule may remove
+	 * as well: its rule hook, its transpositions and their rule hooks.
+	 */
+	private List<Rule> getOrdinaryRulesToRemove(Rule kbcopy) {
+		List<Rule> rules = new ArrayList<Rule>();
+		rules.add(kbcopy);
+		if (transposedRules != null && transposedRules.containsKey(kbcopy)) {
+			rules.addAll(transposedRules.get(kbcopy));
+		}
+		for (int i = rules.size() - 1; i >= 0; i--) {
+			Rule rule = rules.get(i);
+			if (!rule.isFact() && rule.getName() != null && super.ruleExists(new Rule(rule.getName(), rule.getDob()))) {
+				rules.add(super.getRule(new Rule(rule.getName(), rule.getDob())));
+			}
+		}
+		return rules;
+	}
+
+	private boolean isOrdinaryRule(Rule rule) {
+		Map<Integer, List<Rule>> arityMap = rulesMap.get(rule.getConsequent().ruleTag());
+		List<Rule> rules = arityMap == null ? null : arityMap.get(Integer.valueOf(rule.getAntecedent().size()));
+		if (rules != null) {
+			for (Rule candidate : rules) {
+				if (candidate == rule) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Only plain rules are stored compactly; anything the encoding does not cover is left to the ordinary store.
+	 */
+	private boolean isCompactable(Rule rule) {
+		if (rule.getClass() != Rule.class || rule.isAutoGenerated()) {
+			return false;
+		}
+		if (rule.getCaption() != null || rule.getClaimCaption() != null || rule.getDescription() != null || rule.getClaimDescription() != null) {
+			return false;
+		}
+		if (!rule.isFact() && rule.isStrict() && isUsingTransposition()) {
+			return false;
+		}
+		Constant consequent = rule.getConsequent();
+		if (consequent.getClass() != Constant.class && consequent.getClass() != Term.class) {
+			return false;
+		}
+		if (rule.getName() != null && rule.getName().getClass() != Constant.class) {
+			return false;
+		}
+		return isEncodable(rule);
+	}
+
+	private boolean isEncodable(Rule rule) {
+		if (!isEncodable(rule.getConsequent())) {
+			return false;
+		}
+		for (Element premise : rule.getAntecedent()) {
+			if (premise instanceof Variable || !isEncodable(premise)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isEncodable(Element element) {
+		Class<?> type = element.getClass();
+		if (type == Term.class) {
+			for (Element arg : ((Term) element).getArgList()) {
+				if (!isEncodable(arg)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return type == Constant.class || type == Variable.class || type == ConstantInteger.class || type == ConstantFloat.class;
+	}
+
+	/*
+	 * Appends the encoding of an element to a record.  Symbols are only added to the
+	 * symbol table if intern is set; otherwise unknown symbols are encoded as UNKNOWN.
+	 * Returns false if the element cannot be encoded.
+	 */
+	private boolean encode(Element element, IntList out, boolean intern) {
+		Class<?> type = element.getClass();
+		if (type == Variable.class) {
+			out.add(word(symbol(((Variable) element).getName(), intern), VARIABLE));
+		} else if (type == Term.class) {
+			Term term = (Term) element;
+			out.add(word(symbol(term.getFunctor(), intern), TERM));
+			out.add(term.numberOfArgs());
+			for (Element arg : term.getArgList()) {
+				if (!encode(arg, out, intern)) {
+					return false;
+				}
+			}
+		} else if (type == ConstantInteger.class) {
+			out.add(word(symbol(((Constant) element).getFunctor(), intern), INTEGER));
+		} else if (type == ConstantFloat.class) {
+			out.add(word(symbol(((Constant) element).getFunctor(), intern), FLOAT));
+		} else if (type == Constant.class) {
+			out.add(word(symbol(((Constant) element).getFunctor(), intern), ATOM));
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	private boolean encode(Rule rule, IntList out, boolean intern) {
+		out.add(rule.getAntecedent().size());
+		if (!encode(rule.getConsequent(), out, intern)) {
+			return false;
+		}
+		for (Element premise : rule.getAntecedent()) {
+			if (!encode(premise, out, intern)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int symbol(String symbol, boolean intern) {
+		return intern ? symbols.intern(symbol) : symbols.find(symbol);
+	}
+
+	private static int word(int symbol, int kind) {
+		return (symbol << KIND_BITS) | kind;
+	}
+
+	private void store(Rule rule) {
+		IntList record = new IntList();
+		encode(rule, record, true);
+		modificationCount++;
+		int name = rule.getName() == null ? UNKNOWN : symbols.intern(rule.getName().getFunctor());
+		double dob = rule.getDob();
+
+		if (store.size() >= hashCapacity * 2) {
+			growHashes();
+		}
+		int bucket = hash(record, dob, name) & (hashCapacity - 1);
+		// a rule hook is added just before its rule, as in the ordinary store
+		if (!rule.isFact()) {
+			sequence++;
+		}
+		int index = store.add(record, dob, name, rule.isAutoNamed() ? AUTO_NAMED : 0, rulesByHash.get(bucket) - 1, sequence++);
+		rulesByHash.set(bucket, index + 1);
+
+		// rules are appended to the list of their rule tag, so that it stays in the order in which they were added
+		int tag = symbols.intern(rule.getConsequent().ruleTag());
+		int last = lastWithTag.get(tag) - 1;
+		if (last < 0) {
+			firstWithTag.set(tag, index + 1);
+		} else {
+			store.setNextWithTag(last, index);
+		}
+		lastWithTag.set(tag, index + 1);
+		// the names of facts are not rule names, as with the ordinary store
+		if (!rule.isFact()) {
+			rulesByName.set(name, index + 1);
+		}
+	}
+
+	private void unlinkTag(int index, int tag) {
+		int previous = -1;
+		for (int i = firstWithTag.get(tag) - 1; i != index; i = store.nextWithTag(i)) {
+			previous = i;
+		}
+		int next = store.nextWithTag(index);
+		if (previous < 0) {
+			firstWithTag.set(tag, next + 1);
+		} else {
+			store.setNextWithTag(previous, next);
+		}
+		if (next < 0) {
+			lastWithTag.set(tag, previous + 1);
+		}
+	}
+
+	/*
+	 * Doubles the number of hash buckets, splitting every bucket in place in two.
+	 */
+	private void growHashes() {
+		IntList record = new IntList();
+		for (int bucket = 0; bucket < hashCapacity; bucket++) {
+			int[] heads = { -1, -1 };
+			int[] tails = { -1, -1 };
+			for (int i = rulesByHash.get(bucket) - 1; i >= 0;) {
+				int following = store.nextWithHash(i);
+				record.clear();
+				for (int position = store.offset(i); position < store.end(i); position++) {
+					record.add(store.word(position));
+				}
+				int half = (hash(record, store.dob(i), store.name(i)) & hashCapacity) == 0 ? 0 : 1;
+				if (tails[half] < 0) {
+					heads[half] = i;
+				} else {
+					store.setNextWithHash(tails[half], i);
+				}
+				tails[half] = i;
+				store.setNextWithHash(i, -1);
+				i = following;
+			}
+			rulesByHash.set(bucket, heads[0] + 1);
+			rulesByHash.set(bucket + hashCapacity, heads[1] + 1);
+		}
+		hashCapacity *= 2;
+	}
+
+	private static int[] copyOf(int[] array, int capacity) {
+		int[] copy = new int[capacity];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, capacity));
+		return copy;
+	}
+
+	/*
+	 * Hash of a record that, like Rule.isEqualModuloVariables, ignores the names of variables.
+	 */
+	private static int hash(IntList record, double dob, int name) {
+		int hash = 17;
+		for (int i = 0; i < record.size(); i++) {
+			int word = record.get(i);
+			hash = 31 * hash + ((word & KIND_MASK) == VARIABLE ? VARIABLE : word);
+		}
+		long bits = Double.doubleToLongBits(dob);
+		hash = 31 * hash + (int) (bits ^ (bits >>> 32));
+		hash = 31 * hash + name;
+		return hash ^ (hash >>> 16);
+	}
+
+	private boolean matches(int index, IntList record, double dob, int name) {
+		if (store.dob(index) != dob || store.name(index) != name) {
+			return false;
+		}
+		if (store.end(index) - store.offset(index) != record.size()) {
+			return false;
+		}
+		for (int i = 0; i < record.size(); i++) {
+			int stored = store.word(store.offset(index) + i);
+			int word = record.get(i);
+			if (stored != word && ((stored & KIND_MASK) != VARIABLE || (word & KIND_MASK) != VARIABLE)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Finds the compactly stored rule that is equal to this rule modulo variables, or -1.
+	 */
+	private int findRule(Rule rule) {
+		if (rule.isAutoGenerated() || !isEncodable(rule)) {
+			return -1;
+		}
+		IntList record = new IntList();
+		if (!encode(rule, record, false)) {
+			return -1;
+		}
+		for (int i = 0; i < record.size(); i++) {
+			if (record.get(i) >> KIND_BITS == UNKNOWN && (record.get(i) & KIND_MASK) != VARIABLE) {
+				return -1;
+			}
+		}
+		int name = UNKNOWN;
+		if (rule.getName() != null) {
+			if (rule.getName().getClass() != Constant.class || (name = symbols.find(rule.getName().getFunctor())) == UNKNOWN) {
+				return -1;
+			}
+		}
+		double dob = rule.getDob();
+		for (int i = rulesByHash.get(hash(record, dob, name) & (hashCapacity - 1)) - 1; i >= 0; i = store.nextWithHash(i)) {
+			if ((store.flags(i) & REMOVED) == 0 && matches(i, record, dob, name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private int findRuleByName(Constant name) {
+		if (name == null || name.getClass() != Constant.class) {
+			return -1;
+		}
+		int symbol = symbols.find(name.getFunctor());
+		return symbol == UNKNOWN ? -1 : rulesByName.get(symbol) - 1;
+	}
+
+	/*
+	 * Finds the compactly stored rule whose (derived) rule hook is equal to this rule, or -1.
+	 */
+	private int findRuleHook(Rule rule) {
+		if (!rule.isFact() || rule.getName() != null || rule.getConsequent().getClass() != Constant.class) {
+			return -1;
+		}
+		int index = findRuleByName(rule.getConsequent());
+		return index >= 0 && store.dob(index) == rule.getDob() ? index : -1;
+	}
+
+	private int findRuleHookTarget(String ruleTag) {
+		int symbol = symbols.find(ruleTag);
+		return symbol == UNKNOWN ? -1 : rulesByName.get(symbol) - 1;
+	}
+
+	/*
+	 * Merges the compactly stored rules for a rule tag into the ordinary arity map.  If
+	 * an encoded goal is given, rules whose consequent cannot unify with it are left out.
+	 */
+	private Map<Integer, List<Rule>> getArityMap(String ruleTag, int[] goal) {
+		Map<Integer, List<Rule>> arityMap = super.getArityMap(ruleTag);
+		int tag = symbols.find(ruleTag);
+		int first = tag == UNKNOWN ? -1 : firstWithTag.get(tag) - 1;
+		int ruleHookTarget = findRuleHookTarget(ruleTag);
+		if (first < 0 && ruleHookTarget < 0) {
+			return arityMap;
+		}
+		Map<Integer, IntList> compact = new HashMap<Integer, IntList>();
+		for (int index = first; index >= 0; index = store.nextWithTag(index)) {
+			if (goal != null && !mayUnify(goal, 0, store.offset(index) + 1)) {
+				continue;
+			}
+			Integer arity = Integer.valueOf(store.word(store.offset(index)));
+			IntList list = compact.get(arity);
+			if (list == null) {
+				list = new IntList();
+				compact.put(arity, list);
+			}
+			list.add(index);
+		}
+		if (ruleHookTarget >= 0) {
+			IntList list = compact.get(Integer.valueOf(0));
+			if (list == null) {
+				list = new IntList();
+				compact.put(Integer.valueOf(0), list);
+			}
+			// rule hooks are told apart from rules by a negative index
+			int ruleHook = -ruleHookTarget - 1;
+			int i = list.size();
+			while (i > 0 && sequence(list.get(i - 1)) > sequence(ruleHook)) {
+				i--;
+			}
+			list.insert(i, ruleHook);
+		}
+
+		Map<Integer, List<Rule>> merged = new HashMap<Integer, List<Rule>>();
+		if (arityMap != null) {
+			merged.putAll(arityMap);
+		}
+		for (Map.Entry<Integer, IntList> entry : compact.entrySet()) {
+			List<Rule> rules = merged.get(entry.getKey());
+			merged.put(entry.getKey(), new MergedRuleList(rules == null ? new ArrayList<Rule>() : rules, entry.getValue().toArray()));
+		}
+		// the argument iterators expect either no map or a map with at least one arity
+		return merged.isEmpty() ? null : merged;
+	}
+
+	/*
+	 * The sequence number of a compactly stored rule or, for a negative index, of its rule hook.
+	 */
+	private int sequence(int index) {
+		return index < 0 ? store.sequence(-index - 1) - 1 : store.sequence(index);
+	}
+
+	/*
+	 * The rule tag of the consequent of a compactly stored rule, see Constant.ruleTag().
+	 */
+	private String ruleTag(int index) {
+		int position = store.offset(index) + 1;
+		String functor = symbols.get(store.word(position) >> KIND_BITS);
+		if ((store.word(position) & KIND_MASK) == TERM && functor.equals("~")) {
+			return "neg_" + symbols.get(store.word(position + 2) >> KIND_BITS);
+		}
+		return functor;
+	}
+
+	/*
+	 * Checks whether the encoded goal element starting at goal[g] might unify with the
+	 * encoded consequent element starting at heap position h.  Only definite mismatches are
+	 * reported; anything unusual is left to the real unification.
+	 */
+	private boolean mayUnify(int[] goal, int g, int h) {
+		int goalKind = goal[g] & KIND_MASK;
+		int storedKind = store.word(h) & KIND_MASK;
+		if (goalKind == VARIABLE || storedKind == VARIABLE) {
+			return true;
+		}
+		if (goalKind == TERM && storedKind == TERM) {
+			if (goal[g] != store.word(h) || goal[g + 1] != store.word(h + 1)) {
+				return false;
+			}
+			int arity = store.word(h + 1);
+			g += 2;
+			h += 2;
+			for (int i = 0; i < arity; i++) {
+				if (!mayUnify(goal, g, h)) {
+					return false;
+				}
+				g = skip(goal, g);
+				h = skipStored(h);
+			}
+			return true;
+		}
+		if (goalKind == TERM || storedKind == TERM) {
+			return true;
+		}
+		// constants unify on their functor
+		return goal[g] >> KIND_BITS == store.word(h) >> KIND_BITS;
+	}
+
+	private static int skip(int[] words, int position) {
+		if ((words[position] & KIND_MASK) != TERM) {
+			return position + 1;
+		}
+		int arity = words[position + 1];
+		position += 2;
+		for (int i = 0; i < arity; i++) {
+			position = skip(words, position);
+		}
+		return position;
+	}
+
+	private int skipStored(int position) {
+		if ((store.word(position) & KIND_MASK) != TERM) {
+			return position + 1;
+		}
+		int arity = store.word(position + 1);
+		position += 2;
+		for (int i = 0; i < arity; i++) {
+			position = skipStored(position);
+		}
+		return position;
+	}
+
+	private Rule materialize(int index) {
+		int[] position = { store.offset(index) };
+		int size = store.word(position[0]++);
+		Constant consequent = (Constant) decode(position);
+		Element[] antecedent = new Element[size];
+		for (int i = 0; i < size; i++) {
+			antecedent[i] = decode(position);
+		}
+		Rule rule;
+		if (store.name(index) == UNKNOWN) {
+			rule = new Rule(consequent, new ElementList(antecedent), store.dob(index));
+		} else {
+			Constant name = new Constant();
+			name.setFunctor(symbols.get(store.name(index)));
+			rule = new Rule(consequent, new ElementList(antecedent), store.dob(index), name);
+		}
+		rule.setAutoNamed((store.flags(index) & AUTO_NAMED) != 0);
+		rule.setKnowledgeBase(this);
+		// the row number identifies the rule for as long as the store exists
+		rule.setId(index);
+		return rule;
+	}
+
+	private Rule materializeRuleHook(int index) {
+		Constant name = new Constant();
+		name.setFunctor(symbols.get(store.name(index)));
+		Rule ruleHook = new Rule(name, store.dob(index));
+		ruleHook.setAutoGenerated(true);
+		ruleHook.setKnowledgeBase(this);
+		return ruleHook;
+	}
+
+	private Element decode(int[] position) {
+		int word = store.word(position[0]++);
+		String symbol = symbols.get(word >> KIND_BITS);
+		switch (word & KIND_MASK) {
+		case VARIABLE:
+			return new Variable(symbol);
+		case INTEGER:
+			return new ConstantInteger(Integer.parseInt(symbol));
+		case FLOAT:
+			return new ConstantFloat(Double.parseDouble(symbol));
+		case TERM:
+			int arity = store.word(position[0]++);
+			Element[] args = new Element[arity];
+			for (int i = 0; i < arity; i++) {
+				args[i] = decode(position);
+			}
+			Term term = new Term();
+			term.setFunctor(symbol);
+			term.setArgList(new ElementList(args));
+			return term;
+		default:
+			Constant constant = new Constant();
+			constant.setFunctor(symbol);
+			return constant;
+		}
+	}
+
+	/**
+	 * A list of rules from the ordinary store and compactly stored rules,
+	 * merged in the order in which they were added.  Compactly stored rules
+	 * are only materialized when they are visited.
+	 */
+	private class MergedRuleList extends AbstractList<Rule> {
+		private List<Rule> rules;
+		private int[] indices;
+		// positions in rules, or in indices offset by the number of rules
+		private int[] order;
+
+		public MergedRuleList(List<Rule> rules, int[] indices) {
+			this.rules = rules;
+			this.indices = indices;
+			this.order = new int[rules.size() + indices.length];
+			int r = 0;
+			int c = 0;
+			for (int i = 0; i < order.length; i++) {
+				if (c == indices.length || (r < rules.size() && ordinarySequences.get(rules.get(r)) < sequence(indices[c]))) {
+					order[i] = r++;
+				} else {
+					order[i] = rules.size() + c++;
+				}
+			}
+		}
+
+		public Rule get(int i) {
+			if (order[i] < rules.size()) {
+				return rules.get(order[i]);
+			}
+			int index = indices[order[i] - rules.size()];
+			return index < 0 ? materializeRuleHook(-index - 1) : materialize(index);
+		}
+
+		public int size() {
+			return order.length;
+		}
+	}
+
+	/**
+	 * Iterates over the rules of both stores in the order of a plain
+	 * KnowledgeBase: by rule tag, in the order of a hash map to which the rule
+	 * tags were added in the order of their first rule, then by arity and then
+	 * in the order in which the rules were added.
+	 */
+	private class CompactRuleIterator implements Iterator<Rule> {
+		Iterator<String> ruleTagIterator;
+		Iterator<List<Rule>> arityIterator = null;
+		Iterator<Rule> ruleIterator = null;
+
+		public CompactRuleIterator() {
+			final Map<String, Integer> tagSequences = new HashMap<String, Integer>(ordinaryTagSequences);
+			for (int i = 0; i < store.size(); i++) {
+				// removed rules are included, as their rule tags stay in the ordinary store's map as well
+				if (store.word(store.offset(i)) > 0) {
+					addTagSequence(tagSequences, symbols.get(store.name(i)), store.sequence(i) - 1);
+				}
+				addTagSequence(tagSequences, ruleTag(i), store.sequence(i));
+			}
+			List<String> ruleTags = new ArrayList<String>(tagSequences.keySet());
+			Collections.sort(ruleTags, new Comparator<String>() {
+				public int compare(String a, String b) {
+					return tagSequences.get(a).compareTo(tagSequences.get(b));
+				}
+			});
+			Map<String, Boolean> ruleTagMap = new HashMap<String, Boolean>();
+			for (String ruleTag : ruleTags) {
+				ruleTagMap.put(ruleTag, Boolean.TRUE);
+			}
+			ruleTagIterator = ruleTagMap.keySet().iterator();
+		}
+
+		private void addTagSequence(Map<String, Integer> tagSequences, String ruleTag, int ruleSequence) {
+			Integer tagSequence = tagSequences.get(ruleTag);
+			if (tagSequence == null || tagSequence > ruleSequence) {
+				tagSequences.put(ruleTag, ruleSequence);
+			}
+		}
+
+		public boolean hasNext() {
+			while (ruleIterator == null || !ruleIterator.hasNext()) {
+				if (arityIterator != null && arityIterator.hasNext()) {
+					ruleIterator = arityIterator.next().iterator();
+				} else if (ruleTagIterator.hasNext()) {
+					Map<Integer, List<Rule>> arityMap = getArityMap(ruleTagIterator.next());
+					arityIterator = arityMap == null ? null : arityMap.values().iterator();
+				} else {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		public Rule next() {
+			if (hasNext()) {
+				return ruleIterator.next();
+			} else {
+				throw new NoSuchElementException();
+			}
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * A growable list of ints.
+	 */
+	static class IntList implements Cloneable, Serializable {
+		private static final long serialVersionUID = 1L;
+		private int[] values = new int[8];
+		private int size = 0;
+
+		void add(int value) {
+			if (size == values.length) {
+				values = copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		int get(int i) {
+			return values[i];
+		}
+
+		int size() {
+			return size;
+		}
+
+		void remove(int value) {
+			for (int i = 0; i < size; i++) {
+				if (values[i] == value) {
+					System.arraycopy(values, i + 1, values, i, size - i - 1);
+					size--;
+					return;
+				}
+			}
+		}
+
+		void insert(int i, int value) {
+			add(value);
+			System.arraycopy(values, i, values, i + 1, size - i - 1);
+			values[i] = value;
+		}
+
+		void clear() {
+			size = 0;
+		}
+
+		int[] toArray() {
+			return copyOf(values, size);
+		}
+
+		public Object clone() {
+			IntList o = null;
+			try {
+				o = (IntList) super.clone();
+			} catch (CloneNotSupportedException e) {
+				e.printStackTrace();
+			}
+			o.values = values.clone();
+			return o;
+		}
+	}
+
+}
@@ -213,7 +213,7 @@ public class Constant extends Element implements Cloneable {
 			this.restrictedRebutting = restrictedRebutting;
 			logger.fine(party.toString() + ": searching for arguments for literal " + Constant.this.inspect() + ((needed>0.0) ? needed : ""));
 			// set up your iterators
-			this.arityMap = Constant.this.getKnowledgeBase().getArityMap(Constant.this.ruleTag());
+			this.arityMap = Constant.this.getKnowledgeBase().getCandidateArityMap(Constant.this);
 			if (arityMap!=null) {	
 				arityIterator = arityMap.keySet().iterator();
 				ruleIterator = getNextRuleIterator();
@@ -0,0 +1,145 @@
+package org.aspic.inference;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * <p>A CompactKnowledgeBase whose encoded rules, symbol table and indexes
+ * live in memory-mapped files in a directory, so that they are paged in and
+ * out by the operating system rather than taking up Java heap space.  Only
+ * the rules that could not be stored compactly are kept on the heap.  This
+ * allows reasoning over knowledge bases that are larger than the heap.</p>
+ *
+ * <p>{@link #save()} and {@link #close()} write the mapped files to disk and
+ * save the sizes of the files' contents, together with the rules that could
+ * not be stored compactly, in a small index file.  Opening the directory
+ * again reads back only that index and maps the files, so it takes the same
+ * time no matter how many rules are stored compactly.  Changes made after
+ * the last save are lost if the knowledge base is not closed.</p>
+ * <pre>
+ * DiskKnowledgeBase kb = DiskKnowledgeBase.open(new File("beliefs"));
+ * Engine engine = new Engine(kb);
+ * ...
+ * kb.close();
+ * </pre>
+ *
+ * @author erickok
+ */
+public class DiskKnowledgeBase extends CompactKnowledgeBase {
+
+	private static final long serialVersionUID = 1L;
+
+	static final String INDEX_FILE = "index.ser";
+
+	private MappedRuleStore mappedStore;
+	private transient File directory;
+
+	private DiskKnowledgeBase(File directory, MappedRuleStore store) {
+		super(store);
+		this.directory = directory;
+		this.mappedStore = store;
+	}
+
+	/**
+	 * Opens the knowledge base stored in a directory, or creates a new, empty
+	 * one if the directory does not hold a saved knowledge base yet.
+	 * @param directory directory holding the knowledge base files
+	 * @return the opened knowledge base
+	 * @throws IOException if the files cannot be read or created
+	 */
+	public static DiskKnowledgeBase open(File directory) throws IOException {
+		File index = new File(directory, INDEX_FILE);
+		if (!index.exists()) {
+			return create(directory);
+		}
+		ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(index)));
+		try {
+			DiskKnowledgeBase kb = (DiskKnowledgeBase) in.readObject();
+			kb.directory = directory;
+			kb.mappedStore.attach(directory);
+			return kb;
+		} catch (ClassNotFoundException e) {
+			throw new IOException("Not a knowledge base index: " + index.getPath());
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Creates a new, empty knowledge base in a directory, replacing any
+	 * knowledge base that was stored there before.
+	 * @param directory directory to hold the knowledge base files
+	 * @return the new knowledge base
+	 * @throws IOException if the files cannot be created
+	 */
+	public static DiskKnowledgeBase create(File directory) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Unable to create knowledge base directory " + directory.getPath());
+		}
+		// the mapped files replace any that are there already
+		new File(directory, INDEX_FILE).delete();
+		return new DiskKnowledgeBase(directory, new MappedRuleStore(directory));
+	}
+
+	/**
+	 * @return the directory holding the knowledge base files
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Writes the mapped files to disk and saves the index, so that the
+	 * knowledge base can be opened again in its current state.
+	 * @throws IOException if the index cannot be written
+	 */
+	public void save() throws IOException {
+		if (mappedStore == null) {
+			throw new RuntimeException("A cloned knowledge base is not stored on disk");
+		}
+		mappedStore.force();
+		// write to a temporary file first, so that a failed save leaves the previous index intact
+		File temporary = new File(directory, INDEX_FILE + ".tmp");
+		ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+		try {
+			out.writeObject(this);
+		} finally {
+			out.close();
+		}
+		File index = new File(directory, INDEX_FILE);
+		index.delete();
+		if (!temporary.renameTo(index)) {
+			throw new IOException("Unable to replace knowledge base index " + index.getPath());
+		}
+	}
+
+	/**
+	 * Saves the knowledge base, closes its files and drops their mappings.
+	 * The knowledge base cannot be used afterwards.
+	 * @throws IOException if the index cannot be written
+	 */
+	public void close() throws IOException {
+		save();
+		mappedStore.close();
+	}
+
+	/**
+	 * The clone of a disk knowledge base keeps its rules in memory and
+	 * cannot be saved.
+	 * @deprecated Warning: leaks memory!
+	 */
+	@Deprecated
+	public Object clone() {
+		DiskKnowledgeBase o = (DiskKnowledgeBase) super.clone();
+		o.mappedStore = null;
+		o.directory = null;
+		return o;
+	}
+
+}
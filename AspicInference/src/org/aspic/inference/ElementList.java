@@ -331,19 +331,104 @@ public class ElementList extends Element implements Iterable<Element> {
 		}
 	}
 	
+	/**
+	 * Like <code>argumentIterator</code>, but searches for arguments for the elements
+	 * in the order given by <code>evaluationOrder</code>.  The argument lists that 
+	 * are returned still have their arguments in the original order of the elements.
+	 * @param fixedTail number of trailing elements that must be searched last, in their current order 
+	 * @return Iterator for all ArgumentLists that can be generated for this ElementList
+	 */
+	Iterator<RuleArgumentList> orderedArgumentIterator(Double needed, Party party, int level, int d_top, RuleArgumentValuator valuator, boolean restrictedRebutting, int fixedTail) {
+		int[] order = evaluationOrder(fixedTail);
+		if (order == null) {
+			return argumentIterator(needed, party, level, d_top, valuator, restrictedRebutting);
+		}
+		List<Element> reorderedList = new ArrayList<Element>();
+		for (int i=0; i<order.length; i++) {
+			reorderedList.add(list.get(order[i]));
+		}
+		ElementList reordered = new ElementList();
+		reordered.setList(reorderedList); // elements are shared, so their variables are consolidated already
+		reordered.setKnowledgeBase(this.getKnowledgeBase());
+		return new RestoredOrderArgumentListIterator(reordered.argumentIterator(needed, party, level, d_top, valuator, restrictedRebutting), order);
+	}
+	
+	/**
+	 * <p>Decides in which order to search for arguments for the elements of this 
+	 * list, which is a conjunction.  Elements are picked greedily by the number of
+	 * arguments they are expected to produce: an element with no matching rules at 
+	 * all (which fails the whole list) first, then elements whose variables are 
+	 * all bound by elements picked earlier, then the element with the fewest 
+	 * matching rules in the knowledge base.  Ties keep the original order.</p>
+	 * <p>Built-in predicates depend on the bindings made by the elements before
+	 * them (think of <code>nonvar</code> and <code>\+</code>), so they are never moved
+	 * and elements are never moved across them.  The same goes for the 
+	 * <code>fixedTail</code>, which is used for the hidden rule name premise.</p>
+	 * @param fixedTail number of trailing elements that must be searched last, in their current order 
+	 * @return the indices of the elements in the order to search them, or null to keep the current order
+	 */
+	int[] evaluationOrder(int fixedTail) {
+		KnowledgeBase kb = this.getKnowledgeBase();
+		int movable = list.size() - fixedTail;
+		if (kb == null || !kb.isUsingAntecedentOrdering() || movable < 2) {
+			return null;
+		}
+		int[] order = new int[list.size()];
+		boolean reordered = false;
+		Set<Variable> bound = new HashSet<Variable>();
+		int start = 0;
+		while (start < list.size()) {
+			// find the next segment of elements that may be reordered among themselves
+			int end = start;
+			while (end < movable && !(list.get(end) instanceof BuiltIn)) {
+				end++;
+			}
+			if (end == start) {
+				// a built-in or a fixed element stays where it is
+				order[start] = start;
+				bound.addAll(list.get(start).getVariables());
+				start++;
+				continue;
+			}
+			boolean[] picked = new boolean[end - start];
+			for (int position = start; position < end; position++) {
+				int best = -1;
+				int bestEstimate = 0;
+				int bestCount = 0;
+				for (int i = start; i < end; i++) {
+					if (picked[i - start]) continue;
+					Element element = list.get(i);
+					int count = kb.getRuleCount(((Constant) element).ruleTag());
+					int estimate = (count == 0) ? 0 : (bound.containsAll(element.getVariables()) ? 1 : count);
+					if (best < 0 || estimate < bestEstimate || (estimate == bestEstimate && count < bestCount)) {
+						best = i;
+						bestEstimate = estimate;
+						bestCount = count;
+					}
+				}
+				picked[best - start] = true;
+				order[position] = best;
+				bound.addAll(list.get(best).getVariables());
+				if (best != position) reordered = true;
+			}
+			start = end;
+		}
+		return reordered ? order : null;
+	}
+	
 	/**
 	 * Ensure all variables within this term that
 	 * have the same public name have the same private name.
 	 */
 	void consolidateVariables() {
-		Map<String, String> varNames = new HashMap<String, String>();
+		Map<String, Variable> varNames = new HashMap<String, Variable>();
 		Iterator<Variable> iterator = this.getVariables().iterator();
 		while(iterator.hasNext()) {
 			Variable var = iterator.next();
 			if (varNames.containsKey(var.getName())) {
 				var.setInternalName(varNames.get(var.getName()));
 			} else {
-				varNames.put(var.getName(), var.getInternalName());
+				varNames.put(var.getName(), var);
 			}
 		}
 	}
@@ -432,6 +517,38 @@ public class ElementList extends Element implements Iterable<Element> {
 		}
 	}
 	
+	/**
+	 * Wraps the argument list iterator of a reordered copy of this list and 
+	 * puts the arguments of every returned list back in the original order of
+	 * the elements.
+	 */
+	private class RestoredOrderArgumentListIterator implements Iterator<RuleArgumentList> {
+		private final Iterator<RuleArgumentList> reorderedIterator;
+		private final int[] order;
+		
+		public RestoredOrderArgumentListIterator(Iterator<RuleArgumentList> reorderedIterator, int[] order) {
+			this.reorderedIterator = reorderedIterator;
+			this.order = order;
+		}
+		
+		public boolean hasNext() {
+			return reorderedIterator.hasNext();
+		}
+		
+		public RuleArgumentList next() {
+			RuleArgumentList reorderedList = reorderedIterator.next();
+			RuleArgument[] arguments = new RuleArgument[order.length];
+			for (int i=0; i<order.length; i++) {
+				arguments[order[i]] = reorderedList.getArguments().get(i);
+			}
+			return new RuleArgumentList(new ArrayList<RuleArgument>(Arrays.asList(arguments)), reorderedList.getSubstitution());
+		}
+		
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+	
 	/**
 	 * Returns an Iterator over a list with one empty ArgumentList in it. 
 	 */
@@ -76,6 +76,15 @@ public class Engine implements Cloneable {
 			void setValue(Engine eng, Enum value) {
 				eng.source.setValuator((Valuator) value);
 			}			
+		},
+		/** Search the premises of rules in order of estimated cost (off by default, as it changes which proof is found first) **/
+		ANTECEDENT_ORDERING {
+			Enum[] getValues() { 
+				return OnOff.values(); 
+				} 
+			void setValue(Engine eng, Enum value) {
+				eng.source.getKnowledgeBase().setUsingAntecedentOrdering(value.equals(OnOff.ON) ? true : false);
+			}			
 		};
 		/**
 		 * Abstract method for retrieving the supported values for
@@ -256,6 +265,7 @@ public class Engine implements Cloneable {
 		properties.put(Property.TRANSPOSITION, source.getKnowledgeBase().isUsingTransposition() ? OnOff.ON : OnOff.OFF);
 		properties.put(Property.VALUATION, source.getValuator());
 		properties.put(Property.RESTRICTED_REBUTTING, source.isRebuttingRestricted() ? OnOff.ON : OnOff.OFF);
+		properties.put(Property.ANTECEDENT_ORDERING, source.getKnowledgeBase().isUsingAntecedentOrdering() ? OnOff.ON : OnOff.OFF);
 	}
 	
 	/** 
@@ -0,0 +1,78 @@
+package org.aspic.inference;
+
+/**
+ * Builds fingerprints of elements and arguments that ignore the names of
+ * variables, so that things that are equal modulo variables can be looked
+ * up by their fingerprint instead of being compared with all others. Things
+ * with the same fingerprint are not necessarily equal, e.g. when the same
+ * variable is used twice, so they still need to be compared with
+ * isEqualModuloVariables.
+ *
+ * @author erickok
+ */
+public final class Fingerprint {
+
+	private Fingerprint() {
+	}
+
+	/**
+	 * Returns a fingerprint of an argument that is the same for semantically
+	 * equal arguments: their claims and those of their sub-arguments are the
+	 * same modulo variables
+	 * @param argument The argument to fingerprint
+	 * @return The fingerprint
+	 */
+	public static String of(RuleArgument argument) {
+		StringBuilder fingerprint = new StringBuilder();
+		appendArgument(fingerprint, argument);
+		return fingerprint.toString();
+	}
+
+	/**
+	 * Returns a fingerprint of an element that is the same for elements that
+	 * are equal modulo variables
+	 * @param element The element to fingerprint
+	 * @return The fingerprint
+	 */
+	public static String of(Element element) {
+		StringBuilder fingerprint = new StringBuilder();
+		appendElement(fingerprint, element);
+		return fingerprint.toString();
+	}
+
+	private static void appendArgument(StringBuilder fingerprint, RuleArgument argument) {
+		appendElement(fingerprint, argument.getClaim());
+		fingerprint.append('{');
+		for (RuleArgument sub : argument.getSubArgumentList().getArguments()) {
+			appendArgument(fingerprint, sub);
+			fingerprint.append(';');
+		}
+		fingerprint.append('}');
+	}
+
+	private static void appendElement(StringBuilder fingerprint, Element element) {
+		if (element instanceof Variable) {
+			fingerprint.append('_');
+		} else if (element instanceof Term) {
+			fingerprint.append(((Term) element).getFunctor()).append('(');
+			for (int i = 0; i < ((Term) element).numberOfArgs(); i++) {
+				appendElement(fingerprint, ((Term) element).getArg(i));
+				fingerprint.append(',');
+			}
+			fingerprint.append(')');
+		} else if (element instanceof Constant) {
+			fingerprint.append(((Constant) element).getFunctor());
+		} else if (element instanceof ElementList) {
+			fingerprint.append('[');
+			for (int i = 0; i < ((ElementList) element).size(); i++) {
+				appendElement(fingerprint, ((ElementList) element).get(i));
+				fingerprint.append(',');
+			}
+			fingerprint.append(']');
+		} else {
+			// Anything else is told apart when comparing the elements themselves
+			fingerprint.append('?');
+		}
+	}
+
+}
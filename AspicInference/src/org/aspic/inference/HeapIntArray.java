@@ -0,0 +1,35 @@
+package org.aspic.inference;
+
+/**
+ * An int array on the Java heap that doubles its capacity as it grows.
+ *
+ * @author erickok
+ */
+class HeapIntArray extends IntArray {
+
+	private static final long serialVersionUID = 1L;
+
+	private int[] values;
+
+	HeapIntArray() {
+		this(16);
+	}
+
+	HeapIntArray(int capacity) {
+		values = new int[Math.max(capacity, 16)];
+	}
+
+	int get(int index) {
+		return index < values.length ? values[index] : 0;
+	}
+
+	void set(int index, int value) {
+		if (index >= values.length) {
+			int[] grown = new int[Math.max(values.length * 2, index + 1)];
+			System.arraycopy(values, 0, grown, 0, values.length);
+			values = grown;
+		}
+		values[index] = value;
+	}
+
+}
@@ -0,0 +1,41 @@
+package org.aspic.inference;
+
+import java.io.Serializable;
+
+/**
+ * An array of ints without a fixed length, used for the rule rows and
+ * indexes of a {@link CompactKnowledgeBase}.  Positions that were never set
+ * hold 0, so an index stores a row number plus one and uses 0 for none.
+ *
+ * @author erickok
+ */
+abstract class IntArray implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * @param index position in the array, 0 or higher
+	 * @return the value at this position, or 0 if it was never set
+	 */
+	abstract int get(int index);
+
+	/**
+	 * Sets the value at a position, growing the array if needed.
+	 * @param index position in the array, 0 or higher
+	 * @param value new value
+	 */
+	abstract void set(int index, int value);
+
+	/**
+	 * @param length number of positions to copy
+	 * @return an independent, in memory copy of the first positions of this array
+	 */
+	IntArray copy(int length) {
+		HeapIntArray copy = new HeapIntArray(length);
+		for (int i = 0; i < length; i++) {
+			copy.set(i, get(i));
+		}
+		return copy;
+	}
+
+}
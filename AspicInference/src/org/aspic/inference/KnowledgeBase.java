@@ -49,8 +49,12 @@ public class KnowledgeBase implements Cloneable, Serializable {
 	// flag for whether the knowledge base needs to include automatically generated transposed strict rules
     protected boolean usingTransposition;
     protected Map<Rule, List<Rule>> transposedRules = null;
+    // flag for whether rule antecedents are searched in order of estimated cost rather than in the order they were written
+    protected boolean usingAntecedentOrdering = false;
     // used for capturing known "predicates" for the getPredicates and getPredicateArity methods
     protected Map<String, Set<Integer>> predicates = new HashMap<String, Set<Integer>>(); 
+    // counts every rule that was added or removed, see getModificationCount
+    protected int modificationCount = 0;
 
     /** 
 	 * default Constructor
@@ -153,6 +157,35 @@ public class KnowledgeBase implements Cloneable, Serializable {
 	    this.usingTransposition = usingTransposition;
 	}
 	
+	/**
+	 * Inspects whether arguments for the antecedents of a rule are searched 
+	 * in order of their estimated cost (see <code>ElementList.evaluationOrder</code>)
+	 * rather than in the order in which they were written.  The arguments that
+	 * are found are the same either way, but they are found in another order,
+	 * so the first proof of a query may differ.  This is off by default.
+	 * @return true if the antecedents of rules are reordered before searching for arguments
+	 */
+	public boolean isUsingAntecedentOrdering() {
+		return usingAntecedentOrdering;
+	}
+
+	public void setUsingAntecedentOrdering(boolean usingAntecedentOrdering) {
+		this.usingAntecedentOrdering = usingAntecedentOrdering;
+	}
+
+	/**
+	 * Returns a number that changes whenever a rule (including an auto-generated
+	 * one) is added to or removed from this knowledge base, so that anything that 
+	 * was computed from its rules can be reused for as long as it stays the same. 
+	 * Removing a rule that was just added does not restore the old number, as the 
+	 * rules may then be visited in another order.  Changes to the rules themselves,
+	 * such as binding them to another knowledge base, are not counted.
+	 * @return the number of changes made to the rules of this knowledge base
+	 */
+	public int getModificationCount() {
+		return modificationCount;
+	}
+	
 	/** 
 	 * When adding a Rule to a KnowledgeBase, the indexes must be correctly
 	 * set and each Element within the Rule must have it's knowledgeBase 
@@ -168,20 +201,7 @@ public class KnowledgeBase implements Cloneable, Serializable {
 				}
 				addRuleLocal(rule);
 				// now update the predicates map
-				if (!rule.isAutoGenerated()) {
-					for(Predicate predicate :  rule.getPredicates()) {
-						String functor = predicate.getFunctor();
-						if (!functor.equals("~")) {
-							if (predicates.containsKey(functor)) {
-								predicates.get(functor).add(new Integer(predicate.getArity()));
-							} else {
-								Set<Integer> set = new HashSet<Integer>();
-								set.add(new Integer(predicate.getArity()));
-								predicates.put(functor, set);
-							}
-						}
-					}
-				}
+				addPredicates(rule);
 			} else {
 				// Note that if this is too strong then as an alternative we could raise a LOG WARNING. or just return false.
 				throw new RuntimeException("A rule's name cannot be the same as it's consequent.");				
@@ -194,7 +214,49 @@ public class KnowledgeBase implements Cloneable, Serializable {
 		if (isUsingTransposition() == true && rule.isFact() == false && rule.isStrict() == true) {
 			addRuleTranspositions(rule);
 		}
-	}	
+	}
+
+	/**
+	 * Adds facts that the consumer already knows not to be in the knowledge base,
+	 * e.g. because it keeps its own index of them.  Unlike addRule this does not
+	 * check every fact against the rules with the same consequent.  Facts have no
+	 * rule hooks or transpositions, so they are only indexed.
+	 * EK: Used to adopt the beliefs of a dialogue round in one go
+	 * @param facts facts (rules without antecedent) that do not exist yet
+	 */
+	public void addNewFacts(List<Rule> facts) {
+		for (Rule fact : facts) {
+			if (!fact.isFact()) {
+				throw new RuntimeException("Only facts can be added without checking that they exist.");
+			}
+			if (fact.getName()!=null && fact.getName().equals(fact.getConsequent())) {
+				throw new RuntimeException("A rule's name cannot be the same as it's consequent.");
+			}
+			addRuleLocal(fact);
+			addPredicates(fact);
+		}
+	}
+
+	/**
+	 * Registers the predicates used in a (not auto-generated) rule in the predicates map.
+	 * @param rule rule that was added to the knowledge base
+	 */
+	protected void addPredicates(Rule rule) {
+		if (!rule.isAutoGenerated()) {
+			for(Predicate predicate :  rule.getPredicates()) {
+				String functor = predicate.getFunctor();
+				if (!functor.equals("~")) {
+					if (predicates.containsKey(functor)) {
+						predicates.get(functor).add(new Integer(predicate.getArity()));
+					} else {
+						Set<Integer> set = new HashSet<Integer>();
+						set.add(new Integer(predicate.getArity()));
+						predicates.put(functor, set);
+					}
+				}
+			}
+		}
+	}
 	
 	/**
 	 * Remove explicitly stated Rule and any associated autoGenerated
@@ -204,7 +266,9 @@ public class KnowledgeBase implements Cloneable, Serializable {
 	 * from the new rule, thus the consumer has to explicitly delete 
 	 * the old rule and then add a new rule to make an update.  
 	 * If this knowledgebase is transposed, then all transposed rules
-	 * also need to be removed.
+	 * also need to be removed.  The removed rule itself is left as it 
+	 * is: it keeps the name it was given when it was added and stays 
+	 * bound to this knowledge base.
 	 */
 	public boolean removeRule(Rule rule) throws RuntimeException {
 		Rule kbcopy = this.getRule(rule); 		
@@ -265,11 +329,11 @@ public class KnowledgeBase implements Cloneable, Serializable {
 		StringBuffer result = new StringBuffer();
         
         //Henrik: Added for empty knowledgebases
-        if (rulesMap.isEmpty()){
+        Iterator<Rule> iterator = ruleIterator();
+        if (!iterator.hasNext()){
             return "";
         }        
 		
-        Iterator<Rule> iterator = new RuleIterator();
 		while (iterator.hasNext()) {
 			Rule rule = iterator.next();
 			if (rule.getConsequent().ruleTag().equals(ruleTag) && rule.getAntecedent().size()==arity) index++; else index=0;
@@ -297,7 +361,7 @@ public class KnowledgeBase implements Cloneable, Serializable {
 	public String inspect(boolean showAutoGeneratedRuleNames, boolean showAutoGeneratedRules) {
 		StringBuffer result = new StringBuffer();
 		boolean started=false;
-		Iterator<Rule> iterator = new RuleIterator();
+		Iterator<Rule> iterator = ruleIterator();
 		while (iterator.hasNext()) {
 			Rule rule = iterator.next();
 			String temp = rule.inspect(showAutoGeneratedRuleNames, showAutoGeneratedRules);
@@ -413,6 +477,37 @@ public class KnowledgeBase implements Cloneable, Serializable {
 		// TODO: in Ruby this map is sorted.  Needed?
 		return rulesMap.get(ruleTag);
 	}
+
+	/**
+	 * Used in Constant.argumentIterator to find the rules that may be used
+	 * to build arguments for some goal.  All rules with the goal's rule tag
+	 * are returned here; implementations may leave out rules whose 
+	 * consequent is known not to unify with the goal. 
+	 * @param goal the literal that arguments are sought for
+	 * @return rules indexed by the arity of their antecedent, or null if there are none
+	 */
+	protected Map<Integer, List<Rule>> getCandidateArityMap(Constant goal) {
+		return getArityMap(goal.ruleTag());
+	}
+
+	/**
+	 * Counts the rules that have a consequent with this rule tag, of any 
+	 * arity.  Used to estimate the cost of searching for arguments for a 
+	 * premise.
+	 * @param ruleTag rule tag of the consequent, see <code>Constant.ruleTag()</code>
+	 * @return number of rules that may be used to build an argument for this rule tag
+	 */
+	protected int getRuleCount(String ruleTag) {
+		Map<Integer, List<Rule>> arityMap = getArityMap(ruleTag);
+		if (arityMap == null) {
+			return 0;
+		}
+		int count = 0;
+		for (List<Rule> rules : arityMap.values()) {
+			count += rules.size();
+		}
+		return count;
+	}
 	
 	/*
 	 * Get the Knowledge Base's copy of a particular rule, ignoring the name.
@@ -469,6 +564,7 @@ public class KnowledgeBase implements Cloneable, Serializable {
 			arityMap.put(Integer.valueOf(rule.getAntecedent().size()), ruleArray);
 			rulesMap.put(rule.getConsequent().ruleTag(), arityMap);
 		}
+		modificationCount++;
 		// Having added the knowledge, set the callback
 		rule.setKnowledgeBase(this);
 	}
@@ -488,9 +584,9 @@ public class KnowledgeBase implements Cloneable, Serializable {
             
 			// check for conflicts
             // if (namedRules.containsKey(rule.getName().ruleTag())) {
-			if (namedRules.nameExists(rule.getName())) { 
+			if (isRuleName(rule.getName())) { 
                 // Rule conflictingRule = namedRules.get(rule.getName().ruleTag());
-				Rule conflictingRule = namedRules.getRule(rule.getName()); 
+				Rule conflictingRule = getRuleFromName(rule.getName()); 
 				if (conflictingRule.isAutoNamed()) {
 					// if conflicting rule was automatically named then we can add it again
 					this.removeRule(conflictingRule);
@@ -513,13 +609,13 @@ public class KnowledgeBase implements Cloneable, Serializable {
 	/*
 	 * Generate a new, previously unused, rule name, r[X].
 	 */
-	private String generateName() {
+	protected String generateName() {
 		String name;
 		do {
 			counter++;
 			name = "r" + counter;
         //} while (namedRules.containsKey(name));
-		} while (namedRules.nameExists(new Constant(name)));
+		} while (isRuleName(new Constant(name)));
 		return name;
 	}
 	
@@ -528,6 +624,7 @@ public class KnowledgeBase implements Cloneable, Serializable {
 	 */
 	private boolean localRemove(Rule rule) {
 		List<Rule> list = rulesMap.get(rule.getConsequent().ruleTag()).get(rule.getAntecedent().size());
+		modificationCount++;
 		return list.remove(rule);
 	}
 	
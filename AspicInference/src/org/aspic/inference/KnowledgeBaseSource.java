@@ -66,12 +66,23 @@ public class KnowledgeBaseSource implements Cloneable {
 	 * @return an iterator overa ll argument lists whose arguments match the list of claims.
 	 */
 	public Iterator<RuleArgumentList> argumentIterator(ConstantList claims) {
+		bind(claims);
+		return claims.argumentIterator(0.0, Party.PRO, 0, 0, valuator, restrictedRebutting);
+	}
+
+	/**
+	 * Associate a list of claims with the knowledge base, as is done when
+	 * arguments for them are sought.  The claims stay associated afterwards, 
+	 * so a later query on the same list uses this knowledge base as well.
+	 * @param claims list of claims.
+	 * @throws RuntimeException if the claims are associated with another knowledge base.
+	 */
+	public void bind(ConstantList claims) {
 		if (claims.getKnowledgeBase()==null) {
 			claims.setKnowledgeBase(kb);
 		} else if (!claims.getKnowledgeBase().equals(kb)) {
 			throw new RuntimeException("Incompatible knowledge bases. The passed claim is already associated with a different knowledge base than this one.");
 		}
-		return claims.argumentIterator(0.0, Party.PRO, 0, 0, valuator, restrictedRebutting);
 	}
 
 	/** 
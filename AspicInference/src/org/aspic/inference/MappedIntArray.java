@@ -0,0 +1,106 @@
+package org.aspic.inference;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>An int array in a memory-mapped file, mapped in segments of 4MB that
+ * are added as the array grows.  Only the name of the file is serialized;
+ * the file itself must be attached with {@link #attach(File)} after the
+ * array is deserialized.</p>
+ *
+ * @author erickok
+ */
+class MappedIntArray extends IntArray {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int SEGMENT_SHIFT = 20;
+	private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+	private String name;
+	private transient RandomAccessFile file;
+	private transient FileChannel channel;
+	private transient List<MappedByteBuffer> mapped;
+	private transient List<IntBuffer> segments;
+
+	/**
+	 * Creates a new, empty array, replacing any file with this name.
+	 * @param directory directory to hold the file
+	 * @param name name of the file
+	 * @throws IOException if the file cannot be created
+	 */
+	MappedIntArray(File directory, String name) throws IOException {
+		this.name = name;
+		new File(directory, name).delete();
+		attach(directory);
+	}
+
+	/**
+	 * Opens the array's file in this directory.
+	 * @param directory directory holding the file
+	 * @throws IOException if the file cannot be opened
+	 */
+	void attach(File directory) throws IOException {
+		file = new RandomAccessFile(new File(directory, name), "rw");
+		channel = file.getChannel();
+		mapped = new ArrayList<MappedByteBuffer>();
+		segments = new ArrayList<IntBuffer>();
+	}
+
+	int get(int index) {
+		return segment(index).get(index & SEGMENT_MASK);
+	}
+
+	void set(int index, int value) {
+		segment(index).put(index & SEGMENT_MASK, value);
+	}
+
+	/**
+	 * Writes all changes in the mapped segments to disk.
+	 */
+	void force() {
+		for (MappedByteBuffer buffer : mapped) {
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Closes the file and drops the mapped segments.  A mapping is only
+	 * released once its buffer is garbage collected, so nothing may hold on
+	 * to the segments; the array cannot be used afterwards.
+	 * @throws IOException if the file cannot be closed
+	 */
+	void close() throws IOException {
+		mapped = null;
+		segments = null;
+		channel.close();
+		file.close();
+	}
+
+	private IntBuffer segment(int index) {
+		if (segments == null) {
+			throw new RuntimeException("The file " + name + " was closed");
+		}
+		int segment = index >>> SEGMENT_SHIFT;
+		while (segments.size() <= segment) {
+			try {
+				// mapping beyond the end of the file extends it
+				long size = 4L << SEGMENT_SHIFT;
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, segments.size() * size, size);
+				mapped.add(buffer);
+				segments.add(buffer.asIntBuffer());
+			} catch (IOException e) {
+				throw new RuntimeException("Unable to map segment of " + name + ": " + e.getMessage());
+			}
+		}
+		return segments.get(segment);
+	}
+
+}
@@ -0,0 +1,155 @@
+package org.aspic.inference;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>A rule store that keeps the heap, the rows and every index array in
+ * memory-mapped files, so that they live in the operating system's page
+ * cache rather than on the Java heap.</p>
+ *
+ * <p>Only the number of rows and heap words and the names of the arrays are
+ * serialized; the files themselves must be attached with
+ * {@link #attach(File)} after the store is deserialized.  Rows beyond the
+ * serialized size, e.g. written after the last save, are simply
+ * overwritten.</p>
+ *
+ * @author erickok
+ */
+class MappedRuleStore extends RuleStore {
+
+	private static final long serialVersionUID = 1L;
+
+	// a row holds the offset, name, flags, next rules with the same hash and rule tag, the two halves of the degree of belief and the sequence number
+	private static final int ROW_WIDTH = 8;
+
+	private int heapSize = 0;
+	private int size = 0;
+	private MappedIntArray heap;
+	private MappedIntArray rows;
+	private List<MappedIntArray> arrays = new ArrayList<MappedIntArray>();
+	private transient File directory;
+
+	MappedRuleStore(File directory) throws IOException {
+		this.directory = directory;
+		heap = (MappedIntArray) createArray("rules");
+		rows = (MappedIntArray) createArray("rows");
+	}
+
+	/**
+	 * Maps the store's files in this directory.
+	 * @param directory directory holding the store's files
+	 * @throws IOException if the files cannot be opened
+	 */
+	void attach(File directory) throws IOException {
+		this.directory = directory;
+		for (MappedIntArray array : arrays) {
+			array.attach(directory);
+		}
+	}
+
+	/**
+	 * Writes all changes in the mapped segments to disk.
+	 */
+	void force() {
+		for (MappedIntArray array : arrays) {
+			array.force();
+		}
+	}
+
+	void close() throws IOException {
+		for (MappedIntArray array : arrays) {
+			array.close();
+		}
+	}
+
+	/**
+	 * Creates an array in the file with this name and the .dat extension.
+	 */
+	IntArray createArray(String name) {
+		try {
+			MappedIntArray array = new MappedIntArray(directory, name + ".dat");
+			arrays.add(array);
+			return array;
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to create " + name + " in " + directory.getPath() + ": " + e.getMessage());
+		}
+	}
+
+	int word(int position) {
+		return heap.get(position);
+	}
+
+	int heapSize() {
+		return heapSize;
+	}
+
+	int size() {
+		return size;
+	}
+
+	int add(CompactKnowledgeBase.IntList record, double dob, int name, byte flags, int nextWithHash, int sequence) {
+		int row = size;
+		int offset = heapSize;
+		for (int i = 0; i < record.size(); i++) {
+			heap.set(offset + i, record.get(i));
+		}
+		long bits = Double.doubleToLongBits(dob);
+		int base = row * ROW_WIDTH;
+		rows.set(base, offset);
+		rows.set(base + 1, name);
+		rows.set(base + 2, flags);
+		rows.set(base + 3, nextWithHash);
+		rows.set(base + 4, (int) (bits >>> 32));
+		rows.set(base + 5, (int) bits);
+		rows.set(base + 6, sequence);
+		rows.set(base + 7, -1);
+		heapSize += record.size();
+		size++;
+		return row;
+	}
+
+	int offset(int row) {
+		return rows.get(row * ROW_WIDTH);
+	}
+
+	double dob(int row) {
+		int base = row * ROW_WIDTH;
+		return Double.longBitsToDouble(((long) rows.get(base + 4) << 32) | (rows.get(base + 5) & 0xFFFFFFFFL));
+	}
+
+	int name(int row) {
+		return rows.get(row * ROW_WIDTH + 1);
+	}
+
+	byte flags(int row) {
+		return (byte) rows.get(row * ROW_WIDTH + 2);
+	}
+
+	void setFlags(int row, byte flags) {
+		rows.set(row * ROW_WIDTH + 2, flags);
+	}
+
+	int nextWithHash(int row) {
+		return rows.get(row * ROW_WIDTH + 3);
+	}
+
+	void setNextWithHash(int row, int next) {
+		rows.set(row * ROW_WIDTH + 3, next);
+	}
+
+	int nextWithTag(int row) {
+		return rows.get(row * ROW_WIDTH + 7);
+	}
+
+	void setNextWithTag(int row, int next) {
+		rows.set(row * ROW_WIDTH + 7, next);
+	}
+
+	int sequence(int row) {
+		return rows.get(row * ROW_WIDTH + 6);
+	}
+
+}
@@ -68,6 +68,8 @@ public class Rule extends Term {
     private String description;
     private String claimCaption;
     private String claimDescription;
+    private CaptionTemplate captionTemplate; // compiled caption, from which caption is rendered lazily
+    private CaptionTemplate claimCaptionTemplate; // compiled claimCaption, from which claimCaption is rendered lazily
     
 	/**
 	 * Default constructor.
@@ -329,57 +331,13 @@ public class Rule extends Term {
 		} else {
 			// Next line a little awkward - refactor?
 			Rule rule = new Rule(super.applyArgs(subs));
-			// set the caption of the new Rule with placeholders instantiated if possible
-			if (this.getClaimCaption()!=null) {
-				String[] toBeInstantiated = this.getClaimCaption().split("\\{");
-				StringBuffer buffer = new StringBuffer();
-				buffer.append(toBeInstantiated[0]);
-				if (toBeInstantiated.length>0) {
-					// work through array, missing first element, replacing substitutions where possible
-					for (int i=1; i<toBeInstantiated.length; i++) {
-						if (toBeInstantiated[i].indexOf("}")>0) {
-							String variable = toBeInstantiated[i].split("\\}")[0];
-							boolean isReplaced=false;	
-							for (Variable match : subs.variables()) {
-								if (match.getName().equals(variable) && !isReplaced) {
-									buffer.append("{");
-									buffer.append(subs.get(match).inspect());
-									buffer.append("}");
-									buffer.append(toBeInstantiated[i].substring(variable.length()+1));
-									isReplaced=true;
-								}
-							}
-							if (!isReplaced) buffer.append("{" + toBeInstantiated[i]);
-						}
-					}
-				}
-				rule.setClaimCaption(buffer.toString());
+			// instantiate the caption placeholders of the new Rule; these are only rendered when requested
+			if (this.claimCaptionTemplate!=null) {
+				rule.claimCaptionTemplate = this.claimCaptionTemplate.apply(subs);
+			}
+			if (this.captionTemplate!=null) {
+				rule.captionTemplate = this.captionTemplate.apply(subs);
 			}
-			if (this.getCaption()!=null) {
-				String[] toBeInstantiated = this.getCaption().split("\\{");
-				StringBuffer buffer = new StringBuffer();
-				buffer.append(toBeInstantiated[0]);
-				if (toBeInstantiated.length>0) {
-					// work through array, missing first element, replacing substitutions where possible
-					for (int i=1; i<toBeInstantiated.length; i++) {
-						if (toBeInstantiated[i].indexOf("}")>0) {
-							String variable = toBeInstantiated[i].split("\\}")[0];
-							boolean isReplaced=false;	
-							for (Variable match : subs.variables()) {
-								if (match.getName().equals(variable)) {
-									buffer.append("{");
-									buffer.append(subs.get(match).inspect());
-									buffer.append("}");
-									buffer.append(toBeInstantiated[i].substring(variable.length()+1));
-									isReplaced=true;
-								}
-							}
-							if (!isReplaced) buffer.append(toBeInstantiated[i]);
-						}
-					}
-				}
-				rule.setCaption(buffer.toString());
-			}			
 			rule.setKnowledgeBase(this.getKnowledgeBase());
 			return rule;			
 		}
@@ -552,7 +510,7 @@ public class Rule extends Term {
 			// clever bit - if a rule is a proper rule, then it's name is added as a "hidden" premise.
 			if (!instantiation.isFact()) coisa.add(instantiation.getName()); // add the name as the last premise so that it picks up the substitutions made in earlier argument generation.
 			if (coisa.size()>0) logger.fine(party.toString() + ": searching for arguments for: " + coisa.inspect() + ".");
-			argumentListIterator = coisa.argumentIterator(needed, party, level+1, d_top+1, valuator, restrictedRebutting);
+			argumentListIterator = coisa.orderedArgumentIterator(needed, party, level+1, d_top+1, valuator, restrictedRebutting, instantiation.isFact() ? 0 : 1); // the rule name stays last
 			queuedArgument = hasNext();
 		}
 		
@@ -603,6 +561,9 @@ public class Rule extends Term {
 	 * @return human readable identifier for rule.
 	 */
     public String getCaption() {
+        if (caption == null && captionTemplate != null) {
+            caption = captionTemplate.render();
+        }
         return caption;
     }
 
@@ -612,6 +573,7 @@ public class Rule extends Term {
      */
     public void setCaption(String caption) {
         this.caption = caption;
+        this.captionTemplate = (caption == null) ? null : CaptionTemplate.compile(caption, false);
     }
 
     /**
@@ -631,11 +593,15 @@ public class Rule extends Term {
     }
 
 	public String getClaimCaption() {
+		if (claimCaption == null && claimCaptionTemplate != null) {
+			claimCaption = claimCaptionTemplate.render();
+		}
 		return claimCaption;
 	}
 
 	public void setClaimCaption(String claimCaption) {
 		this.claimCaption = claimCaption;
+		this.claimCaptionTemplate = (claimCaption == null) ? null : CaptionTemplate.compile(claimCaption, true);
 	}
 
 	public String getClaimDescription() {
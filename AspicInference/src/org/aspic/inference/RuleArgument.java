@@ -50,7 +50,13 @@ public class RuleArgument implements Serializable {
 	 * @author mjs (matthew.south @ cancer.org.uk)
 	 */
 	public enum Status {DEFEATED, UNDEFEATED}	
-	private static int counter = 0;	
+	// one counter per thread, so that the argument numbers of a dialogue do not depend on what other threads do
+	private static ThreadLocal<Integer> counter = new ThreadLocal<Integer>() {
+		@Override
+		protected Integer initialValue() {
+			return 0;
+		}
+	};
 	
 	private Rule topRule;
 	private Double modifier;
@@ -95,7 +101,8 @@ public class RuleArgument implements Serializable {
 		this.d_top = d_top;
 		this.valuator = valuator;
 		this.restrictedRebutting = restrictedRebutting;
-		this.number = ++counter;
+		this.number = counter.get() + 1;
+		counter.set(this.number);
 		Iterator<RuleArgument> subArgsIterator = subArguments.getArguments().iterator();
 		while (subArgsIterator.hasNext()) {
 			subArgsIterator.next().parentNumber = this.number;
@@ -342,13 +349,14 @@ public class RuleArgument implements Serializable {
 	
 	/* Concrete Getters */
 	
-	/*
-	 * Get's the distance from the top of the argument
-	 * used in isMain
+	/**
+	 * Get's the distance from the top of the argument, i.e. 0 for a main 
+	 * argument and 1 more for every level of sub-arguments below it.
+	 * @return distance from the top
+	 */
 	public int getD_top() {
 		return d_top;
 	}
-	 */
 
 	/*
 	public int getLevel() {
@@ -382,11 +390,11 @@ public class RuleArgument implements Serializable {
 	 */
 	
 	/**
-	 * Reset internal counter that assigns argument numbers.
-	 * Useful for Testing.
+	 * Reset internal counter of the current thread that assigns argument numbers.
+	 * Useful for Testing and when starting a new dialogue (platform).
 	 */
 	public static void resetArgCounter() {
-		counter = 0;
+		counter.set(0);
 	}
 	
 	/**
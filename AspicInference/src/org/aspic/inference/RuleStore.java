@@ -0,0 +1,85 @@
+package org.aspic.inference;
+
+import java.io.Serializable;
+
+/**
+ * Storage of the encoded rules of a {@link CompactKnowledgeBase}: a heap of
+ * record words and one row per rule with the record's offset, the degree of
+ * belief, the name symbol, the flags, the links to the next rule in the same
+ * hash bucket and with the same rule tag and the sequence number under which
+ * the rule was added.  Rows are never deleted, so a rule keeps its row number
+ * for the lifetime of the store.  The store also supplies the arrays that
+ * hold the knowledge base's symbol table and indexes, so that these are kept
+ * in the same place as the rules.
+ *
+ * @author erickok
+ */
+abstract class RuleStore implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * @param position position in the heap
+	 * @return the record word at this position
+	 */
+	abstract int word(int position);
+
+	/**
+	 * @return number of words in the heap
+	 */
+	abstract int heapSize();
+
+	/**
+	 * @return number of rows, including those of removed rules
+	 */
+	abstract int size();
+
+	/**
+	 * Appends an encoded rule and its row, which is not linked to a next rule with the same rule tag yet.
+	 * @return the row number of the new rule
+	 */
+	abstract int add(CompactKnowledgeBase.IntList record, double dob, int name, byte flags, int nextWithHash, int sequence);
+
+	abstract int offset(int row);
+
+	abstract double dob(int row);
+
+	abstract int name(int row);
+
+	abstract byte flags(int row);
+
+	abstract void setFlags(int row, byte flags);
+
+	abstract int nextWithHash(int row);
+
+	abstract void setNextWithHash(int row, int next);
+
+	abstract int nextWithTag(int row);
+
+	abstract void setNextWithTag(int row, int next);
+
+	abstract int sequence(int row);
+
+	/**
+	 * Creates an array to hold (part of) an index.  Every array of a store must have its own name.
+	 * @param name name of the array
+	 * @return a new, empty array
+	 */
+	abstract IntArray createArray(String name);
+
+	/**
+	 * @return an independent, in memory copy of this store
+	 */
+	RuleStore copy() {
+		return new ArrayRuleStore().copyFrom(this);
+	}
+
+	/**
+	 * @param row row number
+	 * @return the heap position just after the record of this rule
+	 */
+	int end(int row) {
+		return row + 1 < size() ? offset(row + 1) : heapSize();
+	}
+
+}
@@ -0,0 +1,163 @@
+package org.aspic.inference;
+
+import java.io.Serializable;
+
+/**
+ * Interns the functors and variable names used in a compactly stored
+ * knowledge base, so that rules can be stored as arrays of symbol numbers.
+ * Every distinct string is stored only once, no matter how many rules use it.
+ * The strings and the hash table to look them up are kept in int arrays of
+ * the rule store, so they take no Java heap space if the store does not.
+ *
+ * @author erickok
+ */
+class SymbolTable implements Cloneable, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private int size = 0;
+	private int charsSize = 0;
+	// number of hash buckets, always a power of two
+	private int capacity = 64;
+	// the position in chars of every symbol, where its length is followed by its characters, two per int
+	private IntArray offsets;
+	private IntArray chars;
+	// the first symbol (plus one) in every hash bucket and the next symbol (plus one) in the same bucket
+	private IntArray buckets;
+	private IntArray next;
+
+	/**
+	 * Constructor for a symbol table in the arrays of a rule store
+	 * @param store store that supplies the arrays
+	 */
+	SymbolTable(RuleStore store) {
+		offsets = store.createArray("symbols");
+		chars = store.createArray("symbolchars");
+		buckets = store.createArray("symbolbuckets");
+		next = store.createArray("symbolnext");
+	}
+
+	/**
+	 * Returns the number of a symbol, adding it to the table if it is new.
+	 * @param symbol functor or variable name
+	 * @return number of the symbol, 0 or higher
+	 */
+	int intern(String symbol) {
+		int number = find(symbol);
+		if (number >= 0) {
+			return number;
+		}
+		if (size == capacity) {
+			grow();
+		}
+		number = size++;
+		offsets.set(number, charsSize);
+		chars.set(charsSize++, symbol.length());
+		for (int i = 0; i < symbol.length(); i += 2) {
+			int pair = symbol.charAt(i) << 16;
+			if (i + 1 < symbol.length()) {
+				pair |= symbol.charAt(i + 1);
+			}
+			chars.set(charsSize++, pair);
+		}
+		int bucket = hash(symbol) & (capacity - 1);
+		next.set(number, buckets.get(bucket));
+		buckets.set(bucket, number + 1);
+		return number;
+	}
+
+	/**
+	 * Looks up the number of a symbol without adding it.
+	 * @param symbol functor or variable name
+	 * @return number of the symbol, or -1 if it is not in the table
+	 */
+	int find(String symbol) {
+		for (int number = buckets.get(hash(symbol) & (capacity - 1)) - 1; number >= 0; number = next.get(number) - 1) {
+			if (matches(number, symbol)) {
+				return number;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param number number of a symbol that was interned before
+	 * @return the symbol itself
+	 */
+	String get(int number) {
+		int position = offsets.get(number);
+		int length = chars.get(position++);
+		char[] symbol = new char[length];
+		for (int i = 0; i < length; i += 2) {
+			int pair = chars.get(position++);
+			symbol[i] = (char) (pair >>> 16);
+			if (i + 1 < length) {
+				symbol[i + 1] = (char) pair;
+			}
+		}
+		return new String(symbol);
+	}
+
+	int size() {
+		return size;
+	}
+
+	private boolean matches(int number, String symbol) {
+		int position = offsets.get(number);
+		if (chars.get(position++) != symbol.length()) {
+			return false;
+		}
+		for (int i = 0; i < symbol.length(); i += 2) {
+			int pair = chars.get(position++);
+			if ((char) (pair >>> 16) != symbol.charAt(i) || (i + 1 < symbol.length() && (char) pair != symbol.charAt(i + 1))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int hash(String symbol) {
+		int hash = symbol.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+	/*
+	 * Doubles the number of hash buckets, splitting every bucket in place in two.
+	 */
+	private void grow() {
+		for (int bucket = 0; bucket < capacity; bucket++) {
+			int[] heads = { 0, 0 };
+			int[] tails = { 0, 0 };
+			for (int number = buckets.get(bucket) - 1; number >= 0;) {
+				int following = next.get(number) - 1;
+				int half = (hash(get(number)) & capacity) == 0 ? 0 : 1;
+				if (tails[half] == 0) {
+					heads[half] = number + 1;
+				} else {
+					next.set(tails[half] - 1, number + 1);
+				}
+				tails[half] = number + 1;
+				next.set(number, 0);
+				number = following;
+			}
+			buckets.set(bucket, heads[0]);
+			buckets.set(bucket + capacity, heads[1]);
+		}
+		capacity *= 2;
+	}
+
+	public Object clone() {
+		SymbolTable o = null;
+		try {
+			o = (SymbolTable) super.clone();
+		} catch (CloneNotSupportedException e) {
+			e.printStackTrace();
+		}
+		o.offsets = offsets.copy(size);
+		o.chars = chars.copy(charsSize);
+		o.buckets = buckets.copy(capacity);
+		o.next = next.copy(size);
+		return o;
+	}
+
+}
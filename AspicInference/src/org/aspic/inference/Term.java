@@ -246,14 +246,14 @@ public class Term extends Constant {
 	 * have the same public name have the same private name.
 	 */
 	private void consolidateVariables() {
-		Map<String, String> varNames = new HashMap<String, String>();
+		Map<String, Variable> varNames = new HashMap<String, Variable>();
 		Iterator<Variable> iterator = this.getVariables().iterator();
 		while(iterator.hasNext()) {
 			Variable var = iterator.next();
 			if (varNames.containsKey(var.getName())) {
 				var.setInternalName(varNames.get(var.getName()));
 			} else {
-				varNames.put(var.getName(), var.getInternalName());
+				varNames.put(var.getName(), var);
 			}
 		}
 	}
@@ -1,5 +1,6 @@
 package org.aspic.inference;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.HashMap;
@@ -43,11 +44,19 @@ import org.aspic.inference.writers.KnowledgeWriter;
 public class Variable extends Element {
 	
 	// private static int counter = 0;
-	// used to assign internal names. The key is the public name and the value is the next counter.
-	private static HashMap<String, Integer> names = new HashMap<String, Integer>();
+	// used to assign internal names. There is one naming scope per thread, so that the names 
+	// given in a dialogue do not depend on what other threads do.
+	private static ThreadLocal<Names> names = new ThreadLocal<Names>() {
+		@Override
+		protected Names initialValue() {
+			return new Names();
+		}
+	};
 	
 	private String name;
 	private String internalName=null;
+	// the naming scope in which the internal name was given
+	private Names scope=null;
 	
 	/** 
 	 * Typical Constructor.  Automatically generates the internal name. 
@@ -71,8 +80,15 @@ public class Variable extends Element {
 		return internalName;
 	}
 	
-	void setInternalName(String uniqueName) {
-		this.internalName = uniqueName;
+	/**
+	 * Makes this variable the same as some other variable, which is used to
+	 * give all variables with the same public name in an expression the same
+	 * internal name.
+	 * @param variable The variable to take the internal name (and naming scope) of
+	 */
+	void setInternalName(Variable variable) {
+		this.internalName = variable.internalName;
+		this.scope = variable.scope;
 	}
 	
 	/**
@@ -163,16 +179,26 @@ public class Variable extends Element {
 	
 	private String generateUniqueName() {
 		// slightly awkward because you can't increment an immutable Integer object with ++
-		Integer counter = names.get(name);
+		scope = names.get();
+		Integer counter = scope.next.get(name);
 		if (counter==null) {
 			counter=0;
-			names.put(name, counter);
+			scope.next.put(name, counter);
 		}
 		String result = name + "_" + counter;
-		names.put(name, counter+1); // put the next name in.
+		scope.next.put(name, counter+1); // put the next name in.
 		return result;
 	}
 	
+	/**
+	 * Starts a new naming scope for the current thread, in which internal
+	 * names are counted from 0 again; to be used when starting a new dialogue 
+	 * (platform). Variables named before are still never equal to the ones 
+	 * named after, even if they get the same internal name.
+	 */
+	public static void resetNames() {
+		names.set(new Names());
+	}
 	
 	public int hashCode() {
 		return internalName.hashCode();
@@ -180,7 +206,8 @@ public class Variable extends Element {
 	
 	public boolean equals(Object test) {
 		return (test instanceof Variable) &&
-				((Variable) test).getInternalName().equals(this.getInternalName());
+				((Variable) test).getInternalName().equals(this.getInternalName()) &&
+				((Variable) test).scope == this.scope;
 	}
 
 	@Override
@@ -197,4 +224,13 @@ public class Variable extends Element {
 		return (test instanceof Element) && this.isEqualModuloVariables((Element) test);
 	}
 	*/
+	
+	/**
+	 * A naming scope: the public names mapped to the next counter to give out.
+	 */
+	private static class Names implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private transient HashMap<String, Integer> next = new HashMap<String, Integer>();
+	}
+	
 }
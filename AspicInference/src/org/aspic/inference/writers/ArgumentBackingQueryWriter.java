@@ -24,9 +24,19 @@ import org.aspic.inference.Variable;
  * @author mjs
  *
  */
-public class ArgumentBackingQueryWriter implements ReasonerWriter, KnowledgeWriter {
+public class ArgumentBackingQueryWriter extends TextWriter implements ReasonerWriter, KnowledgeWriter {
 
-	StringBuffer buffer = new StringBuffer();
+	public ArgumentBackingQueryWriter() {
+		super();
+	}
+
+	/**
+	 * Constructor for a writer that appends the queries to a stream instead of to a buffer of its own
+	 * @param outstream where the queries are written to
+	 */
+	public ArgumentBackingQueryWriter(Appendable outstream) {
+		super(outstream);
+	}
 	
 	public void write(Query query) {
 		// do nothing
@@ -41,10 +51,10 @@ public class ArgumentBackingQueryWriter implements ReasonerWriter, KnowledgeWrit
 		Iterator<RuleArgument> itr = argumentList.getArguments().iterator();
 		while (itr.hasNext()) {
 			RuleArgument argument = itr.next();
-			buffer.append(argument.getClaim());
-			if (itr.hasNext()) buffer.append(", ");
+			appendCautiously(argument.getClaim().toString());
+			if (itr.hasNext()) appendCautiously(", ");
 		}
-		buffer.append(".");
+		appendCautiously(".");
 	}
 
 	public void write(Substitution substitution) {
@@ -69,22 +79,21 @@ public class ArgumentBackingQueryWriter implements ReasonerWriter, KnowledgeWrit
 	}
 
 	public void write(Term term) {
-		buffer.append(term.toString());
+		appendCautiously(term.toString());
 	}
 
 	public void write(Variable variable) {
-		buffer.append(variable.toString());
+		appendCautiously(variable.toString());
 	}
 
 	public void write(KnowledgeBase kb) {
 		// do nothing
 	}
 	
-	public String toString() {
-		return buffer.toString();
-	}
-
+	/**
+	 * Empties the buffer; this does nothing when writing to a stream.
+	 */
 	public void clear() {
-		buffer = new StringBuffer();
+		clearBuffer();
 	}
 }
@@ -14,14 +14,25 @@ import org.aspic.inference.Substitution;
  * @author mjs
  *
  */
-public class ArgumentCaptionWriter implements ReasonerWriter {
+public class ArgumentCaptionWriter extends TextWriter implements ReasonerWriter {
 	
-	StringBuffer buffer;
+	public ArgumentCaptionWriter() {
+		super();
+	}
+
+	/**
+	 * Constructor for a writer that appends the captions to a stream instead of to a buffer of its own, 
+	 * where everything that is written is appended to what was written before
+	 * @param outstream where the captions are written to
+	 */
+	public ArgumentCaptionWriter(Appendable outstream) {
+		super(outstream);
+	}
 	
 	public void write(Query query) {
 		clear();
-		buffer.append(query.getExpression().toString());
-		buffer.append("\n");
+		appendCautiously(query.getExpression().toString());
+		appendCautiously("\n");
 		for (RuleArgument argument : query.getProof()) {
 			write(argument);
 		}
@@ -47,12 +58,11 @@ public class ArgumentCaptionWriter implements ReasonerWriter {
 
 	}
 	
+	/**
+	 * Empties the buffer; this does nothing when writing to a stream.
+	 */
 	public void clear() {
-		buffer = new StringBuffer();
-	}
-	
-	public String toString() {
-		return buffer.toString();
+		clearBuffer();
 	}
 	
 	private void writearg(RuleArgument argument, int indentation) {
@@ -64,13 +74,13 @@ public class ArgumentCaptionWriter implements ReasonerWriter {
 		} else {
 			topRule = argument.getTopRule();
 		}
-		buffer.append(topRule.getCaption());
+		appendCautiously(topRule.getCaption());
 		if (topRule.getDescription()!=null) {
-			buffer.append(" (");
-			buffer.append(topRule.getDescription());
-			buffer.append(") ");
+			appendCautiously(" (");
+			appendCautiously(topRule.getDescription());
+			appendCautiously(") ");
 		}
-		buffer.append("\n");
+		appendCautiously("\n");
 		writeArgumentList(argument.getSubArgumentList(), indentation+1);
 	}
 	
@@ -82,7 +92,7 @@ public class ArgumentCaptionWriter implements ReasonerWriter {
 	
 	private void indent(int indentation) {
 		for (int i=0; i<indentation; i++) {
-			buffer.append("\t");
+			appendCautiously("\t");
 		}
 	}
 }
@@ -10,15 +10,26 @@ import org.aspic.inference.*;
  * @author mjs (matthew.south @ cancer.org.uk)
  *
  */
-public class ClaimWriter implements ReasonerWriter {
-	private StringBuffer text = new StringBuffer();
+public class ClaimWriter extends TextWriter implements ReasonerWriter {
+	
+	public ClaimWriter() {
+		super();
+	}
+
+	/**
+	 * Constructor for a writer that appends the claims to a stream instead of to a buffer of its own
+	 * @param outstream where the claims are written to
+	 */
+	public ClaimWriter(Appendable outstream) {
+		super(outstream);
+	}
 	
 	public void write(Query query) {
 		// do nothing
 	}
 
 	public void write(RuleArgument argument) {
-		text.append(argument.getClaim().toString());
+		appendCautiously(argument.getClaim().toString());
 	}
 
 	public void write(RuleArgumentList argumentList) {
@@ -26,7 +37,7 @@ public class ClaimWriter implements ReasonerWriter {
 		while(iterator.hasNext()) {
 			RuleArgument arg = iterator.next();
 			arg.write(this);
-			if (iterator.hasNext()) text.append(", ");
+			if (iterator.hasNext()) appendCautiously(", ");
 		}
 	}
 
@@ -38,12 +49,11 @@ public class ClaimWriter implements ReasonerWriter {
 		// do nothing
 	}
 	
+	/**
+	 * Empties the buffer; this does nothing when writing to a stream.
+	 */
 	public void reset() {
-		text = new StringBuffer();
-	}
-	
-	public String toString() {
-		return text.toString();
+		clearBuffer();
 	}
 
 }
@@ -0,0 +1,31 @@
+package org.aspic.inference.writers;
+
+/**
+ * The parts of a DOT document that the Graphviz writers have in common.
+ *
+ * @author erickok
+ */
+final class DotFormat {
+
+	/**
+	 * Opens the directed graph, drawn bottom to top, with the default node and edge styles
+	 */
+	static final String HEADER = "digraph G {\n"
+			+ "  graph [\n    rankdir  = \"BT\"\n  ];\n"
+			+ "  node [\n    fontname = \"Helvetica\"\n    fontsize = \"10\"\n  ];\n"
+			+ "  edge [\n    fontname = \"Helvetica\"\n    fontsize = \"10\"\n    style    = \"setlinewidth(2)\"\n  ];\n";
+
+	static final String FOOTER = "}\n";
+
+	private DotFormat() {
+	}
+
+	/**
+	 * @param label Some text to show in a record label
+	 * @return The text with the angle brackets escaped, as these are special in records
+	 */
+	static String escape(String label) {
+		return label.replace("<", "\\<").replace(">", "\\>");
+	}
+
+}
@@ -21,9 +21,19 @@ import org.aspic.inference.Variable;
  * @author mjs
  *
  */
-public class EditableContentWriter implements ReasonerWriter, KnowledgeWriter {
+public class EditableContentWriter extends TextWriter implements ReasonerWriter, KnowledgeWriter {
 
-	StringBuffer buffer = new StringBuffer();
+	public EditableContentWriter() {
+		super();
+	}
+
+	/**
+	 * Constructor for a writer that appends the content to a stream instead of to a buffer of its own
+	 * @param outstream where the content is written to
+	 */
+	public EditableContentWriter(Appendable outstream) {
+		super(outstream);
+	}
 	
 	public void write(Query query) {
 		// do nothing
@@ -31,7 +41,7 @@ public class EditableContentWriter implements ReasonerWriter, KnowledgeWriter {
 
 	public void write(RuleArgument argument) {
 		write1(argument);
-		buffer.append("\n");
+		appendCautiously("\n");
 		if (argument.getSubArgumentList().getArguments().size()==0) {
 			write1(argument);			
 		} else {
@@ -45,10 +55,10 @@ public class EditableContentWriter implements ReasonerWriter, KnowledgeWriter {
 			RuleArgument argument = itr.next();
 			write1(argument);
 			if (argument.getSubArgumentList().getArguments().size()>0) {
-				buffer.append("\n");
+				appendCautiously("\n");
 				write(argument.getSubArgumentList());
 			}
-			if (itr.hasNext()) buffer.append("\n");
+			if (itr.hasNext()) appendCautiously("\n");
 		}
 	}
 
@@ -73,44 +83,43 @@ public class EditableContentWriter implements ReasonerWriter, KnowledgeWriter {
 	}
 
 	public void write(Term term) {
-		buffer.append(term.toString());
+		appendCautiously(term.toString());
 	}
 
 	public void write(Variable variable) {
-		buffer.append(variable.toString());
+		appendCautiously(variable.toString());
 	}
 
 	public void write(KnowledgeBase kb) {
 		// do nothing
 	}
 	
-	public String toString() {
-		return buffer.toString();
-	}
-
+	/**
+	 * Empties the buffer; this does nothing when writing to a stream.
+	 */
 	public void clear() {
-		buffer = new StringBuffer();
+		clearBuffer();
 	}
 	
 	private void write1(RuleArgument argument) {
 		Constant claim = argument.getClaim();
 		if (claim.getKnowledgeBase().isRuleName(claim)) {
 			Rule rule = claim.getKnowledgeBase().getRuleFromName(claim);
-			buffer.append("[");
-			buffer.append(rule.getName().toString());
-			buffer.append("] ");
-			buffer.append(rule.getConsequent().toString());
-			buffer.append(" <-\n");
+			appendCautiously("[");
+			appendCautiously(rule.getName().toString());
+			appendCautiously("] ");
+			appendCautiously(rule.getConsequent().toString());
+			appendCautiously(" <-\n");
 			Iterator<Element> iterator = rule.getAntecedent().iterator();
 			while (iterator.hasNext()) {
-				buffer.append("\t");
-				buffer.append(iterator.next().toString());
-				buffer.append(iterator.hasNext() ? ",\n" : (rule.getDob()==1.0 ? "" : rule.getDob()) + ".");
+				appendCautiously("\t");
+				appendCautiously(iterator.next().toString());
+				appendCautiously(iterator.hasNext() ? ",\n" : (rule.getDob()==1.0 ? "" : rule.getDob()) + ".");
 			}
 		} else {
-			buffer.append(claim.toString());
-			buffer.append(argument.getModifier()<1.0 ? " " + argument.getModifier() : "");
-			buffer.append(".");
+			appendCautiously(claim.toString());
+			appendCautiously(argument.getModifier()<1.0 ? " " + argument.getModifier() : "");
+			appendCautiously(".");
 		}
 	}
 }
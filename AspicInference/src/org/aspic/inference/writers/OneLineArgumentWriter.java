@@ -16,8 +16,20 @@ import org.aspic.inference.Substitution;
  * @author mjs
  *
  */
-public class OneLineArgumentWriter implements ReasonerWriter {
-	StringBuffer buffer;
+public class OneLineArgumentWriter extends TextWriter implements ReasonerWriter {
+	
+	public OneLineArgumentWriter() {
+		super();
+	}
+
+	/**
+	 * Constructor for a writer that appends the arguments to a stream instead of to a buffer of its own, 
+	 * where every argument that is written is appended to the ones written before
+	 * @param outstream where the arguments are written to
+	 */
+	public OneLineArgumentWriter(Appendable outstream) {
+		super(outstream);
+	}
 	
 	public void write(Query query) {
 		// TODO Auto-generated method stub
@@ -33,7 +45,7 @@ public class OneLineArgumentWriter implements ReasonerWriter {
 		Iterator<RuleArgument> itr = argumentList.getArguments().iterator();
 		while (itr.hasNext()) {
 			writeArgument(itr.next());
-			if (itr.hasNext()) buffer.append(", ");
+			if (itr.hasNext()) appendCautiously(", ");
 		}
 	}
 
@@ -47,30 +59,29 @@ public class OneLineArgumentWriter implements ReasonerWriter {
 
 	}
 	
+	/**
+	 * Empties the buffer; this does nothing when writing to a stream.
+	 */
 	public void clear() {
-		buffer = new StringBuffer();
-	}
-	
-	public String toString() {
-		return buffer.toString();
+		clearBuffer();
 	}
 
 	private void writeArgument(RuleArgument argument) {
 		if (argument.getSubArgumentList().getArguments().size()>0) 
-				buffer.append("[");
-		buffer.append(argument.getName());
-		buffer.append(" : ");
+				appendCautiously("[");
+		appendCautiously(argument.getName());
+		appendCautiously(" : ");
 		if (argument.getClaim().getKnowledgeBase().isRuleName(argument.getClaim())) {
-			buffer.append(argument.getClaim().getKnowledgeBase().getRuleFromName(argument.getClaim()).toString());
+			appendCautiously(argument.getClaim().getKnowledgeBase().getRuleFromName(argument.getClaim()).toString());
 		} else {
-			buffer.append(argument.getClaim().toString());			
-			buffer.append(" ");
-			buffer.append(argument.getModifier());
+			appendCautiously(argument.getClaim().toString());			
+			appendCautiously(" ");
+			appendCautiously(String.valueOf(argument.getModifier()));
 		}
 		if (argument.getSubArgumentList().getArguments().size()>0) {
-			buffer.append(" <- ");
+			appendCautiously(" <- ");
 			write(argument.getSubArgumentList());
-			buffer.append("]");		
+			appendCautiously("]");		
 		}
 	}
 }
@@ -2,6 +2,7 @@ package org.aspic.inference.writers;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Iterator;
 
 import org.aspic.inference.*;
 
@@ -77,8 +78,22 @@ public class PrologSyntaxKnowledgeWriter implements KnowledgeWriter {
 		appendCautiously(variable.inspect());
 	}
 
+	/**
+	 * Writes the same as <code>kb.inspect(showAutoGeneratedRuleNames, showRuleHooks)</code>,
+	 * but rule by rule, so that the whole knowledge base is never held in one string.
+	 */
 	public void write(KnowledgeBase kb) {
-		appendCautiously(kb.inspect(showAutoGeneratedRuleNames, showRuleHooks));
+		boolean started=false;
+		Iterator<Rule> iterator = kb.ruleIterator();
+		while (iterator.hasNext()) {
+			String temp = iterator.next().inspect(showAutoGeneratedRuleNames, showRuleHooks);
+			if (temp.length()>0) {
+				if (started==true) appendCautiously("\n");
+				appendCautiously(temp);
+				appendCautiously(".");
+				started = true;
+			}
+		}
 	}
 	
 	/** 
@@ -2,8 +2,10 @@ package org.aspic.inference.writers;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Iterator;
 
 import org.aspic.inference.KnowledgeBase;
+import org.aspic.inference.Rule;
 
 /**
  * This Writer is a variation of PrologSyntaxKnowledgeWriter, 
@@ -17,8 +19,23 @@ public class RawKnowledgeWriter extends PrologSyntaxKnowledgeWriter {
 	public RawKnowledgeWriter(Writer outstream) {
 		super(outstream);
 	}
+	/**
+	 * Writes the same as <code>kb.toString()</code>, but rule by rule, so 
+	 * that the whole index is never held in one string.
+	 */
 	public void write(KnowledgeBase kb) {
-		appendCautiously(kb.toString());
+		String ruleTag="";
+		int arity=-1;
+		int index=0;
+		Iterator<Rule> iterator = kb.ruleIterator();
+		while (iterator.hasNext()) {
+			Rule rule = iterator.next();
+			if (rule.getConsequent().ruleTag().equals(ruleTag) && rule.getAntecedent().size()==arity) index++; else index=0;
+			ruleTag = rule.getConsequent().ruleTag();
+			arity = rule.getAntecedent().size();
+			appendCautiously(ruleTag + ", " + arity + ", " + index + ": \"" + rule.inspect() + "\"");
+			if (iterator.hasNext()) appendCautiously("\n");
+		}
 	}
 	/** 
 	 * Helper function to trap errors
@@ -0,0 +1,147 @@
+package org.aspic.inference.writers;
+
+import java.io.Writer;
+import java.util.Iterator;
+
+import org.aspic.inference.*;
+
+/**
+ * <p>A writer for yEd that streams the same graph as {@link GMLWriter}
+ * to a java.io.Writer.  Edges between an argument and its sub-arguments
+ * are written right after the nodes they connect rather than being
+ * collected until the end; GML does not care about the order of node
+ * and edge entries within a graph.  The node ids are derived from the
+ * argument numbers, so no ids need to be kept to draw the interactions;
+ * they therefore differ from the ids written by GMLWriter.</p>
+ * <pre>
+ * StreamingGMLWriter writer = new StreamingGMLWriter(out, 0, 10000);
+ * query.write(writer);
+ * writer.endDocument();
+ * </pre>
+ *
+ * @author erickok
+ */
+public class StreamingGMLWriter extends StreamingTreeWriter {
+
+	public StreamingGMLWriter(Writer outstream) {
+		this(outstream, UNBOUNDED, UNBOUNDED);
+	}
+
+	public StreamingGMLWriter(Writer outstream, int maxDepth, int maxNodes) {
+		super(outstream, maxDepth, maxNodes);
+		resetDocument();
+	}
+
+	public void write(Query query) {
+		appendCautiously("\tlabel\t\"" + query.getExpression().inspect() + ".\"\n");
+		collectDrawable(query);
+		// now draw your arguments
+		Iterator<RuleArgument> itr = query.getProof().iterator();
+		while (itr.hasNext()) {
+			RuleArgument argument = itr.next();
+			if (isDrawable(argument)) {
+				argument.write(this);
+			}
+		}
+		// now draw your interactions
+		itr = query.getProof().iterator();
+		while (itr.hasNext()) {
+			RuleArgument argument = itr.next();
+			if (isDrawable(argument)) {
+				drawInteractions(argument);
+			}
+		}
+	}
+
+	public void write(RuleArgument argument) {
+		// draw claim
+		drawNode(iNode(argument.getNumber()), argument.getClaim().inspect() + ".\n" + argument.getName() + ": " + argument.getModifier(), "rectangle");
+		// draw sub-arguments
+		if (argument.getSubArgumentList().getArguments().size()>0) {
+			drawNode(sNode(argument.getNumber()), "dMP", "ellipse");
+			drawEdge(sNode(argument.getNumber()), iNode(argument.getNumber()), "#000000");
+			// draw sub nodes
+			Iterator<RuleArgument> itr = argument.getSubArgumentList().getArguments().iterator();
+			while (itr.hasNext()) {
+				RuleArgument subArg = itr.next();
+				if (isDrawable(subArg)) {
+					subArg.write(this);
+					drawEdge(iNode(subArg.getNumber()), sNode(argument.getNumber()), "#000000");
+				}
+			}
+		}
+	}
+
+	public void resetDocument() {
+		appendCautiously("Creator	\"" + Engine.NAME + "\"\n");
+		appendCautiously("Version	\"" + Engine.VERSION + "\"\n");
+		appendCautiously("graph\n[\n");
+		appendCautiously("\thierarchic\t1\n");
+		appendCautiously("\tdirected\t1\n");
+	}
+
+	public void endDocument() {
+		appendCautiously("]\n");
+		flushCautiously();
+	}
+
+	// The id of the node that shows the claim of an argument
+	private static int iNode(int argumentNumber) {
+		return 2 * argumentNumber;
+	}
+
+	// The id of the node that joins the sub-arguments of an argument
+	private static int sNode(int argumentNumber) {
+		return 2 * argumentNumber + 1;
+	}
+
+	private void drawNode(int id, String label, String shape) {
+		// calculate length and width of node, based on label
+		String[] lines = label.split("\\n");
+		int longest = 0;
+		for (String line : lines) {
+			longest = Math.max(longest, line.length());
+		}
+		int width = longest*8;
+		int height = 10 + (lines.length * 15);
+
+		appendCautiously("\tnode\n\t[\n");
+		appendCautiously("\t\tid\t" + id + "\n");
+		if (label.endsWith("\n")) {
+			appendCautiously("\t\tlabel\t\"" + label.substring(0, label.length()-1) + "\"\n");
+		} else {
+			appendCautiously("\t\tlabel\t\"" + label + "\"\n");
+		}
+		appendCautiously("\t\tgraphics\n");
+		appendCautiously("\t\t[\n");
+		appendCautiously("\t\t\tw\t" + width + "\n");
+		appendCautiously("\t\t\th\t" + height + "\n");
+		appendCautiously("\t\t\ttype\t\"" + shape + "\"\n");
+		appendCautiously("\t\t]\n");
+		appendCautiously("\t]\n");
+	}
+
+	private void drawEdge(int source, int target, String rgb) {
+		appendCautiously("\tedge\n");
+		appendCautiously("\t[\n");
+		appendCautiously("\t\tsource\t" + source + "\n");
+		appendCautiously("\t\ttarget\t" + target + "\n");
+		appendCautiously("\t\tgraphics\n");
+		appendCautiously("\t\t[\n");
+		appendCautiously("\t\t\tfill\t\"" + rgb + "\"\n");
+		appendCautiously("\t\t\ttargetArrow\t\"standard\"\n");
+		appendCautiously("\t\t]\n");
+		appendCautiously("\t]\n");
+	}
+
+	protected void drawAttack(RuleArgument attacker, RuleArgument argument, boolean successful) {
+		boolean isRuleNameArgument = isRuleNameArgument(argument);
+		String color = isRuleNameArgument ? "#0000FF" : "#FFFF00";
+		int target = isRuleNameArgument ? sNode(argument.getParentNumber()) : iNode(argument.getNumber());
+		if (successful) {
+			drawEdge(iNode(attacker.getNumber()), target, "#FF0000");
+		}
+		drawEdge(iNode(attacker.getNumber()), target, color);
+	}
+
+}
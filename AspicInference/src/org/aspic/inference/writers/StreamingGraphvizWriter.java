@@ -0,0 +1,107 @@
+package org.aspic.inference.writers;
+
+import java.io.Writer;
+import java.util.Iterator;
+
+import org.aspic.inference.*;
+
+/**
+ * <p>A writer for DOT that streams the same graph as {@link GraphvizWriter}
+ * to a java.io.Writer instead of building it in memory.  Interactions are
+ * drawn after each cluster is closed by walking the argument tree a second
+ * time, so nothing but the names of the drawn arguments is retained, and
+ * only if the number of nodes is capped.</p>
+ * <pre>
+ * StreamingGraphvizWriter writer = new StreamingGraphvizWriter(out);
+ * query.write(writer);
+ * writer.endDocument();
+ * </pre>
+ *
+ * @author erickok
+ */
+public class StreamingGraphvizWriter extends StreamingTreeWriter {
+
+	private String group = null;  // Argument trees are drawn in a subgraph identified by group
+
+	public StreamingGraphvizWriter(Writer outstream) {
+		this(outstream, UNBOUNDED, UNBOUNDED);
+	}
+
+	public StreamingGraphvizWriter(Writer outstream, int maxDepth, int maxNodes) {
+		super(outstream, maxDepth, maxNodes);
+		resetDocument();
+	}
+
+	public void write(Query query) {
+		collectDrawable(query);
+		// now draw your proof
+		Iterator<RuleArgument> itr = query.getProof().iterator();
+		while (itr.hasNext()) {
+			RuleArgument arg = itr.next();
+			if (!isDrawable(arg)) {
+				continue;
+			}
+		    String fillcolor = (arg.getStatus()!=null) ? (arg.getStatus().equals(RuleArgument.Status.UNDEFEATED)) ? "#CCFFCC" : "#FFCCCC" : "#E0E0E0" ;
+		    appendCautiously("\n  subgraph cluster" + arg.getNumber() + " {\n");
+		    appendCautiously("    label     = \"" + arg.getName() + "\"\n") ;
+		    appendCautiously("    fillcolor = \"" + fillcolor + "\"\n") ;
+		    appendCautiously("    style     = \"filled\"\n") ;
+		    group = "cluster" + Integer.toString(arg.getNumber());
+		    arg.write(this);
+		    appendCautiously("  } // end of " + arg.getName()+"\n\n");
+		    drawInteractions(arg);
+		}
+		if (isTruncated()) {
+			appendCautiously("  // truncated: not all arguments were drawn\n");
+		}
+	}
+
+	public void write(RuleArgument argument) {
+		// draw claim
+		appendCautiously("    " + argument.getName() + "  [shape=\"record\",label=\"{");
+		if (isRuleNameArgument(argument)) {
+			Rule rule = argument.getTopRule().getKnowledgeBase().getRuleFromName(argument.getTopRule().getConsequent());
+			// draw rule, but without the DOB.
+			appendCautiously((rule.getName()!=null ? "[" + rule.getName().inspect() + "] " : "") + DotFormat.escape(rule.getConsequent().inspect()) + ((rule.getAntecedent()!=null && rule.getAntecedent().size()>0) ? " \\<- " + DotFormat.escape(rule.getAntecedent().inspect()) : ""));
+		} else {
+			appendCautiously(DotFormat.escape(argument.getClaim().inspect()));
+		}
+		appendCautiously("|{" + argument.getName() + "|" + argument.getModifier() + "}");
+		appendCautiously("}\",group=" + group + "];\n");
+
+		// draw sub-arguments
+		if (argument.getSubArgumentList().getArguments().size()>0) {
+			// draw inference node
+			appendCautiously("    " + argument.getName() + "s  [label=\"(d)MP\", group=" + group + "]\n");
+			appendCautiously("    " + argument.getName() + "s -> " + argument.getName() + "\n");
+			// draw sub nodes
+			Iterator<RuleArgument> itr = argument.getSubArgumentList().getArguments().iterator();
+			while (itr.hasNext()) {
+				RuleArgument subArg = itr.next();
+				if (isDrawable(subArg)) {
+					appendCautiously("    " + subArg.getName() + " -> " + argument.getName() + "s\n");
+					subArg.write(this);
+				}
+			}
+		}
+	}
+
+	public void resetDocument() {
+		appendCautiously(DotFormat.HEADER);
+	}
+
+	public void endDocument() {
+		appendCautiously(DotFormat.FOOTER);
+		flushCautiously();
+	}
+
+	protected void drawAttack(RuleArgument attacker, RuleArgument argument, boolean successful) {
+		String color = isRuleNameArgument(argument) ? "darkslateblue" : "darkorange";
+		String target = isRuleNameArgument(argument) ? "Arg" + argument.getParentNumber() + "s" : argument.getName();
+		if (successful) {
+			appendCautiously("  " + attacker.getName() + " -> " + target + " [color=red];\n");
+		}
+		appendCautiously("  " + attacker.getName() + " -> " + target + " [color=" + color + "];\n");
+	}
+
+}
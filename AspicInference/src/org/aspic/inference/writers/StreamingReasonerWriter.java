@@ -0,0 +1,140 @@
+package org.aspic.inference.writers;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.aspic.inference.ReasonerPair;
+import org.aspic.inference.RuleArgument;
+import org.aspic.inference.RuleArgumentList;
+import org.aspic.inference.Substitution;
+
+/**
+ * <p>Base class for the streaming variants of the graph writers.  Rather
+ * than building the full document in a StringBuffer, these writers emit
+ * their output to a java.io.Writer while they traverse the proof, so only
+ * the bookkeeping needed to draw the interactions is kept in memory.</p>
+ * <p>Huge reasoning traces can be dumped safely by capping the depth (in
+ * sub-arguments below a main argument) and/or the total number of argument
+ * nodes that are drawn.  A cap of {@link #UNBOUNDED} disables it.  Use
+ * isTruncated() to find out if anything was left out.</p>
+ * <pre>
+ * Writer out = new BufferedWriter(new FileWriter("proof.dot"));
+ * StreamingGraphvizWriter writer = new StreamingGraphvizWriter(out, 10, 5000);
+ * query.write(writer);
+ * writer.endDocument();
+ * out.close();
+ * </pre>
+ *
+ * @author erickok
+ */
+public abstract class StreamingReasonerWriter implements ReasonerWriter {
+
+	public static final int UNBOUNDED = 0;
+
+	protected Writer outstream;
+	private final int maxDepth;
+	private final int maxNodes;
+	private boolean truncated = false;
+
+	public StreamingReasonerWriter(Writer outstream, int maxDepth, int maxNodes) {
+		this.outstream = outstream;
+		this.maxDepth = maxDepth;
+		this.maxNodes = maxNodes;
+	}
+
+	/**
+	 * Starts a new document on the output stream, i.e. writes its header.
+	 */
+	public abstract void resetDocument();
+
+	/**
+	 * Closes the document that is being written, i.e. writes its footer,
+	 * and flushes the output stream.  The stream itself is not closed.
+	 */
+	public abstract void endDocument();
+
+	/**
+	 * @return True if some arguments were not drawn because the depth or node cap was hit
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public int getMaxNodes() {
+		return maxNodes;
+	}
+
+	/**
+	 * @param depth The depth of some argument, where main arguments are at depth 0
+	 * @return Whether arguments at this depth may be drawn
+	 */
+	protected boolean isWithinDepth(int depth) {
+		return maxDepth == UNBOUNDED || depth <= maxDepth;
+	}
+
+	/**
+	 * @param nodesDrawn The number of argument nodes drawn so far
+	 * @return Whether another argument node may be drawn
+	 */
+	protected boolean isWithinNodeCount(int nodesDrawn) {
+		return maxNodes == UNBOUNDED || nodesDrawn < maxNodes;
+	}
+
+	protected void setTruncated() {
+		this.truncated = true;
+	}
+
+	/**
+	 * A list of arguments is not drawn on its own; this may be needed when
+	 * and if ElementLists can be queries.
+	 */
+	public void write(RuleArgumentList argumentList) {
+	}
+
+	/**
+	 * Substitutions are not drawn: the graph shows the arguments of a proof
+	 * with their variables already bound, so there is nothing to add.
+	 */
+	public void write(Substitution substitution) {
+	}
+
+	/**
+	 * Reasoner pairs are not drawn.
+	 */
+	public void write(ReasonerPair reasonerPair) {
+	}
+
+	/**
+	 * @param argument Some argument in the proof
+	 * @return True if the argument is a sub-argument for the name of a rule, i.e. attacking it means undercutting
+	 */
+	protected static boolean isRuleNameArgument(RuleArgument argument) {
+		return !argument.isMainArgument() && argument.getTopRule().getKnowledgeBase().isRuleName(argument.getTopRule().getConsequent());
+	}
+
+	/**
+	 * Helper function to trap errors (needed for a Writer, as opposed to a PrintWriter)
+	 *
+	 * @param string to append to outstream
+	 */
+	protected void appendCautiously(String string) {
+		try {
+			outstream.append(string);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	protected void flushCautiously() {
+		try {
+			outstream.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+}
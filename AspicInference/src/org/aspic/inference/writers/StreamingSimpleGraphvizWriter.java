@@ -0,0 +1,134 @@
+package org.aspic.inference.writers;
+
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+
+import org.aspic.inference.*;
+
+/**
+ * <p>A writer for DOT that streams the same simplified graph as
+ * {@link SimpleGraphvizWriter} to a java.io.Writer.  Only main arguments
+ * are drawn as nodes, so the node cap counts main arguments, while the
+ * depth cap limits how far down the sub-arguments are searched for
+ * interactions.  Which arguments are drawn follows from their position in
+ * the proof and their depth, so nothing is kept per argument.</p>
+ * <pre>
+ * StreamingSimpleGraphvizWriter writer = new StreamingSimpleGraphvizWriter(out, true);
+ * query.write(writer);
+ * writer.endDocument();
+ * </pre>
+ *
+ * @author erickok
+ */
+public class StreamingSimpleGraphvizWriter extends StreamingReasonerWriter {
+
+	private boolean showAttacks = false;
+	private List<RuleArgument> proof = null; // main arguments of the query that is being written
+	private String mainArgName = null; // ArgName of the Main Argument that is being drawn
+
+	public StreamingSimpleGraphvizWriter(Writer outstream) {
+		this(outstream, false);
+	}
+
+	public StreamingSimpleGraphvizWriter(Writer outstream, boolean showAttacks) {
+		this(outstream, showAttacks, UNBOUNDED, UNBOUNDED);
+	}
+
+	public StreamingSimpleGraphvizWriter(Writer outstream, boolean showAttacks, int maxDepth, int maxNodes) {
+		super(outstream, maxDepth, maxNodes);
+		this.showAttacks = showAttacks;
+		resetDocument();
+	}
+
+	public void write(Query query) {
+		proof = query.getProof();
+		// draw your proof, up to the node cap
+		for (int drawn = 0; drawn < proof.size(); drawn++) {
+			if (!isWithinNodeCount(drawn)) {
+				setTruncated();
+				break;
+			}
+			RuleArgument arg = proof.get(drawn);
+			mainArgName = arg.getName();
+			arg.write(this);
+		}
+		if (isTruncated()) {
+			appendCautiously("  // truncated: not all arguments were drawn\n");
+		}
+	}
+
+	public void write(RuleArgument argument) {
+		// draw claim
+		if (argument.isMainArgument()) {
+			appendCautiously("  " + argument.getName() + " [shape=\"record\",label=\"{");
+			appendCautiously(DotFormat.escape(argument.getClaim().inspect()));
+			appendCautiously("|{" + argument.getName() + "|" + argument.getModifier() + "}}\"");
+			appendCautiously((argument.getStatus()==null) ? "" : ", style=\"filled\" fillcolor=\"" + ((argument.getStatus().equals(RuleArgument.Status.UNDEFEATED)) ? "#CCFFCC" : "#FFCCCC") + "\"");
+			appendCautiously("];\n");
+		}
+		// visit sub-arguments
+		Iterator<RuleArgument> itr = argument.getSubArgumentList().getArguments().iterator();
+		while (itr.hasNext()) {
+			RuleArgument subArg = itr.next();
+			if (isDrawable(subArg)) {
+				subArg.write(this);
+			}
+		}
+
+		boolean isRuleNameArgument = isRuleNameArgument(argument);
+		String color = isRuleNameArgument ? "darkslateblue" : "darkorange";
+
+		// winning interactions
+		Iterator<RuleArgument> rebutIterator = argument.getSuccessfulAttackerCache().iterator();
+		while (rebutIterator.hasNext()) {
+			RuleArgument rebutter = rebutIterator.next();
+			if (isDrawable(rebutter)) {
+				// both a rule name argument and its parent are in the tree of the Main Argument that is being drawn
+				String target = mainArgName;
+				appendCautiously("  " + rebutter.getName() + " -> " + target + " [color=red];\n");
+				if (showAttacks) {
+					appendCautiously("  " + rebutter.getName() + " -> " + target + " [color=" + color + "];\n");
+				}
+			}
+		}
+		// losing interactions
+		if (showAttacks) {
+			Iterator<RuleArgument> counterIterator = argument.getUnsuccessfulAttackerCache().iterator();
+			while (counterIterator.hasNext()) {
+				RuleArgument counter = counterIterator.next();
+				if (isDrawable(counter)) {
+					String target = isRuleNameArgument ? "Arg" + argument.getParentNumber() + "s" : argument.getName();
+					appendCautiously("  " + counter.getName() + " -> " + target + " [color=" + color + "];\n");
+				}
+			}
+		}
+	}
+
+	public void resetDocument() {
+		appendCautiously(DotFormat.HEADER);
+	}
+
+	public void endDocument() {
+		appendCautiously(DotFormat.FOOTER);
+		flushCautiously();
+	}
+
+	/*
+	 * Main arguments are drawn if they are within the node cap, which an attacker 
+	 * that did not make it into the proof is not; sub-arguments if they are within 
+	 * the depth cap.
+	 */
+	private boolean isDrawable(RuleArgument argument) {
+		if (argument.isMainArgument()) {
+			int index = proof.indexOf(argument);
+			return index >= 0 && isWithinNodeCount(index);
+		}
+		if (!isWithinDepth(argument.getD_top())) {
+			setTruncated();
+			return false;
+		}
+		return true;
+	}
+
+}
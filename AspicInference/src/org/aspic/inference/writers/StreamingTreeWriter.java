@@ -0,0 +1,111 @@
+package org.aspic.inference.writers;
+
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.aspic.inference.Query;
+import org.aspic.inference.RuleArgument;
+
+/**
+ * <p>Base class for the streaming writers that draw every argument of a
+ * proof, including all sub-arguments, as a node.  It decides up front which
+ * arguments fit within the depth and node caps and walks the interactions
+ * between the drawn arguments, leaving how nodes and edges look to the
+ * concrete writer.</p>
+ *
+ * @author erickok
+ */
+abstract class StreamingTreeWriter extends StreamingReasonerWriter {
+
+	private List<RuleArgument> proof = null; // main arguments of the query that is being written
+	private Set<String> drawable = null; // arguments in the proof that fit within the node cap, if there is one
+
+	StreamingTreeWriter(Writer outstream, int maxDepth, int maxNodes) {
+		super(outstream, maxDepth, maxNodes);
+	}
+
+	/**
+	 * Draws one attack on an argument of the proof.
+	 * @param attacker The attacking argument, which is drawn
+	 * @param argument The attacked argument (or sub-argument for the name of a rule)
+	 * @param successful Whether the attacker was strong enough to defeat the argument
+	 */
+	protected abstract void drawAttack(RuleArgument attacker, RuleArgument argument, boolean successful);
+
+	/**
+	 * Makes a list of all arguments of the query proof that will be drawn, so
+	 * the others can be excluded later.  This is only needed if the number of
+	 * nodes is capped, in which case the list is no longer than the cap; 
+	 * otherwise it follows from the proof and the depth of an argument.
+	 * @param query The query that is being written
+	 */
+	protected void collectDrawable(Query query) {
+		proof = query.getProof();
+		drawable = null;
+		if (getMaxNodes() == UNBOUNDED) {
+			return;
+		}
+		drawable = new HashSet<String>();
+		Iterator<RuleArgument> itr = query.getProof().iterator();
+		while (itr.hasNext()) {
+			collectDrawable(itr.next(), 0);
+		}
+	}
+
+	private void collectDrawable(RuleArgument argument, int depth) {
+		if (!isWithinDepth(depth) || !isWithinNodeCount(drawable.size())) {
+			setTruncated();
+			return;
+		}
+		drawable.add(argument.getName());
+		for (RuleArgument subArg : argument.getSubArgumentList().getArguments()) {
+			collectDrawable(subArg, depth + 1);
+		}
+	}
+
+	/**
+	 * @param argument Some argument in the proof
+	 * @return Whether it fits within the caps, as found by the last call to collectDrawable
+	 */
+	protected boolean isDrawable(RuleArgument argument) {
+		if (drawable != null) {
+			return drawable.contains(argument.getName());
+		}
+		// Attackers are main arguments as well, but not all of them made it into the proof
+		if (argument.isMainArgument()) {
+			return proof.contains(argument);
+		}
+		if (!isWithinDepth(argument.getD_top())) {
+			setTruncated();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Draws the attacks by drawn arguments on an argument and, recursively,
+	 * on its drawn sub-arguments: first the successful ones, then the others.
+	 * @param argument The argument to draw the interactions of
+	 */
+	protected void drawInteractions(RuleArgument argument) {
+		for (RuleArgument rebutter : argument.getSuccessfulAttackerCache()) {
+			if (isDrawable(rebutter)) {
+				drawAttack(rebutter, argument, true);
+			}
+		}
+		for (RuleArgument counter : argument.getUnsuccessfulAttackerCache()) {
+			if (isDrawable(counter)) {
+				drawAttack(counter, argument, false);
+			}
+		}
+		for (RuleArgument subArg : argument.getSubArgumentList().getArguments()) {
+			if (isDrawable(subArg)) {
+				drawInteractions(subArg);
+			}
+		}
+	}
+
+}
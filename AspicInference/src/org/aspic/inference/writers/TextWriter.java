@@ -0,0 +1,58 @@
+package org.aspic.inference.writers;
+
+import java.io.IOException;
+
+/**
+ * <p>Base class for the writers that produce a piece of text.  By default
+ * the text is collected in a buffer of the writer's own, which toString()
+ * returns.  Given an Appendable, such as a java.io.Writer, the text is
+ * appended to that instead, so that it need not be kept in memory.</p>
+ *
+ * @author erickok
+ */
+abstract class TextWriter {
+
+	protected Appendable outstream;
+	private final boolean buffered;
+
+	TextWriter() {
+		this.outstream = new StringBuilder();
+		this.buffered = true;
+	}
+
+	TextWriter(Appendable outstream) {
+		this.outstream = outstream;
+		this.buffered = false;
+	}
+
+	/**
+	 * Empties the buffer of this writer.  Text that was appended to a given
+	 * Appendable can not be taken back, so then nothing is done.
+	 */
+	protected void clearBuffer() {
+		if (buffered) {
+			outstream = new StringBuilder();
+		}
+	}
+
+	/**
+	 * Helper function to trap errors (needed for a Writer, as opposed to a PrintWriter)
+	 *
+	 * @param string to append to outstream
+	 */
+	protected void appendCautiously(String string) {
+		try {
+			outstream.append(string);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * @return The text written so far, if this writer has a buffer of its own
+	 */
+	public String toString() {
+		return outstream.toString();
+	}
+
+}
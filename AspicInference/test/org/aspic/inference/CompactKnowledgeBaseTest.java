@@ -0,0 +1,267 @@
+package org.aspic.inference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.aspic.inference.parser.PrologSyntax;
+import org.junit.Test;
+
+public class CompactKnowledgeBaseTest {
+
+	private static final String[] KNOWLEDGE = {
+		"a 0.8.",
+		"b 0.9.",
+		"c 0.7.",
+		"[r1] d <- a, b 0.8.",
+		"[r2] ~d <- c 0.9.",
+		"[r3] ~r1 <- c, a 0.9.",
+		"e <- d 0.6.",
+		"f 0.6.",
+		"~e <- f 0.7.",
+		"g(X) <- a 0.5.",
+		"g(1) <- e 0.9.",
+		"g(2) <- f 0.8.",
+		"h(X) <- g(X), >(X, 1) 0.9.",
+		"i <- a, b.",
+		"~i <- c 0.9.",
+		"k <- b 0.9.",
+		"[r0] k <- >(2, 1) 0.9."
+	};
+
+	private static final String[] QUERIES = { "d", "~d", "e", "~e", "g(X)", "g(2)", "h(X)", "i", "~r1", "k" };
+
+	@Test
+	public void findsTheSameProofs() throws Exception {
+		KnowledgeBase plain = new KnowledgeBase();
+		CompactKnowledgeBase compact = new CompactKnowledgeBase();
+		addRules(plain, compact, KNOWLEDGE);
+		assertTrue(compact.getCompactRuleCount() > 0);
+		assertSameProofs(plain, compact);
+	}
+
+	@Test
+	public void findsTheSameProofsAfterRemovingAndAddingRules() throws Exception {
+		KnowledgeBase plain = new KnowledgeBase();
+		CompactKnowledgeBase compact = new CompactKnowledgeBase();
+		addRules(plain, compact, KNOWLEDGE);
+		// rules of both stores, auto-named and named
+		removeRule(plain, compact, "[r4] e <- d 0.6.");
+		removeRule(plain, compact, "[r9] h(X) <- g(X), >(X, 1) 0.9.");
+		removeRule(plain, compact, "[r2] ~d <- c 0.9.");
+		removeRule(plain, compact, "b 0.9.");
+		assertSameProofs(plain, compact);
+		addRules(plain, compact, "e <- d 0.6.", "b 0.9.", "h(X) <- g(X), >(X, 1) 0.9.", "[r2] ~d <- c 0.9.", "d <- c 0.5.");
+		assertSameProofs(plain, compact);
+	}
+
+	@Test
+	public void rejectsDuplicateRules() throws Exception {
+		KnowledgeBase plain = new KnowledgeBase();
+		CompactKnowledgeBase compact = new CompactKnowledgeBase();
+		addRules(plain, compact, KNOWLEDGE);
+		for (String duplicate : new String[] { "a 0.8.", "[r6] g(Y) <- a 0.5.", "[r1] d <- a, b 0.8." }) {
+			for (KnowledgeBase kb : new KnowledgeBase[] { plain, compact }) {
+				try {
+					kb.addRule(parse(duplicate));
+					fail("Added duplicate rule " + duplicate);
+				} catch (RuntimeException e) {
+					// expected
+				}
+			}
+		}
+		assertSameProofs(plain, compact);
+	}
+
+	@Test
+	public void renamesAutoNamedRuleOnNameConflict() throws Exception {
+		KnowledgeBase plain = new KnowledgeBase();
+		CompactKnowledgeBase compact = new CompactKnowledgeBase();
+		addRules(plain, compact, "a 0.8.", "b <- a 0.7.", "c <- b 0.6.");
+		assertTrue(compact.getRuleFromName(parse("r1.").getConsequent()).isAutoNamed());
+		// takes the name of the first auto-named rule, which is added again under another name
+		addRules(plain, compact, "[r1] d <- a 0.9.", "~r2 <- a 0.8.");
+		for (KnowledgeBase kb : new KnowledgeBase[] { plain, compact }) {
+			Rule named = kb.getRuleFromName(parse("r1.").getConsequent());
+			assertEquals("d", named.getConsequent().inspect());
+			assertFalse(named.isAutoNamed());
+			Rule renamed = kb.getRuleFromName(parse("r3.").getConsequent());
+			assertEquals("b", renamed.getConsequent().inspect());
+			assertTrue(renamed.isAutoNamed());
+		}
+		assertSameProofs(plain, compact, "b", "c", "d", "r1", "r2");
+		try {
+			addRules(plain, compact, "[r1] e <- a 0.9.");
+			fail("Added two rules with the same name");
+		} catch (KnowledgeBase.RuleNameException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void derivesRuleHooks() throws Exception {
+		CompactKnowledgeBase compact = new CompactKnowledgeBase();
+		compact.addRule(parse("a 0.8."));
+		compact.addRule(parse("[r1] d <- a 0.7."));
+		assertTrue(compact.isRuleName(parse("r1.").getConsequent()));
+		assertFalse(compact.isRuleName(parse("a.").getConsequent()));
+		Rule ruleHook = compact.getRule(parse("r1 0.7."));
+		assertTrue(ruleHook.isAutoGenerated());
+		assertTrue(ruleHook.isFact());
+		try {
+			compact.removeRule(parse("r1 0.7."));
+			fail("Removed a rule hook");
+		} catch (RuntimeException e) {
+			// expected
+		}
+		compact.removeRule(parse("[r1] d <- a 0.7."));
+		assertFalse(compact.isRuleName(parse("r1.").getConsequent()));
+		assertFalse(compact.ruleExists(parse("r1 0.7.")));
+	}
+
+	@Test
+	public void visitsRulesInTheSameOrder() throws Exception {
+		KnowledgeBase plain = new KnowledgeBase();
+		CompactKnowledgeBase compact = new CompactKnowledgeBase();
+		addRules(plain, compact, KNOWLEDGE);
+		removeRule(plain, compact, "c 0.7.");
+		addRules(plain, compact, "c 0.7.");
+		assertEquals(plain.inspect(true, true), compact.inspect(true, true));
+		assertEquals(plain.getRuleCount("g"), compact.getRuleCount("g"));
+		assertEquals(plain.getRuleCount("r1"), compact.getRuleCount("r1"));
+	}
+
+	@Test
+	public void keepsTheOrderWhenTransposing() throws Exception {
+		KnowledgeBase plain = new KnowledgeBase();
+		CompactKnowledgeBase compact = new CompactKnowledgeBase();
+		addRules(plain, compact, KNOWLEDGE);
+		plain.setUsingTransposition(true);
+		compact.setUsingTransposition(true);
+		assertEquals(plain.inspect(true, true), compact.inspect(true, true));
+		assertSameProofs(plain, compact, "~a", "~b", "i", "~i");
+	}
+
+	@Test
+	public void leavesOutCandidatesThatCannotUnify() throws Exception {
+		CompactKnowledgeBase compact = new CompactKnowledgeBase();
+		for (String rule : new String[] { "p(a).", "p(b).", "p(X) <- q.", "p(f(Y)) <- q.", "p(f(c)) <- q.", "q." }) {
+			compact.addRule(parse(rule));
+		}
+		assertEquals("[p(a)]", candidates(compact, "p(a)", 0));
+		assertEquals("[p(X) <- q, p(f(Y)) <- q, p(f(c)) <- q]", candidates(compact, "p(a)", 1));
+		assertEquals("[p(X) <- q]", candidates(compact, "p(g(c))", 1));
+		assertEquals("[p(X) <- q, p(f(Y)) <- q]", candidates(compact, "p(f(d))", 1));
+		assertEquals("[p(a), p(b)]", candidates(compact, "p(Z)", 0));
+	}
+
+	@Test
+	public void findsRulesAfterTheIndexesGrow() throws Exception {
+		KnowledgeBase plain = new KnowledgeBase();
+		CompactKnowledgeBase compact = new CompactKnowledgeBase();
+		for (int i = 0; i < 500; i++) {
+			addRules(plain, compact, "p" + i + "(a) 0.5.", "q(x" + i + ") <- p" + i + "(a) 0.7.");
+		}
+		for (int i = 0; i < 500; i += 3) {
+			removeRule(plain, compact, "p" + i + "(a) 0.5.");
+		}
+		for (int i = 0; i < 500; i++) {
+			assertEquals(i % 3 != 0, compact.ruleExists(parse("p" + i + "(a) 0.5.")));
+			assertTrue(compact.isRuleName(parse("r" + (i + 1) + ".").getConsequent()));
+		}
+		try {
+			compact.addRule(parse("p1(a) 0.5."));
+			fail("Added duplicate rule");
+		} catch (RuntimeException e) {
+			// expected
+		}
+		addRules(plain, compact, "p0(a) 0.5.");
+		assertEquals(plain.getPredicateArities("q"), compact.getPredicateArities("q"));
+		assertEquals(plain.getAllPredicates(), compact.getAllPredicates());
+		assertEquals(plain.inspect(true, true), compact.inspect(true, true));
+		assertSameProofs(plain, compact, "q(x0)", "q(x1)", "q(x3)", "q(X)");
+	}
+
+	@Test
+	public void countsModifications() throws Exception {
+		KnowledgeBase plain = new KnowledgeBase();
+		CompactKnowledgeBase compact = new CompactKnowledgeBase();
+		addRules(plain, compact, KNOWLEDGE);
+		for (KnowledgeBase kb : new KnowledgeBase[] { plain, compact }) {
+			int count = kb.getModificationCount();
+			kb.inspect(true, true);
+			new Engine(kb).createQuery("d");
+			assertEquals(count, kb.getModificationCount());
+			kb.removeRule(parse("[r4] e <- d 0.6."));
+			assertTrue(kb.getModificationCount() > count);
+			count = kb.getModificationCount();
+			kb.addRule(parse("b2 0.9."));
+			assertTrue(kb.getModificationCount() > count);
+			count = kb.getModificationCount();
+			kb.removeRule(parse("b2 0.9."));
+			assertTrue(kb.getModificationCount() > count);
+		}
+	}
+
+	private static Rule parse(String rule) throws Exception {
+		return new PrologSyntax(new StringReader(rule)).Expression();
+	}
+
+	private static void addRules(KnowledgeBase plain, CompactKnowledgeBase compact, String... rules) throws Exception {
+		for (String rule : rules) {
+			plain.addRule(parse(rule));
+			compact.addRule(parse(rule));
+		}
+	}
+
+	private static void removeRule(KnowledgeBase plain, CompactKnowledgeBase compact, String rule) throws Exception {
+		assertTrue(plain.removeRule(parse(rule)));
+		assertTrue(compact.removeRule(parse(rule)));
+	}
+
+	private static String candidates(CompactKnowledgeBase kb, String goal, int arity) throws Exception {
+		Map<Integer, List<Rule>> arityMap = kb.getCandidateArityMap(parse(goal + ".").getConsequent());
+		List<String> rules = new ArrayList<String>();
+		for (Rule rule : arityMap.get(arity)) {
+			rules.add(rule.getConsequent().inspect() + (rule.isFact() ? "" : " <- " + rule.getAntecedent().inspect()));
+		}
+		return rules.toString();
+	}
+
+	private static void assertSameProofs(KnowledgeBase plain, CompactKnowledgeBase compact) throws Exception {
+		assertSameProofs(plain, compact, QUERIES);
+	}
+
+	private static void assertSameProofs(KnowledgeBase plain, CompactKnowledgeBase compact, String... queries) throws Exception {
+		for (String query : queries) {
+			assertEquals(query, describe(new Engine(plain).createQuery(query)), describe(new Engine(compact).createQuery(query)));
+		}
+	}
+
+	private static String describe(Query query) {
+		StringBuilder description = new StringBuilder();
+		description.append(query.getResults()).append('\n');
+		for (RuleArgument argument : query.getProof()) {
+			describe(argument, description, 0);
+		}
+		return description.toString();
+	}
+
+	private static void describe(RuleArgument argument, StringBuilder description, int level) {
+		description.append(argument.inspect(level));
+		description.append(argument.getTopRule().inspect()).append(' ').append(argument.getStatus()).append('\n');
+		if (level < 4) {
+			for (Iterator<RuleArgument> attackers = argument.getSuccessfulAttackerCache().iterator(); attackers.hasNext();) {
+				describe(attackers.next(), description, level + 1);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+package org.aspic.inference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.aspic.inference.parser.PrologSyntax;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DiskKnowledgeBaseTest {
+
+	private static final String[] KNOWLEDGE = {
+		"a 0.8.",
+		"b 0.9.",
+		"c 0.7.",
+		"[r1] d <- a, b 0.8.",
+		"[r2] ~d <- c 0.9.",
+		"[r3] ~r1 <- c, a 0.9.",
+		"e <- d 0.6.",
+		"g(X) <- a 0.5.",
+		"h(X) <- g(X), >(X, 1) 0.9."
+	};
+
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = File.createTempFile("knowledge", "");
+		directory.delete();
+	}
+
+	@After
+	public void deleteDirectory() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void reopensWithTheSameRules() throws Exception {
+		KnowledgeBase plain = new KnowledgeBase();
+		DiskKnowledgeBase disk = DiskKnowledgeBase.create(directory);
+		for (String rule : KNOWLEDGE) {
+			plain.addRule(parse(rule));
+			disk.addRule(parse(rule));
+		}
+		disk.removeRule(parse("c 0.7."));
+		plain.removeRule(parse("c 0.7."));
+		disk.close();
+
+		disk = DiskKnowledgeBase.open(directory);
+		assertEquals(plain.inspect(true, true), disk.inspect(true, true));
+		assertEquals(plain.getAllPredicates(), disk.getAllPredicates());
+		for (String query : new String[] { "d", "~d", "e", "g(X)", "h(X)" }) {
+			assertEquals(describe(new Engine(plain).createQuery(query)), describe(new Engine(disk).createQuery(query)));
+		}
+		disk.addRule(parse("c 0.7."));
+		plain.addRule(parse("c 0.7."));
+		assertEquals(plain.inspect(true, true), disk.inspect(true, true));
+		disk.close();
+	}
+
+	@Test
+	public void savesOnlyAFixedSizeIndex() throws Exception {
+		DiskKnowledgeBase disk = DiskKnowledgeBase.create(directory);
+		disk.addRule(parse("p0(a) 0.5."));
+		disk.save();
+		long small = new File(directory, DiskKnowledgeBase.INDEX_FILE).length();
+		for (int i = 1; i < 2000; i++) {
+			disk.addRule(parse("p" + i + "(a) 0.5."));
+			disk.addRule(parse("q(x" + i + ") <- p" + i + "(a) 0.7."));
+		}
+		disk.close();
+		assertEquals(small, new File(directory, DiskKnowledgeBase.INDEX_FILE).length());
+
+		disk = DiskKnowledgeBase.open(directory);
+		assertEquals(3999, disk.getCompactRuleCount());
+		assertTrue(disk.ruleExists(parse("p1999(a) 0.5.")));
+		assertEquals("q(x1999)", disk.getRuleFromName(parse("r1999.").getConsequent()).getConsequent().inspect());
+		disk.close();
+	}
+
+	@Test
+	public void cannotBeUsedAfterClosing() throws Exception {
+		DiskKnowledgeBase disk = DiskKnowledgeBase.create(directory);
+		disk.addRule(parse("a 0.8."));
+		disk.close();
+		try {
+			disk.ruleExists(parse("a 0.8."));
+			fail("Used a closed knowledge base");
+		} catch (RuntimeException e) {
+			// expected
+		}
+	}
+
+	private static Rule parse(String rule) throws Exception {
+		return new PrologSyntax(new StringReader(rule)).Expression();
+	}
+
+	private static String describe(Query query) {
+		StringBuilder description = new StringBuilder();
+		description.append(query.getResults()).append('\n');
+		for (RuleArgument argument : query.getProof()) {
+			description.append(argument.inspect()).append(argument.getTopRule().inspect()).append('\n');
+		}
+		return description.toString();
+	}
+
+}
@@ -0,0 +1,43 @@
+package org.aspic.inference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import org.aspic.inference.parser.PrologSyntax;
+import org.junit.Test;
+
+public class VariableTest {
+
+	@Test
+	public void countsNamesFromTheStartAfterAReset() throws Exception {
+		Variable.resetNames();
+		Variable before = new Variable("X");
+		Variable.resetNames();
+		Variable after = new Variable("X");
+		assertEquals("X_0", before.getInternalName());
+		assertEquals(before.getInternalName(), after.getInternalName());
+		assertFalse(before.equals(after));
+		assertTrue(before.equals(before.clone()));
+	}
+
+	@Test
+	public void keepsRulesNamedBeforeAResetApart() throws Exception {
+		Variable.resetNames();
+		KnowledgeBase kb = new KnowledgeBase();
+		kb.addRule(parse("p(b, X) <- q(X) 0.8."));
+		kb.addRule(parse("q(a) 0.9."));
+		Variable.resetNames();
+		// the X of the query gets the same internal name as the X of the rule, but is another variable
+		Query query = new Engine(kb).createQuery("p(X, a)");
+		assertEquals(1, query.getProof().size());
+		assertEquals("p(b, a)", query.getProof().get(0).getClaim().inspect());
+	}
+
+	private static Rule parse(String rule) throws Exception {
+		return new PrologSyntax(new StringReader(rule)).Expression();
+	}
+
+}
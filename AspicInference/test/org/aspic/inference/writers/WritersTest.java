@@ -0,0 +1,117 @@
+package org.aspic.inference.writers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.aspic.inference.Engine;
+import org.aspic.inference.KnowledgeBase;
+import org.aspic.inference.Query;
+import org.aspic.inference.RuleArgument;
+import org.junit.Test;
+
+public class WritersTest {
+
+	private static final String KNOWLEDGE = "a 0.8. b 0.9. c 0.7. [r1] d <- a, b 0.8. [r2] ~d <- c 0.9. [r3] ~r1 <- c, a 0.9. " +
+			"e <- d 0.6. f 0.6. ~e <- f 0.7. g(X) <- a 0.5. g(1) <- e 0.9.";
+
+	private static final String[] QUERIES = { "d", "e", "~d", "g(X)" };
+
+	private static final Pattern NODE = Pattern.compile("\tnode\n\t\\[\n\t\tid\t(\\d+)\n\t\tlabel\t\"([^\"]*)\"");
+	private static final Pattern EDGE = Pattern.compile("\tedge\n\t\\[\n\t\tsource\t(\\d+)\n\t\ttarget\t(\\d+)\n\t\tgraphics\n\t\t\\[\n\t\t\tfill\t\"([^\"]*)\"");
+
+	@Test
+	public void streamsTheSameGraphAsTheGMLWriter() throws Exception {
+		for (String query : QUERIES) {
+			Query proof = new Engine(KNOWLEDGE).createQuery(query);
+			GMLWriter gml = new GMLWriter();
+			proof.write(gml);
+
+			StringWriter out = new StringWriter();
+			StreamingGMLWriter streaming = new StreamingGMLWriter(out);
+			proof.write(streaming);
+			streaming.endDocument();
+
+			assertEquals(query, describe(gml.toString()), describe(out.toString()));
+			assertFalse(streaming.isTruncated());
+		}
+	}
+
+	@Test
+	public void writesTheSameTextToAStream() throws Exception {
+		Query query = new Engine(KNOWLEDGE).createQuery("e");
+		for (RuleArgument argument : query.getProof()) {
+			ClaimWriter claims = new ClaimWriter();
+			StringWriter claimsOut = new StringWriter();
+			argument.write(claims);
+			argument.write(new ClaimWriter(claimsOut));
+			assertEquals(claims.toString(), claimsOut.toString());
+
+			OneLineArgumentWriter oneLine = new OneLineArgumentWriter();
+			StringBuilder oneLineOut = new StringBuilder();
+			argument.write(oneLine);
+			argument.write(new OneLineArgumentWriter(oneLineOut));
+			assertEquals(oneLine.toString(), oneLineOut.toString());
+
+			EditableContentWriter content = new EditableContentWriter();
+			StringWriter contentOut = new StringWriter();
+			argument.write(content);
+			argument.write(new EditableContentWriter(contentOut));
+			assertEquals(content.toString(), contentOut.toString());
+		}
+	}
+
+	@Test
+	public void writesTheKnowledgeBaseRuleByRule() throws Exception {
+		KnowledgeBase kb = new Engine(KNOWLEDGE).getKnowledgeBase();
+		for (boolean all : new boolean[] { false, true }) {
+			StringWriter out = new StringWriter();
+			new PrologSyntaxKnowledgeWriter(out, all, all, false).write(kb);
+			assertEquals(kb.inspect(all, all), out.toString());
+		}
+		StringWriter out = new StringWriter();
+		new RawKnowledgeWriter(out).write(kb);
+		assertEquals(kb.toString(), out.toString());
+	}
+
+	/*
+	 * Describes a GML graph by its node labels and by the labels of the nodes that every edge connects,
+	 * so that graphs with other node ids or another order of entries can be compared
+	 */
+	private static String describe(String gml) {
+		Map<String, String> labels = new HashMap<String, String>();
+		Matcher node = NODE.matcher(gml);
+		while (node.find()) {
+			assertTrue("Duplicate node id " + node.group(1), labels.put(node.group(1), node.group(2)) == null);
+		}
+		List<String[]> edges = new ArrayList<String[]>();
+		Matcher edge = EDGE.matcher(gml);
+		while (edge.find()) {
+			assertTrue("Unknown source " + edge.group(1), labels.containsKey(edge.group(1)));
+			assertTrue("Unknown target " + edge.group(2), labels.containsKey(edge.group(2)));
+			edges.add(new String[] { edge.group(1), edge.group(2), edge.group(3) });
+		}
+		// a join node is known by the claim it joins the sub-arguments for
+		for (String[] e : edges) {
+			if (labels.get(e[0]).equals("dMP") && !labels.get(e[1]).equals("dMP")) {
+				labels.put(e[0], "dMP of " + labels.get(e[1]));
+			}
+		}
+		List<String> description = new ArrayList<String>(labels.values());
+		for (String[] e : edges) {
+			description.add(labels.get(e[0]) + " -> " + labels.get(e[1]) + " " + e[2]);
+		}
+		Collections.sort(description);
+		return description.toString();
+	}
+
+}
@@ -105,15 +105,13 @@ public class DialogueRun implements PlatformListener {
 				stats.e_moves++;
 				
 				// Relevance
-				for (Proposal proposal : dialogue.getProposals()) {
-					if (proposal.findNodeByIndex(move.getIndex()) != null) {
-						// Changed the proposal status?
-						if (!oldProposalStats.containsKey(proposal) ||
-								(oldProposalStats.containsKey(proposal) && 
-										oldProposalStats.get(proposal) != newProposalStats.get(proposal))) {
-							relevantMoves++;
-						}
-						break;
+				Proposal proposal = dialogue.getProposal(move);
+				if (proposal != null) {
+					// Changed the proposal status?
+					if (!oldProposalStats.containsKey(proposal) ||
+							(oldProposalStats.containsKey(proposal) && 
+									oldProposalStats.get(proposal) != newProposalStats.get(proposal))) {
+						relevantMoves++;
 					}
 				}
 			}
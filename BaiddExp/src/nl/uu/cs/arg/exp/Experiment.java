@@ -5,34 +5,49 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactoryConfigurationError;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 
 import joptsimple.ArgumentAcceptingOptionSpec;
 import joptsimple.OptionException;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpecBuilder;
+import nl.uu.cs.arg.exp.result.ConfigurationSummary;
+import nl.uu.cs.arg.exp.result.DialogueMetric;
 import nl.uu.cs.arg.exp.result.DialogueStats;
 import nl.uu.cs.arg.exp.result.ExperimentResultWriter;
 import nl.uu.cs.arg.exp.result.LocalExperimentWriter;
+import nl.uu.cs.arg.exp.result.RunningStatistic;
+import nl.uu.cs.arg.exp.scenario.ScenarioCorpus;
+import nl.uu.cs.arg.exp.scenario.ScenarioCorpus.RecordedTest;
 import nl.uu.cs.arg.exp.scenario.ScenarioExperiment;
 import nl.uu.cs.arg.exp.scenario.ScenarioExperiment.ScenarioTestCsvWriter;
+import nl.uu.cs.arg.exp.scenario.ScenarioParameters;
 import nl.uu.cs.arg.exp.scenario.ScenarioTester;
+import nl.uu.cs.arg.exp.scenario.ScenarioTester.ScenarioTestListener;
+import nl.uu.cs.arg.exp.scenario.SweepSpec;
 import nl.uu.cs.arg.platform.PlatformOutputLevel;
 import nl.uu.cs.arg.platform.PlatformOutputPrinter;
 import nl.uu.cs.arg.platform.Settings;
 import nl.uu.cs.arg.platform.local.AgentXmlData;
 import nl.uu.cs.arg.platform.local.BDIAgent;
 import nl.uu.cs.arg.platform.local.BDIAgent.Property;
+import nl.uu.cs.arg.platform.local.DeliberatingAgent;
 import nl.uu.cs.arg.platform.local.LocalAgent;
 import nl.uu.cs.arg.platform.local.MasXmlData;
+import nl.uu.cs.arg.platform.local.ReasoningCache;
 import nl.uu.cs.arg.platform.local.ValuedGoal;
 import nl.uu.cs.arg.shared.Agent;
 import nl.uu.cs.arg.shared.dialogue.Goal;
@@ -40,9 +55,9 @@ import nl.uu.cs.arg.shared.dialogue.protocol.DeliberationRule;
 import nl.uu.cs.arg.shared.dialogue.protocol.OutcomeSelectionRule;
 import nl.uu.cs.arg.shared.dialogue.protocol.TerminationRule;
 import nl.uu.cs.arg.shared.scenario.ScenarioGenerator;
-import nl.uu.cs.arg.shared.scenario.ScenarioGenerator.ConflictMethod;
 import nl.uu.cs.arg.shared.scenario.ScenarioGenerator.InvalidConfigurationException;
 import nl.uu.cs.arg.shared.scenario.ScenarioGenerator.Pool;
+import nl.uu.cs.arg.shared.util.RandomStreams;
 
 import org.aspic.inference.Constant;
 import org.aspic.inference.KnowledgeBase;
@@ -59,6 +74,41 @@ public class Experiment implements DialogueMonitor {
 	private final List<BDIAgent.Property> strategyPropertiesToTest;
 	private OutcomeSelectionRule outcomeSelectionRule = OutcomeSelectionRule.FirstThatIsIn;
 	private final LocalAgent agentStrategy;
+	private int threads = 1;
+	private FactorialDesign design = null;
+	private SweepSpec sweep = null;
+	private ScenarioCorpus corpus = null;
+	private List<ScenarioParameters> sweepPoints = Collections.singletonList(new ScenarioParameters());
+	private long seed = System.currentTimeMillis();
+	// The only run to play, to replay it on its own, or -1 to play all runs
+	private int onlyRun = -1;
+	private ExperimentCheckpoint checkpoint;
+	private long lastCheckpointSave;
+	// How often the agents could reuse a proof they found before, over all dialogues
+	private final AtomicLong proofCacheHits = new AtomicLong();
+	private final AtomicLong proofCacheMisses = new AtomicLong();
+
+	// Milliseconds between saves of the experiment checkpoint
+	private static final long CHECKPOINT_INTERVAL = 30 * 1000;
+
+	// Adaptive stopping: the metrics whose confidence intervals should become narrow enough, and how narrow
+	private final List<DialogueMetric> stoppingMetrics = new ArrayList<DialogueMetric>();
+	private double stoppingWidth = 0;
+	// Every sweep point settles on its own, so its summaries are kept by sweep point and then by configuration
+	private final Map<Integer, Map<Integer, ConfigurationSummary>> stoppingSummaries = new TreeMap<Integer, Map<Integer, ConfigurationSummary>>();
+	private int configCount;
+	// The run after which each sweep point settled, or -1 if it did not (yet)
+	private AtomicIntegerArray settledAfterRun;
+
+	// The number of dialogues to play at least for every configuration before the experiment can be settled
+	private static final int MIN_ADAPTIVE_RUNS = 10;
+
+	// Keys of the random streams that every run is split into
+	private static final int SCENARIO_STREAM = 0;
+	private static final int DIALOGUE_STREAM = 1;
+	// Key of the stream to sample sweep points from, which does not collide with any run number
+	private static final int SWEEP_STREAM = -1;
+	private static final int MAX_SCENARIO_ATTEMPTS = 100;
 
 	public Experiment(int runs, LocalAgent strategy) {
 		this.runs = runs;
@@ -89,6 +139,50 @@ public class Experiment implements DialogueMonitor {
 		this.strategyPropertiesToTest.add(prop);
 	}
 
+	private void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	private void setSweep(SweepSpec sweep) {
+		this.sweep = sweep;
+	}
+
+	private void setCorpus(ScenarioCorpus corpus) {
+		this.corpus = corpus;
+	}
+
+	private void setDesign(FactorialDesign design) {
+		this.design = design;
+	}
+
+	private void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	private void setOnlyRun(int onlyRun) {
+		this.onlyRun = onlyRun;
+	}
+
+	private long getSeed() {
+		return seed;
+	}
+
+	private void setCheckpoint(ExperimentCheckpoint checkpoint) {
+		this.checkpoint = checkpoint;
+	}
+
+	/**
+	 * Stops playing the runs of a sweep point (or of the experiment, without a sweep) as soon as the 95% confidence
+	 * intervals of all given metrics are at most some width for every configuration at that point, rather than always
+	 * playing the set number of runs (which now is the maximum)
+	 * @param metrics The metrics to watch
+	 * @param width The target (full) width of the confidence intervals
+	 */
+	private void setAdaptiveStopping(List<DialogueMetric> metrics, double width) {
+		this.stoppingMetrics.addAll(metrics);
+		this.stoppingWidth = width;
+	}
+
 	private void setOutcomeSelectionRuleToTest(OutcomeSelectionRule outcomeSelectionRule) {
 		this.outcomeSelectionRule = outcomeSelectionRule;
 	}
@@ -99,143 +193,125 @@ public class Experiment implements DialogueMonitor {
 
 			String topic = "do";
 			String goal = "g_d";
-	        Term topicTerm = new Term(topic, new Variable("T"));
-	        Goal topicGoal = new Goal(new Constant(goal));
 
 	        ScenarioTestCsvWriter testWriter = null;
 	        if (historyDirectory != null) {
 	        	testWriter = new ScenarioExperiment.ScenarioTestCsvWriter(new File(historyDirectory.toString() + File.separator + "ScenarioTest.txt"), true);
 	        }
 	        
-			for (int runId = 0; runId < runs; runId++) {
+	        // Dialogues are played on the worker threads, but reported back in the order they are submitted
+	        ExperimentExecutor executor = new ExperimentExecutor(threads, this);
+	        
+	        // All randomness is derived from the master seed, with independent streams per run, scenario and dialogue
+	        RandomStreams streams = new RandomStreams(seed);
+	        int corpusMisses = 0;
+	        
+	        // Record our progress from the start, so we can always resume
+	        saveCheckpoint();
+	        
+	        // Generate a configuration for every combination of the properties we want to test, or for those in the design
+	        if (design == null) {
+	        	design = FactorialDesign.full(strategyPropertiesToTest.size());
+	        }
+	        List<BitSet> configs = design.getConfigurations();
+	        configCount = configs.size();
+	        List<String> propertyNames = new ArrayList<String>();
+	        for (Property prop : strategyPropertiesToTest) {
+	        	propertyNames.add(prop.name());
+	        }
+	        System.out.println(design.describe(propertyNames));
+	        System.out.println();
+	        
+	        int totalRuns = sampleSweepPoints(streams);
+	        settledAfterRun = new AtomicIntegerArray(sweepPoints.size());
+	        for (int point = 0; point < sweepPoints.size(); point++) {
+	        	settledAfterRun.set(point, -1);
+	        }
+	        
+			for (int runId = 0; runId < totalRuns; runId++) {
+
+				// Skip the remaining runs of a sweep point if its metrics settled already
+				if (settledAfterRun.get(runId / runs) >= 0) {
+					continue;
+				}
+
+				// Replaying a single run? Its streams only depend on the master seed and the run number
+				if (onlyRun >= 0 && runId != onlyRun) {
+					continue;
+				}
+
+				RandomStreams runStreams = streams.split(runId);
 
 				// Use the standard settings
 				List<DeliberationRule> deliberationRules = Arrays.asList(//DeliberationRule.AttackOnOwnMove,
 						DeliberationRule.NoRepeatInBranch);
 				List<TerminationRule> terminationRules = Arrays.asList(TerminationRule.NoParticipants,
 						TerminationRule.InactiveRound);
-				Settings settings = new Settings(deliberationRules, terminationRules, outcomeSelectionRule);
 
-				// Generate a configuration for every property we want to test
-				ArrayList<BitSet> configs = new ArrayList<BitSet>();
-				for (int i = 0; i < (Math.pow(2, strategyPropertiesToTest.size())); i++) {
-					configs.add(createBits(i));
+				// Dialogues already played for every configuration in an earlier, interrupted, session can be skipped
+				// altogether; the streams of the later runs do not depend on this one
+				if (checkpoint != null && checkpoint.isRunFinished(runId, configs.size())) {
+					continue;
 				}
 
-				// Generate the scenario
-				/*final int players = 2;
-				final int optionsCount = 17; // Also used to format the dialogue output
-				ScenarioGenerator gen = new ScenarioGenerator(goal, 
-						players,		// n_A
-						6, 				// n_R
-						10, 			// n_B_s
-						optionsCount,	// n_O_s
-						12,	 			// n_G_s
-						10,				// n_O_r
-						5,				// n_G_r
-						2,				// l
-						5, 				// n_G_nro
-						35, 			// n_B_ra
-						25,	 			// n_B_nra
-						ScenarioGenerator.AssignmentMethod.Randomly, 
-						ScenarioGenerator.AssignmentMethod.Evenly,
-						ConflictMethod.Chained);*/
-				final int players = 7;
-				final int optionsCount = 17; // Also used to format the dialogue output
-				ScenarioGenerator gen = new ScenarioGenerator(goal, 
-						players,		// n_A
-						8, 				// n_R
-						40, 			// n_B_s
-						optionsCount,	// n_O_s
-						12,	 			// n_G_s
-						8,				// n_O_r
-						5,				// n_G_r
-						2,				// l
-						2, 				// n_G_nro
-						60, 			// n_B_ra
-						35,	 			// n_B_nra
-						ScenarioGenerator.AssignmentMethod.Randomly, 
-						ScenarioGenerator.AssignmentMethod.Evenly,
-						ConflictMethod.Chained);
+				// Generate the scenario, with the parameters of the sweep point this run belongs to
+				ScenarioParameters parameters = sweepPoints.get(runId / runs);
 				List<Pool> scenario = null;
-				try {
-					scenario = gen.generate();
-				} catch (InvalidConfigurationException e) {
-					System.out.println("Run " + runId + " skipped! Invalid scenario configuration: " + e.getMessage());
-					runId--;
-					if (testWriter != null) {
-						testWriter.writeError(e.getMessage());
+				if (corpus != null) {
+					// Stream the scenario from the corpus, which was tested when it was added
+					scenario = corpus.load(parameters, seed, runId, testWriter);
+					if (scenario == null) {
+						corpusMisses++;
 					}
 				}
 				if (scenario == null) {
-					continue;
-				}
-				
-				// Test it
-				ScenarioTester test = new ScenarioTester(goal, false);
-				if (testWriter != null) {
-					test.addListener(testWriter);
+					scenario = generateScenario(runId, parameters, runStreams, goal, testWriter);
+					if (scenario == null) {
+						continue;
+					}
+
+					// Test it
+					ScenarioTester test = new ScenarioTester(goal, false);
+					if (testWriter != null) {
+						test.addListener(testWriter);
+					}
+					test.test(scenario, "", "");
 				}
-				test.test(scenario, "", "");
 				
-				// Loop over the strategy properties to test
+				// Schedule a dialogue for every configuration of the strategy properties to test
+				// The first one fills the reasoning cache of the scenario, which the others reuse until they diverge
+				ReasoningCache reasoningCache = configs.size() > 1 ? new ReasoningCache() : null;
+				boolean fillCache = true;
 				int configId = 0;
 				for (BitSet config : configs) {
-
-					HashMap<String, Object> strategy = new HashMap<String, Object>();
-					int c = 0;
-					for (BDIAgent.Property prop : strategyPropertiesToTest) {
-						strategy.put(prop.name(), config.get(c));
-						c++;
-					}
-
-					// Generate agents
-					List<Agent> agents = new ArrayList<Agent>();
-					List<AgentXmlData> agentXml = new ArrayList<AgentXmlData>();
-					for (int i = 0; i < players; i++) {
-						// Create knowledge base object
-						KnowledgeBase kb = new KnowledgeBase();
-						kb.addRules(scenario.get(i).B);
-						// Create option objects for the option terms
-						ArrayList<Rule> options = new ArrayList<Rule>();
-						for (Term o : scenario.get(i).O) {
-							options.add(new Rule(o));
-						}
-						// Create goal objects for the goal constants
-						// This also assigns a utility of 1, ..., n_G_r
-						// TODO?: Improve this method? Don't assign g_d a utility?
-						ArrayList<Goal> goals = new ArrayList<Goal>();
-						int u = 1;
-						for (Constant g : scenario.get(i).G) {
-							goals.add(new ValuedGoal(g, u));
-							u++;
-						}
-						// Create the agent objects
-						AgentXmlData a = new AgentXmlData("Agent" + i, kb, options, goals, new ArrayList<Goal>(), strategy);
-						agents.add(agentStrategy.createAgent(a));
-						agentXml.add(a);
-
+					if (checkpoint != null && checkpoint.isFinished(runId, configId)) {
+						configId++;
+						continue;
 					}
-
-					if (historyDirectory != null) {
-						// Write this generated dialogue to XML file(s)
-						File masFile = new File(historyDirectory.toString() + File.separator + "Exp" + runId + "-Conf"
-								+ configId + File.separator + "Mas.baidd");
-						new MasXmlData(topicTerm, topicGoal, agents, agentXml, deliberationRules, terminationRules,
-								outcomeSelectionRule).saveMasDataToXml(masFile, true);
-					}
-
-					// Start run
-					// Note that this starting of the run is synchronous
-					// although the platform itself will actually run
-					// asynchronously
-					DialogueRun run = new DialogueRun(runId, configId, this, settings, optionsCount, agentStrategy.name(), dialogueOutputPrinter);
-					run.start(topicTerm, topicGoal, agents);
-
+					executor.submit(new DialogueJob(runId, configId, config, scenario, parameters, topic, goal,
+							runStreams.split(DIALOGUE_STREAM).split(configId), deliberationRules, terminationRules,
+							reasoningCache, fillCache));
+					fillCache = false;
 					configId++;
 				}
 
 			}
+			executor.shutdown();
+			saveCheckpoint();
+			if (corpusMisses > 0) {
+				System.out.println(corpusMisses + " scenarios were not in the corpus and were generated instead");
+			}
+			for (int point = 0; point < sweepPoints.size(); point++) {
+				if (settledAfterRun.get(point) >= 0) {
+					System.out.println("Metrics settled after run " + settledAfterRun.get(point) + " of runs "
+							+ (point * runs) + " to " + ((point + 1) * runs - 1)
+							+ (sweep == null ? "" : " (sweep point " + sweepPoints.get(point) + ")"));
+				}
+			}
+			if (proofCacheHits.get() + proofCacheMisses.get() > 0) {
+				System.out.println("Agent proof caches: " + proofCacheHits.get() + " hits, " + proofCacheMisses.get()
+						+ " misses");
+			}
 
 			// Allow the writers to finalize, if needed
 			for (ExperimentResultWriter writer : experimentResultWriters) {
@@ -244,37 +320,272 @@ public class Experiment implements DialogueMonitor {
 			if (testWriter != null) {
 				testWriter.finalise();
 			}
+			if (corpus != null) {
+				corpus.close();
+			}
 
 		} catch (IOException e) {
 			e.printStackTrace();
-		} catch (TransformerConfigurationException e) {
-			e.printStackTrace();
-		} catch (ParserConfigurationException e) {
-			e.printStackTrace();
-		} catch (TransformerException e) {
-			e.printStackTrace();
-		} catch (TransformerFactoryConfigurationError e) {
-			e.printStackTrace();
 		}
 
 	}
 
-	private BitSet createBits(int value) {
-		BitSet bits = new BitSet(Integer.SIZE);
-		int index = 0;
-		while (value != 0) {
-		  if (value % 2 != 0) {
-		    bits.set(index);
-		  }
-		  ++index;
-		  value = value >>> 1;
+	/**
+	 * Samples the points of the sweep, if any, from their own stream
+	 * @param streams The streams of the master seed
+	 * @return The total number of runs: the given number of runs for every point
+	 */
+	private int sampleSweepPoints(RandomStreams streams) {
+		if (sweep != null) {
+			sweepPoints = sweep.samplePoints(streams.split(SWEEP_STREAM).random());
+			System.out.println("Sweep " + sweep + ": " + sweepPoints.size() + " points");
+			System.out.println();
 		}
-		return bits;
+		return runs * sweepPoints.size();
+	}
+
+	/**
+	 * Generates the scenario of a run. A rejected scenario is retried with a fresh stream, to not generate the same
+	 * one again, but some parameters (of a sweep) may simply not allow valid scenarios.
+	 * @return The scenario, or null if no valid one was generated in {@link #MAX_SCENARIO_ATTEMPTS} attempts
+	 */
+	private List<Pool> generateScenario(int runId, ScenarioParameters parameters, RandomStreams runStreams,
+			String goal, ScenarioTestListener testWriter) {
+		for (int attempt = 0; attempt < MAX_SCENARIO_ATTEMPTS; attempt++) {
+			ScenarioGenerator gen = parameters.createGenerator(goal, runStreams.split(SCENARIO_STREAM).split(attempt)
+					.random());
+			try {
+				return gen.generate();
+			} catch (InvalidConfigurationException e) {
+				System.out.println("Run " + runId + " skipped! Invalid scenario configuration: " + e.getMessage());
+				if (testWriter != null) {
+					testWriter.writeError(e.getMessage());
+				}
+			}
+		}
+		System.out.println("Run " + runId + " abandoned after " + MAX_SCENARIO_ATTEMPTS + " invalid scenarios");
+		return null;
+	}
+
+	/**
+	 * Generates and tests the scenarios of all runs (at all sweep points) of this experiment in parallel and adds
+	 * them to the corpus, so later experiments with the same seed can stream them from there. Scenarios the corpus
+	 * holds already are not generated again.
+	 * @param corpus The corpus to fill
+	 */
+	private void buildCorpus(final ScenarioCorpus corpus) {
+
+		final String goal = "g_d";
+		RandomStreams streams = new RandomStreams(seed);
+		int totalRuns = sampleSweepPoints(streams);
+		int before = corpus.size();
+
+		ExecutorService builders = Executors.newFixedThreadPool(threads);
+		List<Future<Void>> built = new ArrayList<Future<Void>>();
+		for (int runId = 0; runId < totalRuns; runId++) {
+			final int run = runId;
+			final ScenarioParameters parameters = sweepPoints.get(runId / runs);
+			final RandomStreams runStreams = streams.split(runId);
+			if (corpus.contains(parameters, seed, runId)) {
+				continue;
+			}
+			built.add(builders.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					List<Pool> scenario = generateScenario(run, parameters, runStreams, goal, null);
+					if (scenario != null) {
+						ScenarioTester test = new ScenarioTester(goal, false);
+						RecordedTest result = new RecordedTest();
+						test.addListener(result);
+						test.test(scenario, "", "");
+						corpus.add(parameters, seed, run, scenario, result);
+					}
+					return null;
+				}
+			}));
+		}
+		builders.shutdown();
+
+		try {
+			for (Future<Void> b : built) {
+				b.get();
+			}
+			System.out.println("Added " + (corpus.size() - before) + " scenarios for seed " + seed
+					+ "; the corpus now holds " + corpus.size());
+		} catch (InterruptedException e) {
+			builders.shutdownNow();
+		} catch (ExecutionException e) {
+			builders.shutdownNow();
+			e.getCause().printStackTrace();
+		}
+
+	}
+
+	/**
+	 * A single dialogue of the experiment: one scenario played with one
+	 * configuration of the strategy properties. The job builds its own agents
+	 * from copies of the scenario's knowledge, so it can be run on any thread.
+	 */
+	private class DialogueJob implements Callable<DialogueStats> {
+
+		private final int runId;
+		private final int configId;
+		private final BitSet config;
+		private final List<Pool> scenario;
+		private final ScenarioParameters parameters;
+		private final String topic;
+		private final String goal;
+		private final RandomStreams dialogueStreams;
+		private final List<DeliberationRule> deliberationRules;
+		private final List<TerminationRule> terminationRules;
+		private final ReasoningCache reasoningCache;
+		private final boolean fillCache;
+
+		public DialogueJob(int runId, int configId, BitSet config, List<Pool> scenario, ScenarioParameters parameters,
+				String topic, String goal, RandomStreams dialogueStreams, List<DeliberationRule> deliberationRules,
+				List<TerminationRule> terminationRules, ReasoningCache reasoningCache, boolean fillCache) {
+			this.runId = runId;
+			this.configId = configId;
+			this.config = config;
+			this.scenario = scenario;
+			this.parameters = parameters;
+			this.topic = topic;
+			this.goal = goal;
+			this.dialogueStreams = dialogueStreams;
+			this.deliberationRules = deliberationRules;
+			this.terminationRules = terminationRules;
+			this.reasoningCache = reasoningCache;
+			this.fillCache = fillCache;
+		}
+
+		@Override
+		public DialogueStats call() throws Exception {
+
+			long started = System.currentTimeMillis();
+			int players = parameters.getPlayers();
+			int optionsCount = parameters.getOptionsCount(); // Also used to format the dialogue output
+
+	        Term topicTerm = new Term(topic, new Variable("T"));
+	        Goal topicGoal = new Goal(new Constant(goal));
+	        Settings settings = new Settings(deliberationRules, terminationRules, outcomeSelectionRule,
+	        		dialogueStreams.random());
+
+			HashMap<String, Object> strategy = new HashMap<String, Object>();
+			int c = 0;
+			for (BDIAgent.Property prop : strategyPropertiesToTest) {
+				strategy.put(prop.name(), config.get(c));
+				c++;
+			}
+
+			// Generate agents
+			List<Agent> agents = new ArrayList<Agent>();
+			List<AgentXmlData> agentXml = new ArrayList<AgentXmlData>();
+			for (int i = 0; i < players; i++) {
+				// Create knowledge base object
+				// The rules are copied, as adding them to a knowledge base changes them
+				KnowledgeBase kb = new KnowledgeBase();
+				kb.addRules(copyOf(scenario.get(i).B));
+				// Create option objects for the option terms
+				ArrayList<Rule> options = new ArrayList<Rule>();
+				for (Term o : copyOf(scenario.get(i).O)) {
+					options.add(new Rule(o));
+				}
+				// Create goal objects for the goal constants
+				// This also assigns a utility of 1, ..., n_G_r
+				// TODO?: Improve this method? Don't assign g_d a utility?
+				ArrayList<Goal> goals = new ArrayList<Goal>();
+				int u = 1;
+				for (Constant g : copyOf(scenario.get(i).G)) {
+					goals.add(new ValuedGoal(g, u));
+					u++;
+				}
+				// Create the agent objects
+				AgentXmlData a = new AgentXmlData("Agent" + i, kb, options, goals, new ArrayList<Goal>(), strategy);
+				Agent agent = agentStrategy.createAgent(a);
+				if (reasoningCache != null && agent instanceof DeliberatingAgent) {
+					((DeliberatingAgent) agent).setReasoningCache(reasoningCache, fillCache);
+				}
+				agents.add(agent);
+				agentXml.add(a);
+
+			}
+
+			if (historyDirectory != null) {
+				// Write this generated dialogue to XML file(s)
+				File masFile = new File(historyDirectory.toString() + File.separator + "Exp" + runId + "-Conf"
+						+ configId + File.separator + "Mas.baidd");
+				new MasXmlData(topicTerm, topicGoal, agents, agentXml, deliberationRules, terminationRules,
+						outcomeSelectionRule).saveMasDataToXml(masFile, true);
+			}
+
+			// Start run
+			// Note that this starting of the run is synchronous
+			// although the platform itself will actually run
+			// asynchronously
+			final DialogueStats[] result = new DialogueStats[1];
+			DialogueRun run = new DialogueRun(runId, configId, new DialogueMonitor() {
+				@Override
+				public void dialogueTerminated(DialogueStats stats) {
+					result[0] = stats;
+				}
+			}, settings, optionsCount, agentStrategy.name(), dialogueOutputPrinter);
+			run.start(topicTerm, topicGoal, agents);
+			for (Agent agent : agents) {
+				if (agent instanceof DeliberatingAgent) {
+					proofCacheHits.addAndGet(((DeliberatingAgent) agent).getStrategyHelper().getProofCacheHits());
+					proofCacheMisses.addAndGet(((DeliberatingAgent) agent).getStrategyHelper().getProofCacheMisses());
+				}
+			}
+			if (result[0] != null) {
+				result[0].seed = seed;
+				result[0].runtime = System.currentTimeMillis() - started;
+				if (sweep != null) {
+					// Tag the result with the point in the parameter space
+					result[0].parameters = parameters.toMap();
+				}
+			}
+			return result[0];
+
+		}
+
+		@SuppressWarnings("unchecked")
+		private <T extends Constant> List<T> copyOf(List<T> elements) throws CloneNotSupportedException {
+			List<T> copy = new ArrayList<T>();
+			for (T element : elements) {
+				copy.add((T) element.clone());
+			}
+			return copy;
+		}
+
 	}
 
 	@Override
 	public void dialogueTerminated(DialogueStats stats) {
 
+		if (stoppingWidth > 0) {
+			// Results of runs that were already underway when their sweep point settled are ignored, so the outcome 
+			// does not depend on the number of threads
+			int point = stats.id / runs;
+			int settled = settledAfterRun.get(point);
+			if (settled >= 0 && stats.id > settled) {
+				return;
+			}
+			Map<Integer, ConfigurationSummary> summaries = stoppingSummaries.get(point);
+			if (summaries == null) {
+				summaries = new TreeMap<Integer, ConfigurationSummary>();
+				stoppingSummaries.put(point, summaries);
+			}
+			ConfigurationSummary summary = summaries.get(stats.configId);
+			if (summary == null) {
+				summary = new ConfigurationSummary(stats.configId, "");
+				summaries.put(stats.configId, summary);
+			}
+			summary.add(stats);
+			if (settled < 0 && isSettled(summaries)) {
+				settledAfterRun.set(point, stats.id);
+			}
+		}
+
 		for (ExperimentResultWriter writer : experimentResultWriters) {
 			try {
 				writer.writeResult(stats);
@@ -283,6 +594,43 @@ public class Experiment implements DialogueMonitor {
 			}
 		}
 
+		// Remember that this dialogue is finished, but only write the checkpoint once in a while
+		if (checkpoint != null) {
+			checkpoint.markFinished(stats.id, stats.configId);
+			if (System.currentTimeMillis() - lastCheckpointSave >= CHECKPOINT_INTERVAL) {
+				saveCheckpoint();
+			}
+		}
+
+	}
+
+	// Whether the metrics of all configurations of one sweep point are known precisely enough
+	private boolean isSettled(Map<Integer, ConfigurationSummary> summaries) {
+		if (summaries.size() < configCount) {
+			return false;
+		}
+		for (ConfigurationSummary summary : summaries.values()) {
+			for (DialogueMetric metric : stoppingMetrics) {
+				RunningStatistic statistic = summary.get(metric);
+				// Note that a NaN width (too few values) is never settled
+				if (statistic.getCount() < MIN_ADAPTIVE_RUNS || !(2 * statistic.getHalfWidth() <= stoppingWidth)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private void saveCheckpoint() {
+		if (checkpoint == null) {
+			return;
+		}
+		try {
+			checkpoint.save(experimentResultWriters);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		lastCheckpointSave = System.currentTimeMillis();
 	}
 
 	/**
@@ -302,13 +650,13 @@ public class Experiment implements DialogueMonitor {
 						"Set agent strategy {BDIAgent, NonArguingAgent}").withRequiredArg()
 				.ofType(LocalAgent.class);
 		ArgumentAcceptingOptionSpec<LocalExperimentWriter> outputOption = parser
-				.acceptsAll(java.util.Arrays.asList("o", "output"), "Set the experiment results output {Console, Csv}")
+				.acceptsAll(java.util.Arrays.asList("o", "output"), "Set the experiment results output {Console, Csv, CsvGz, Columnar, Summary}")
 				.withRequiredArg().ofType(LocalExperimentWriter.class);
 		ArgumentAcceptingOptionSpec<File> fileOption = parser
 				.acceptsAll(java.util.Arrays.asList("f", "file"), "File to write output to").withRequiredArg()
 				.ofType(File.class);
 		ArgumentAcceptingOptionSpec<Integer> runsOption = parser
-				.acceptsAll(java.util.Arrays.asList("r", "runs"), "Number of dialogues to run").withRequiredArg()
+				.acceptsAll(java.util.Arrays.asList("r", "runs"), "Number of dialogues to run (per sweep point)").withRequiredArg()
 				.ofType(Integer.class);
 		ArgumentAcceptingOptionSpec<File> historyOption = parser
 				.acceptsAll(java.util.Arrays.asList("y", "history"), "Directory to store history of generated agents")
@@ -319,6 +667,49 @@ public class Experiment implements DialogueMonitor {
 		ArgumentAcceptingOptionSpec<OutcomeSelectionRule> outcomeOption = parser
 				.acceptsAll(java.util.Arrays.asList("O", "outcomerule"), "Use a specific outcome selection rule")
 				.withRequiredArg().ofType(OutcomeSelectionRule.class);
+		ArgumentAcceptingOptionSpec<Integer> threadsOption = parser
+				.acceptsAll(java.util.Arrays.asList("t", "threads"), "Number of dialogues to run in parallel")
+				.withRequiredArg().ofType(Integer.class);
+		ArgumentAcceptingOptionSpec<Long> seedOption = parser
+				.acceptsAll(java.util.Arrays.asList("S", "seed"), "Master seed for all random choices, to repeat an experiment")
+				.withRequiredArg().ofType(Long.class);
+		ArgumentAcceptingOptionSpec<Integer> onlyRunOption = parser
+				.acceptsAll(java.util.Arrays.asList("only-run"),
+						"Only play this run (starting at 0, counting on over the sweep points), to replay it with the "
+								+ "same seed").withRequiredArg().ofType(Integer.class);
+		ArgumentAcceptingOptionSpec<File> checkpointOption = parser
+				.acceptsAll(java.util.Arrays.asList("c", "checkpoint"), "File to record the experiment progress in")
+				.withRequiredArg().ofType(File.class);
+		OptionSpecBuilder resumeOption = parser.acceptsAll(java.util.Arrays.asList("resume"),
+				"Resume an interrupted experiment from its checkpoint, with the same options as it was started");
+		ArgumentAcceptingOptionSpec<DialogueMetric> metricOption = parser
+				.acceptsAll(java.util.Arrays.asList("m", "metric"),
+						"Metric to watch for adaptive stopping {Moves, Relevance, Concealment, TotalAvg, TotalInAvg, "
+								+ "TotalOutcome, ParetoOutcome}").withRequiredArg().ofType(DialogueMetric.class);
+		ArgumentAcceptingOptionSpec<Double> widthOption = parser
+				.acceptsAll(java.util.Arrays.asList("w", "width"),
+						"Stop when the 95% confidence intervals of the watched metrics are this narrow; the number "
+								+ "of runs then is the maximum").withRequiredArg().ofType(Double.class);
+		ArgumentAcceptingOptionSpec<ExperimentDesign> designOption = parser
+				.acceptsAll(java.util.Arrays.asList("d", "design"),
+						"Play only a fraction of the property configurations {Full, ResolutionIII, ResolutionIV, "
+								+ "ResolutionV}").withRequiredArg().ofType(ExperimentDesign.class);
+		ArgumentAcceptingOptionSpec<File> matrixOption = parser
+				.acceptsAll(java.util.Arrays.asList("x", "matrix"),
+						"File with the property configurations to play, one per line, e.g. +-+ or 101")
+				.withRequiredArg().ofType(File.class);
+		ArgumentAcceptingOptionSpec<File> sweepOption = parser
+				.acceptsAll(java.util.Arrays.asList("g", "sweep"),
+						"File specifying the scenario generation parameters to sweep").withRequiredArg()
+				.ofType(File.class);
+		ArgumentAcceptingOptionSpec<File> corpusOption = parser
+				.acceptsAll(java.util.Arrays.asList("k", "corpus"),
+						"Scenario corpus directory or zip archive to take the scenarios from").withRequiredArg()
+				.ofType(File.class);
+		ArgumentAcceptingOptionSpec<File> buildCorpusOption = parser
+				.acceptsAll(java.util.Arrays.asList("build-corpus"),
+						"Only generate the scenarios of the experiment, in parallel, and add them to this corpus "
+								+ "directory").withRequiredArg().ofType(File.class);
 		OptionSpecBuilder helpOption = parser.acceptsAll(java.util.Arrays.asList("?", "h", "help"),
 				"Print this usage message");
 		OptionSpecBuilder versionOption = parser.acceptsAll(java.util.Arrays.asList("v", "version"), "Version info");
@@ -352,7 +743,7 @@ public class Experiment implements DialogueMonitor {
 			if (options.hasArgument(agentOption)) {
 				strategy = agentOption.value(options);
 			}
-			if (strategy == null) {
+			if (strategy == null && !options.has(buildCorpusOption)) {
 				printCommandLineUsage(parser, "Specify the agent strategy, for example:\n" + "\t-s BDIAgent");
 				return;
 			}
@@ -360,6 +751,110 @@ public class Experiment implements DialogueMonitor {
 			// Initialise the experiment settings
 			Experiment experiment = new Experiment(runs, strategy);
 
+			// Number of worker threads
+			if (options.hasArgument(threadsOption)) {
+				int threads = threadsOption.value(options);
+				if (threads <= 0) {
+					printCommandLineUsage(parser, "Specify a positive number of threads, for example:\n" + "\t-t 8");
+					return;
+				}
+				experiment.setThreads(threads);
+			}
+
+			// Master random seed
+			if (options.hasArgument(seedOption)) {
+				experiment.setSeed(seedOption.value(options));
+			}
+
+			// Replay a single run?
+			if (options.hasArgument(onlyRunOption)) {
+				if (onlyRunOption.value(options) < 0) {
+					printCommandLineUsage(parser, "Specify the run to replay, starting at 0, for example:\n"
+							+ "\t-S 42 --only-run 7");
+					return;
+				}
+				experiment.setOnlyRun(onlyRunOption.value(options));
+			}
+
+			// Sweep the scenario parameters?
+			if (options.hasArgument(sweepOption)) {
+				File sweepFile = sweepOption.value(options);
+				if (!sweepFile.exists()) {
+					printCommandLineUsage(parser, "Sweep specification file does not exist");
+					return;
+				}
+				experiment.setSweep(SweepSpec.load(sweepFile));
+			}
+
+			// Only fill a scenario corpus?
+			if (options.hasArgument(buildCorpusOption)) {
+				ScenarioCorpus corpus = ScenarioCorpus.open(buildCorpusOption.value(options));
+				printAppHeader();
+				experiment.buildCorpus(corpus);
+				corpus.close();
+				return;
+			}
+
+			// Adaptive stopping?
+			if (options.hasArgument(widthOption) || options.hasArgument(metricOption)) {
+				if (!options.hasArgument(widthOption) || !options.hasArgument(metricOption)
+						|| widthOption.value(options) <= 0) {
+					printCommandLineUsage(parser, "Specify both the metrics to watch and a positive target width of "
+							+ "their confidence intervals, for example:\n" + "\t-m TotalOutcome -m Moves -w 0.5");
+					return;
+				}
+				experiment.setAdaptiveStopping(metricOption.values(options), widthOption.value(options));
+			}
+
+			// Stream the scenarios from a corpus?
+			if (options.hasArgument(corpusOption)) {
+				File corpusFile = corpusOption.value(options);
+				if (!corpusFile.exists()) {
+					printCommandLineUsage(parser, "Scenario corpus does not exist");
+					return;
+				}
+				ScenarioCorpus corpus = ScenarioCorpus.open(corpusFile);
+				// Without an explicit seed, play the scenarios the corpus was first built for
+				if (!options.hasArgument(seedOption) && !corpus.getSeeds().isEmpty()) {
+					experiment.setSeed(corpus.getSeeds().iterator().next());
+				}
+				experiment.setCorpus(corpus);
+			}
+
+			// Record progress in (or resume from) a checkpoint?
+			ExperimentCheckpoint checkpoint = null;
+			boolean resume = options.has(resumeOption);
+			if (options.hasArgument(checkpointOption)) {
+				File checkpointFile = checkpointOption.value(options);
+				if (resume) {
+					// The statistics that adaptive stopping watches are not in the checkpoint, so whether a resumed 
+					// experiment settles would depend on where it was interrupted
+					if (options.hasArgument(widthOption)) {
+						printCommandLineUsage(parser, "Adaptive stopping (-m/-w) can not be used when resuming an "
+								+ "experiment; resume it without, to play the remaining runs");
+						return;
+					}
+					if (!checkpointFile.exists()) {
+						printCommandLineUsage(parser, "Checkpoint to resume from does not exist");
+						return;
+					}
+					checkpoint = ExperimentCheckpoint.load(checkpointFile);
+					if (options.hasArgument(seedOption) && seedOption.value(options) != checkpoint.getSeed()) {
+						printCommandLineUsage(parser, "The experiment to resume was started with seed "
+								+ checkpoint.getSeed());
+						return;
+					}
+					experiment.setSeed(checkpoint.getSeed());
+				} else {
+					checkpoint = new ExperimentCheckpoint(checkpointFile, experiment.getSeed());
+				}
+				experiment.setCheckpoint(checkpoint);
+			} else if (resume) {
+				printCommandLineUsage(parser, "Specify the checkpoint to resume from, for example:\n"
+						+ "\t--resume -c experiment.checkpoint");
+				return;
+			}
+
 			// Console message printing level
 			PlatformOutputPrinter platformPrinter = null;
 			if (options.hasArgument(levelOption)) {
@@ -391,6 +886,18 @@ public class Experiment implements DialogueMonitor {
 				}
 			}
 
+			// Play a fraction of the configurations of these properties?
+			if (options.hasArgument(matrixOption)) {
+				File matrixFile = matrixOption.value(options);
+				if (!matrixFile.exists()) {
+					printCommandLineUsage(parser, "Design matrix file does not exist");
+					return;
+				}
+				experiment.setDesign(FactorialDesign.load(matrixFile, experiment.strategyPropertiesToTest.size()));
+			} else if (options.hasArgument(designOption)) {
+				experiment.setDesign(designOption.value(options).create(experiment.strategyPropertiesToTest.size()));
+			}
+
 			// Use a specific outcome selection protocol rule?
 			if (options.hasArgument(outcomeOption)) {
 				experiment.setOutcomeSelectionRuleToTest(outcomeOption.value(options));
@@ -400,15 +907,29 @@ public class Experiment implements DialogueMonitor {
 			if (options.hasArgument(fileOption) || options.hasArgument(outputOption)) {
 				Iterator<File> fileOptionI = fileOption.values(options).iterator();
 				List<LocalExperimentWriter> writerOptions = outputOption.values(options);
+				int writerIndex = 0;
 				for (LocalExperimentWriter writerOption : writerOptions) {
 
+					// The running statistics of a summary are not in the checkpoint, so it can not be continued
+					if (resume && writerOption == LocalExperimentWriter.Summary) {
+						printCommandLineUsage(parser, "A Summary output can not be resumed, as it would only "
+								+ "summarise the dialogues played after resuming; resume with the other outputs and "
+								+ "summarise their results instead");
+						return;
+					}
+
 					// Check of this writer type needs an output file specified
 					if (writerOption.needsFile()) {
 						if (fileOptionI.hasNext()) {
 
 							// Create the writer with its attached file
+							// When resuming, results written after the last checkpoint are dropped (and played again)
+							File file = fileOptionI.next();
+							if (resume) {
+								checkpoint.truncate(writerIndex, file);
+							}
 							ExperimentResultWriter writer = writerOption.create();
-							writer.initialise(fileOptionI.next(), false);
+							writer.initialise(file, resume);
 							experiment.addExperimentResultWriter(writer);
 
 						} else {
@@ -427,6 +948,7 @@ public class Experiment implements DialogueMonitor {
 						experiment.addExperimentResultWriter(writer);
 
 					}
+					writerIndex++;
 
 				}
 
@@ -0,0 +1,172 @@
+package nl.uu.cs.arg.exp;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import nl.uu.cs.arg.exp.result.ExperimentResultWriter;
+
+/**
+ * Records the progress of an experiment in a small text file, so that an
+ * interrupted experiment can be resumed. The checkpoint holds the master
+ * seed (from which all random choices of the experiment are derived), the
+ * finished dialogues by run and configuration, and for every result writer
+ * the size of its output that holds exactly the results of those finished
+ * dialogues. On resuming, the outputs are cut back to these sizes and only
+ * the dialogues that were not finished yet are played again, so no result is
+ * written twice.
+ *
+ * @author erickok
+ */
+public class ExperimentCheckpoint {
+
+	private static final String HEADER = "# Baidd experiment checkpoint";
+
+	private final File file;
+	private long seed;
+	private final Map<Integer, BitSet> finished = new TreeMap<Integer, BitSet>();
+	private final List<Long> offsets = new ArrayList<Long>();
+
+	/**
+	 * Starts a new checkpoint for an experiment
+	 * @param file The file to write the checkpoint to
+	 * @param seed The master seed of the experiment
+	 */
+	public ExperimentCheckpoint(File file, long seed) {
+		this.file = file;
+		this.seed = seed;
+	}
+
+	/**
+	 * Reads back a checkpoint written earlier
+	 * @param file The checkpoint file
+	 * @return The checkpoint as it was last saved
+	 * @throws IOException Thrown when the file can not be read or is not a checkpoint
+	 */
+	public static ExperimentCheckpoint load(File file) throws IOException {
+		ExperimentCheckpoint checkpoint = new ExperimentCheckpoint(file, 0);
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try {
+			String line = in.readLine();
+			if (line == null || !line.equals(HEADER)) {
+				throw new IOException("Not an experiment checkpoint: " + file.getPath());
+			}
+			while ((line = in.readLine()) != null) {
+				String[] parts = line.trim().split(" ");
+				if (parts[0].equals("seed")) {
+					checkpoint.seed = Long.parseLong(parts[1]);
+				} else if (parts[0].equals("writer")) {
+					checkpoint.offsets.add(Long.parseLong(parts[1]));
+				} else if (parts[0].equals("finished")) {
+					int runId = Integer.parseInt(parts[1]);
+					for (int i = 2; i < parts.length; i++) {
+						checkpoint.markFinished(runId, Integer.parseInt(parts[i]));
+					}
+				}
+			}
+		} catch (NumberFormatException e) {
+			throw new IOException("Corrupt experiment checkpoint " + file.getPath() + ": " + e.getMessage());
+		} finally {
+			in.close();
+		}
+		return checkpoint;
+	}
+
+	/**
+	 * @return The master seed of the experiment
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	public synchronized void markFinished(int runId, int configId) {
+		BitSet configs = finished.get(runId);
+		if (configs == null) {
+			configs = new BitSet();
+			finished.put(runId, configs);
+		}
+		configs.set(configId);
+	}
+
+	public synchronized boolean isFinished(int runId, int configId) {
+		BitSet configs = finished.get(runId);
+		return configs != null && configs.get(configId);
+	}
+
+	/**
+	 * @param runId The run
+	 * @param configCount The number of configurations played per run
+	 * @return True if the dialogues of all configurations of this run are finished
+	 */
+	public synchronized boolean isRunFinished(int runId, int configCount) {
+		BitSet configs = finished.get(runId);
+		return configs != null && configs.cardinality() >= configCount;
+	}
+
+	/**
+	 * Cuts the output file of some result writer back to the size it had
+	 * when the checkpoint was saved, dropping results of dialogues that
+	 * finished after that (and that will thus be played again).
+	 * @param writer The index of the result writer, in the order they were given
+	 * @param output The writer's output file
+	 * @throws IOException Thrown when the file can not be truncated
+	 */
+	public void truncate(int writer, File output) throws IOException {
+		if (writer >= offsets.size() || offsets.get(writer) < 0 || !output.exists()) {
+			return;
+		}
+		RandomAccessFile raf = new RandomAccessFile(output, "rw");
+		try {
+			raf.setLength(Math.min(raf.length(), offsets.get(writer)));
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Writes the checkpoint, after asking the writers to store their
+	 * results. The checkpoint is written to a temporary file first, so an
+	 * interruption while saving leaves the last checkpoint intact.
+	 * @param writers The result writers of the experiment
+	 * @throws IOException Thrown when the checkpoint can not be written
+	 */
+	public synchronized void save(List<ExperimentResultWriter> writers) throws IOException {
+		File temporary = new File(file.getPath() + ".tmp");
+		PrintWriter out = new PrintWriter(new FileWriter(temporary));
+		try {
+			out.println(HEADER);
+			out.println("seed " + seed);
+			for (ExperimentResultWriter writer : writers) {
+				out.println("writer " + writer.checkpoint());
+			}
+			for (Entry<Integer, BitSet> run : finished.entrySet()) {
+				StringBuilder line = new StringBuilder("finished ").append(run.getKey());
+				BitSet configs = run.getValue();
+				for (int c = configs.nextSetBit(0); c >= 0; c = configs.nextSetBit(c + 1)) {
+					line.append(' ').append(c);
+				}
+				out.println(line);
+			}
+			if (out.checkError()) {
+				throw new IOException("Unable to write experiment checkpoint " + temporary.getPath());
+			}
+		} finally {
+			out.close();
+		}
+		file.delete();
+		if (!temporary.renameTo(file)) {
+			throw new IOException("Unable to replace experiment checkpoint " + file.getPath());
+		}
+	}
+
+}
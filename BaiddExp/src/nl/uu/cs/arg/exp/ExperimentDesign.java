@@ -0,0 +1,34 @@
+package nl.uu.cs.arg.exp;
+
+/**
+ * The designs to choose the configurations of strategy properties that
+ * are played for every scenario of an experiment.
+ * 
+ * @author erickok
+ */
+public enum ExperimentDesign {
+
+	Full {
+		@Override
+		public FactorialDesign create(int factors) { return FactorialDesign.full(factors); }
+	},
+	ResolutionIII {
+		@Override
+		public FactorialDesign create(int factors) { return FactorialDesign.ofResolution(factors, 3); }
+	},
+	ResolutionIV {
+		@Override
+		public FactorialDesign create(int factors) { return FactorialDesign.ofResolution(factors, 4); }
+	},
+	ResolutionV {
+		@Override
+		public FactorialDesign create(int factors) { return FactorialDesign.ofResolution(factors, 5); }
+	};
+
+	/**
+	 * @param factors The number of strategy properties to test
+	 * @return The design over these properties
+	 */
+	public abstract FactorialDesign create(int factors);
+
+}
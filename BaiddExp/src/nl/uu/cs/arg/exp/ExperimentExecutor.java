@@ -0,0 +1,126 @@
+package nl.uu.cs.arg.exp;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nl.uu.cs.arg.exp.result.DialogueStats;
+
+/**
+ * Runs the dialogues of an experiment on a fixed number of worker threads.
+ * Every dialogue is a job that builds its own platform and agents and
+ * returns the statistics of the finished dialogue. The statistics are passed
+ * on to the monitor in the order in which the jobs were submitted, no matter
+ * which job finishes first, so the experiment output does not depend on the
+ * number of threads. With a single thread the jobs are simply run in the
+ * calling thread.
+ *
+ * @author erickok
+ */
+public class ExperimentExecutor {
+
+	private final DialogueMonitor monitor;
+	private final ExecutorService pool;
+	// Bounds the number of jobs that are queued, running or waiting for an earlier job to be reported
+	private final Semaphore pending;
+
+	private final Map<Integer, DialogueStats> finished = new HashMap<Integer, DialogueStats>();
+	private int submitted = 0;
+	private int reported = 0;
+	private final AtomicInteger failed = new AtomicInteger();
+
+	/**
+	 * Creates an executor that reports finished dialogues to some monitor
+	 * @param threads The number of worker threads to run dialogues on
+	 * @param monitor The monitor to receive the dialogue statistics, in job order
+	 */
+	public ExperimentExecutor(int threads, DialogueMonitor monitor) {
+		this.monitor = monitor;
+		if (threads > 1) {
+			this.pool = Executors.newFixedThreadPool(threads);
+			this.pending = new Semaphore(threads * 4);
+		} else {
+			this.pool = null;
+			this.pending = null;
+		}
+	}
+
+	/**
+	 * Schedules a dialogue to be run. Blocks if too many dialogues are waiting
+	 * to be reported already.
+	 * @param job The job that plays a dialogue and returns its statistics, or null if it produced none
+	 */
+	public void submit(final Callable<DialogueStats> job) {
+		final int jobId = submitted++;
+		if (pool == null) {
+			report(jobId, runJob(job));
+			return;
+		}
+		pending.acquireUninterruptibly();
+		pool.execute(new Runnable() {
+			@Override
+			public void run() {
+				report(jobId, runJob(job));
+			}
+		});
+	}
+
+	/**
+	 * Waits for all submitted dialogues to finish and be reported and stops
+	 * the worker threads. Reports how many dialogues failed, if any.
+	 */
+	public void shutdown() {
+		if (pool != null) {
+			pool.shutdown();
+			try {
+				while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+					// Keep waiting; dialogues may take long
+				}
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		if (failed.get() > 0) {
+			System.err.println(failed.get() + " of " + submitted + " dialogues failed and are missing from the results");
+		}
+	}
+
+	/**
+	 * @return The number of dialogues so far that failed with an exception, which have no statistics
+	 */
+	public int getFailedCount() {
+		return failed.get();
+	}
+
+	private DialogueStats runJob(Callable<DialogueStats> job) {
+		try {
+			return job.call();
+		} catch (Exception e) {
+			// Report the failure, but don't let it hold up the results of the other jobs
+			failed.incrementAndGet();
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	private synchronized void report(int jobId, DialogueStats stats) {
+		finished.put(jobId, stats);
+		// Pass on all results for which the earlier jobs are reported already
+		while (finished.containsKey(reported)) {
+			DialogueStats next = finished.remove(reported);
+			if (next != null) {
+				monitor.dialogueTerminated(next);
+			}
+			reported++;
+			if (pending != null) {
+				pending.release();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,213 @@
+package nl.uu.cs.arg.exp;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A two-level design over a number of factors (the strategy properties to
+ * test): the list of configurations to play, each a {@link BitSet} with the
+ * factors that are switched on.
+ *
+ * A fractional design of 2^(k-p) configurations takes a full factorial
+ * over k-p base factors and sets the other p factors to the product (in
+ * -1/+1 coding) of a subset of the base factors. These generators are
+ * chosen such that the design has the requested resolution: in a
+ * resolution III design, main effects are not aliased with each other; in
+ * resolution IV, neither with two-factor interactions; and in resolution
+ * V, two-factor interactions are not aliased with each other either.
+ *
+ * @author erickok
+ */
+public class FactorialDesign {
+
+	private final int factors;
+	private final int baseFactors;
+	private final int[] generators; // Per factor, the set of base factors (as bit mask) of which it is the product
+	private final List<BitSet> configurations;
+
+	private FactorialDesign(int factors, int baseFactors, int[] generators, List<BitSet> configurations) {
+		this.factors = factors;
+		this.baseFactors = baseFactors;
+		this.generators = generators;
+		this.configurations = configurations;
+	}
+
+	/**
+	 * @param factors The number of factors
+	 * @return The full factorial design, with all 2^factors configurations
+	 */
+	public static FactorialDesign full(int factors) {
+		return fractional(factors, factors, new int[0]);
+	}
+
+	/**
+	 * Constructs the smallest regular fractional design of a given
+	 * resolution; if no fraction can reach it, the full design is returned.
+	 * @param factors The number of factors
+	 * @param resolution The minimal resolution, at least 3
+	 * @return The design
+	 */
+	public static FactorialDesign ofResolution(int factors, int resolution) {
+		int base = 0;
+		while ((1 << base) < factors + 1) {
+			base++;
+		}
+		for (; base < factors; base++) {
+			// Candidate generators are interactions of enough base factors, highest order first
+			List<Integer> candidates = new ArrayList<Integer>();
+			for (int mask = (1 << base) - 1; mask > 0; mask--) {
+				if (Integer.bitCount(mask) >= resolution - 1) {
+					candidates.add(mask);
+				}
+			}
+			Collections.sort(candidates, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer a, Integer b) {
+					return Integer.bitCount(b) - Integer.bitCount(a);
+				}
+			});
+			int[] chosen = new int[factors - base];
+			if (chooseGenerators(candidates, 0, chosen, 0, resolution)) {
+				return fractional(factors, base, chosen);
+			}
+		}
+		return full(factors);
+	}
+
+	/**
+	 * Picks generators one by one (backtracking on failure), such that all
+	 * words of the defining relation are at least as long as the resolution.
+	 */
+	private static boolean chooseGenerators(List<Integer> candidates, int from, int[] chosen, int count,
+			int resolution) {
+		if (count == chosen.length) {
+			return true;
+		}
+		for (int c = from; c < candidates.size(); c++) {
+			int generator = candidates.get(c);
+			// The new generator forms a word with every combination of the earlier ones
+			boolean valid = true;
+			for (int subset = 0; subset < (1 << count) && valid; subset++) {
+				int word = generator;
+				for (int i = 0; i < count; i++) {
+					if ((subset & (1 << i)) != 0) {
+						word ^= chosen[i];
+					}
+				}
+				valid = Integer.bitCount(word) + Integer.bitCount(subset) + 1 >= resolution;
+			}
+			if (valid) {
+				chosen[count] = generator;
+				if (chooseGenerators(candidates, c + 1, chosen, count + 1, resolution)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static FactorialDesign fractional(int factors, int base, int[] extra) {
+		int[] generators = new int[factors];
+		for (int f = 0; f < factors; f++) {
+			generators[f] = f < base ? 1 << f : extra[f - base];
+		}
+		List<BitSet> configurations = new ArrayList<BitSet>();
+		for (int run = 0; run < (1 << base); run++) {
+			BitSet config = new BitSet(factors);
+			for (int f = 0; f < factors; f++) {
+				// A factor is on (+1) if an even number of its base factors is off (-1)
+				if (Integer.bitCount(generators[f] & ~run) % 2 == 0) {
+					config.set(f);
+				}
+			}
+			configurations.add(config);
+		}
+		return new FactorialDesign(factors, base, generators, configurations);
+	}
+
+	/**
+	 * Reads a design matrix from a text file, with one configuration per
+	 * line and one character per factor: + or 1 for on and - or 0 for off.
+	 * Whitespace is ignored, as are empty lines and lines starting with #.
+	 * @param file The design matrix file
+	 * @param factors The number of factors every configuration should have
+	 * @return The design
+	 * @throws IOException Thrown when the file can not be read or is not a valid design matrix
+	 */
+	public static FactorialDesign load(File file, int factors) throws IOException {
+		List<BitSet> configurations = new ArrayList<BitSet>();
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				line = line.replaceAll("\\s", "");
+				if (line.length() == 0 || line.startsWith("#")) {
+					continue;
+				}
+				if (line.length() != factors) {
+					throw new IOException("Design matrix row '" + line + "' does not have " + factors + " factors");
+				}
+				BitSet config = new BitSet(factors);
+				for (int f = 0; f < factors; f++) {
+					char level = line.charAt(f);
+					if (level == '+' || level == '1') {
+						config.set(f);
+					} else if (level != '-' && level != '0') {
+						throw new IOException("Invalid level '" + level + "' in design matrix row '" + line + "'");
+					}
+				}
+				configurations.add(config);
+			}
+		} finally {
+			in.close();
+		}
+		if (configurations.isEmpty()) {
+			throw new IOException("Design matrix " + file.getPath() + " has no rows");
+		}
+		return new FactorialDesign(factors, -1, null, configurations);
+	}
+
+	/**
+	 * @return The configurations to play, in the order of their configuration numbers
+	 */
+	public List<BitSet> getConfigurations() {
+		return configurations;
+	}
+
+	/**
+	 * Describes the design and how its factors are generated, from which
+	 * the aliasing of the effects follows
+	 * @param names The names of the factors
+	 * @return A readable description, e.g. 'PlayRejects = AdoptBeliefs * BuildMaxDestroyMin'
+	 */
+	public String describe(List<String> names) {
+		if (generators == null) {
+			return "Design matrix of " + configurations.size() + " configurations over " + factors + " factors";
+		}
+		if (baseFactors == factors) {
+			return "Full factorial design of " + configurations.size() + " configurations over " + factors
+					+ " factors";
+		}
+		StringBuilder description = new StringBuilder("Fractional factorial design of " + configurations.size()
+				+ " configurations over " + factors + " factors, generated by");
+		for (int f = baseFactors; f < factors; f++) {
+			description.append("\n\t").append(names.get(f)).append(" =");
+			String operator = " ";
+			for (int b = 0; b < baseFactors; b++) {
+				if ((generators[f] & (1 << b)) != 0) {
+					description.append(operator).append(names.get(b));
+					operator = " * ";
+				}
+			}
+		}
+		return description.toString();
+	}
+
+}
@@ -0,0 +1,203 @@
+package nl.uu.cs.arg.exp.result;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * An experiment result writer that does not store the individual dialogue
+ * statistics, but keeps running statistics of the dialogue metrics per
+ * configuration of the strategy properties, in constant memory. A summary
+ * table with means, 95% confidence intervals and quantiles is (re)written
+ * to the output file every {@link #REPORT_INTERVAL} dialogues and when the
+ * experiment finishes, at which point it is also printed to the console.
+ *
+ * Below the summary, the estimated main effects of the tested strategy
+ * properties and their two-factor interactions are given for every
+ * metric: the mean over the configurations where the effect's contrast is
+ * +1 minus the mean over those where it is -1. With a fractional design,
+ * effects that are aliased with each other share the same estimate.
+ *
+ * The running statistics are not stored in the experiment checkpoint, so an
+ * experiment with this output can not be resumed.
+ *
+ * @author erickok
+ */
+public class AggregatingResultWriter implements ExperimentResultWriter {
+
+	public static final int REPORT_INTERVAL = 100;
+	private static final String LINE_SEPARATOR = "\n";
+	private static final String COLUMN_SEPARATOR = ";";
+
+	private File outFile;
+	private List<String> strategyPropertiesToTest = null;
+	private final Map<Integer, ConfigurationSummary> summaries = new TreeMap<Integer, ConfigurationSummary>();
+	private int unreported = 0;
+
+	@Override
+	public void initialise(File file, boolean append) throws IOException {
+		this.outFile = file;
+		if (outFile.getParentFile() != null) {
+			outFile.getParentFile().mkdirs();
+		}
+	}
+
+	@Override
+	public void setStrategyPropertiesOutput(List<String> strategyPropertiesToTest) {
+		this.strategyPropertiesToTest = strategyPropertiesToTest;
+	}
+
+	@Override
+	public synchronized void writeResult(DialogueStats stats) throws IOException {
+		ConfigurationSummary summary = summaries.get(stats.configId);
+		if (summary == null) {
+			summary = new ConfigurationSummary(stats.configId, label(stats), levels(stats));
+			summaries.put(stats.configId, summary);
+		}
+		summary.add(stats);
+		unreported++;
+		if (unreported >= REPORT_INTERVAL) {
+			writeSummary();
+		}
+	}
+
+	/**
+	 * @return The summaries of the configurations that dialogues were reported for so far, by configuration number
+	 */
+	public synchronized List<ConfigurationSummary> getSummaries() {
+		return new ArrayList<ConfigurationSummary>(summaries.values());
+	}
+
+	private String label(DialogueStats stats) {
+		StringBuilder label = new StringBuilder();
+		if (strategyPropertiesToTest != null && stats.stratprops != null) {
+			for (Entry<String, Object> p : stats.stratprops.entrySet()) {
+				if (strategyPropertiesToTest.contains(p.getKey())) {
+					if (label.length() > 0) {
+						label.append(' ');
+					}
+					label.append(p.getKey()).append('=').append(p.getValue());
+				}
+			}
+		}
+		return label.toString();
+	}
+
+	private Map<String, Boolean> levels(DialogueStats stats) {
+		Map<String, Boolean> levels = new HashMap<String, Boolean>();
+		if (strategyPropertiesToTest != null && stats.stratprops != null) {
+			for (Entry<String, Object> p : stats.stratprops.entrySet()) {
+				if (strategyPropertiesToTest.contains(p.getKey())) {
+					levels.put(p.getKey(), Boolean.valueOf(p.getValue().toString()));
+				}
+			}
+		}
+		return levels;
+	}
+
+	private void writeSummary() throws IOException {
+		FileWriter out = new FileWriter(outFile, false);
+		try {
+			writeTable(out);
+		} finally {
+			out.close();
+		}
+		unreported = 0;
+	}
+
+	private void writeTable(Writer out) throws IOException {
+		String[] header = { "Config", "Properties", "Metric", "n", "mean", "sd", "ci95_low", "ci95_high", "min",
+				"p05", "median", "p95", "max" };
+		for (String h : header) {
+			out.write(h);
+			out.write(COLUMN_SEPARATOR);
+		}
+		out.write(LINE_SEPARATOR);
+		for (ConfigurationSummary summary : summaries.values()) {
+			for (DialogueMetric metric : DialogueMetric.values()) {
+				RunningStatistic s = summary.get(metric);
+				double halfWidth = s.getHalfWidth();
+				Object[] row = { summary.getConfigId(), summary.getLabel(), metric.name(), s.getCount(), s.getMean(),
+						s.getStandardDeviation(), s.getMean() - halfWidth, s.getMean() + halfWidth, s.getMin(),
+						s.getP05(), s.getMedian(), s.getP95(), s.getMax() };
+				for (Object value : row) {
+					if (!(value instanceof Double) || !((Double) value).isNaN()) {
+						out.write(value.toString());
+					}
+					out.write(COLUMN_SEPARATOR);
+				}
+				out.write(LINE_SEPARATOR);
+			}
+		}
+		if (strategyPropertiesToTest != null && !strategyPropertiesToTest.isEmpty()) {
+			out.write(LINE_SEPARATOR);
+			writeEffects(out);
+		}
+	}
+
+	private void writeEffects(Writer out) throws IOException {
+		// The main effects and all two-factor interactions
+		List<String[]> effects = new ArrayList<String[]>();
+		for (int i = 0; i < strategyPropertiesToTest.size(); i++) {
+			effects.add(new String[] { strategyPropertiesToTest.get(i) });
+			for (int j = 0; j < i; j++) {
+				effects.add(new String[] { strategyPropertiesToTest.get(j), strategyPropertiesToTest.get(i) });
+			}
+		}
+		out.write("Metric" + COLUMN_SEPARATOR + "Effect" + COLUMN_SEPARATOR + "estimate" + COLUMN_SEPARATOR
+				+ LINE_SEPARATOR);
+		for (DialogueMetric metric : DialogueMetric.values()) {
+			for (String[] effect : effects) {
+				double high = 0, low = 0;
+				int highCount = 0, lowCount = 0;
+				for (ConfigurationSummary summary : summaries.values()) {
+					double mean = summary.get(metric).getMean();
+					if (Double.isNaN(mean)) {
+						continue;
+					}
+					boolean positive = true;
+					for (String property : effect) {
+						positive ^= !summary.isOn(property);
+					}
+					if (positive) {
+						high += mean;
+						highCount++;
+					} else {
+						low += mean;
+						lowCount++;
+					}
+				}
+				if (highCount == 0 || lowCount == 0) {
+					continue;
+				}
+				out.write(metric.name() + COLUMN_SEPARATOR + (effect.length == 1 ? effect[0] : effect[0] + ":"
+						+ effect[1]) + COLUMN_SEPARATOR + (high / highCount - low / lowCount) + COLUMN_SEPARATOR
+						+ LINE_SEPARATOR);
+			}
+		}
+	}
+
+	@Override
+	public synchronized long checkpoint() throws IOException {
+		writeSummary();
+		// The summary is rewritten as a whole, so it can not be cut back; resuming with it is refused
+		return -1;
+	}
+
+	@Override
+	public synchronized void finalise() throws IOException {
+		writeSummary();
+		StringWriter table = new StringWriter();
+		writeTable(table);
+		System.out.println(table.toString());
+	}
+
+}
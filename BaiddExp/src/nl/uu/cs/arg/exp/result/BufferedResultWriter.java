@@ -0,0 +1,179 @@
+package nl.uu.cs.arg.exp.result;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes results through another experiment result writer on a background
+ * thread, so that the dialogue threads never wait for the output (unless
+ * a lot of results are waiting to be written already). Results are
+ * collected in memory and handed to the wrapped writer in batches, in the
+ * order in which they were received.
+ *
+ * A shutdown hook makes sure the collected results are written and the
+ * wrapped writer is finalised when the application exits before the
+ * experiment finalised its writers, for example when it is interrupted.
+ *
+ * @author erickok
+ */
+public class BufferedResultWriter implements ExperimentResultWriter {
+
+	// The number of results that may wait to be written before writeResult() blocks
+	private static final int MAX_WAITING = 4096;
+
+	private final ExperimentResultWriter writer;
+	private final List<DialogueStats> waiting = new ArrayList<DialogueStats>();
+	private boolean writing = false;
+	private boolean closed = false;
+	private IOException failure = null;
+	private Thread worker;
+	private Thread shutdownHook;
+
+	/**
+	 * @param writer The writer that does the actual writing of results
+	 */
+	public BufferedResultWriter(ExperimentResultWriter writer) {
+		this.writer = writer;
+	}
+
+	@Override
+	public void initialise(File file, boolean append) throws IOException {
+		writer.initialise(file, append);
+		worker = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeBatches();
+			}
+		}, "Result writer");
+		worker.setDaemon(true);
+		worker.start();
+		shutdownHook = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	@Override
+	public void setStrategyPropertiesOutput(List<String> strategyPropertiesToTest) {
+		writer.setStrategyPropertiesOutput(strategyPropertiesToTest);
+	}
+
+	@Override
+	public synchronized void writeResult(DialogueStats stats) throws IOException {
+		throwFailure();
+		while (waiting.size() >= MAX_WAITING && failure == null) {
+			await();
+		}
+		waiting.add(stats);
+		notifyAll();
+	}
+
+	/**
+	 * Waits for all results to be written by the wrapped writer and then
+	 * checkpoints that writer.
+	 */
+	@Override
+	public long checkpoint() throws IOException {
+		drain();
+		synchronized (writer) {
+			return writer.checkpoint();
+		}
+	}
+
+	@Override
+	public void finalise() throws IOException {
+		close();
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException e) {
+			// Already shutting down, in which case the hook will find this writer closed
+		}
+	}
+
+	private void close() throws IOException {
+		drain();
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			notifyAll();
+		}
+		try {
+			worker.join();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+		synchronized (writer) {
+			writer.finalise();
+		}
+	}
+
+	private synchronized void drain() throws IOException {
+		while ((!waiting.isEmpty() || writing) && failure == null) {
+			await();
+		}
+		throwFailure();
+	}
+
+	private void writeBatches() {
+		while (true) {
+			List<DialogueStats> batch;
+			synchronized (this) {
+				while (waiting.isEmpty() && !closed) {
+					await();
+				}
+				if (waiting.isEmpty()) {
+					return;
+				}
+				batch = new ArrayList<DialogueStats>(waiting);
+				waiting.clear();
+				writing = true;
+				// Writers of new results may continue
+				notifyAll();
+			}
+			IOException e = null;
+			synchronized (writer) {
+				try {
+					for (DialogueStats stats : batch) {
+						writer.writeResult(stats);
+					}
+				} catch (IOException ex) {
+					e = ex;
+				}
+			}
+			synchronized (this) {
+				writing = false;
+				if (e != null && failure == null) {
+					failure = e;
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	private void await() {
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for the result writer");
+		}
+	}
+
+	private void throwFailure() throws IOException {
+		if (failure != null) {
+			throw new IOException("Writing results failed: " + failure.getMessage());
+		}
+	}
+
+}
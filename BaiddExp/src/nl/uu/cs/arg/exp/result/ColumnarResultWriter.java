@@ -0,0 +1,224 @@
+package nl.uu.cs.arg.exp.result;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * An experiment result writer that stores the dialogue statistics in a
+ * compact binary file, organised in columns rather than rows. It holds the
+ * same values as the {@link CsvResultWriter}, but numbers are stored in
+ * their binary form and values of the same column are stored together,
+ * which keeps the files small and fast to load for analysis.
+ *
+ * The file starts with a header: the magic number 0x42444331 ('BDC1'), the
+ * number of columns and for every column its name (as modified UTF-8) and
+ * its type byte. It is followed by blocks of at most {@link #BLOCK_ROWS}
+ * rows. Every block starts with its number of rows, followed by the values
+ * of the first column for all rows, then those of the second column, etc.
+ * Values are written as by {@link DataOutputStream}; missing values are
+ * stored as Integer.MIN_VALUE, Long.MIN_VALUE, Float.NaN, the byte -1 (for
+ * booleans) or the empty string. Since most string columns hold the same
+ * few values, the strings of a block are written as a dictionary (the
+ * number of distinct strings and the strings themselves) followed by a
+ * short index into that dictionary for every row.
+ *
+ * All rows have the same columns. The total utility of the options that
+ * the agents know when the dialogue ends is therefore stored in the single
+ * string column e_total^all, as the totals in option order separated by
+ * commas, since the number of known options varies between dialogues.
+ *
+ * Blocks are only written when full, at a checkpoint or when the writer is
+ * finalised, so the file always ends at a block boundary after those.
+ *
+ * @author erickok
+ */
+public class ColumnarResultWriter implements ExperimentResultWriter {
+
+	public static final int MAGIC = 0x42444331;
+	public static final int BLOCK_ROWS = 1024;
+
+	public static final byte TYPE_INT = 0;
+	public static final byte TYPE_LONG = 1;
+	public static final byte TYPE_FLOAT = 2;
+	public static final byte TYPE_BOOLEAN = 3;
+	public static final byte TYPE_STRING = 4;
+
+	private File outFile;
+	private FileOutputStream fileOut;
+	private DataOutputStream out;
+	private boolean headerWritten;
+	private List<String> strategyPropertiesToTest = null;
+
+	private List<Byte> types = null;
+	private final List<Object[]> block = new ArrayList<Object[]>();
+
+	@Override
+	public void initialise(File file, boolean append) throws IOException {
+		this.outFile = file;
+		if (outFile.getParentFile() != null) {
+			outFile.getParentFile().mkdirs();
+		}
+		headerWritten = outFile.exists() && outFile.length() > 0 && append;
+		fileOut = new FileOutputStream(outFile, append);
+		out = new DataOutputStream(new BufferedOutputStream(fileOut, 64 * 1024));
+	}
+
+	@Override
+	public void setStrategyPropertiesOutput(List<String> strategyPropertiesToTest) {
+		this.strategyPropertiesToTest = strategyPropertiesToTest;
+	}
+
+	@Override
+	public void writeResult(DialogueStats stats) throws IOException {
+
+		// The columns are only known from the first result (just as the CSV header)
+		List<String> names = new ArrayList<String>();
+		List<Byte> rowTypes = new ArrayList<Byte>();
+		List<Object> row = new ArrayList<Object>();
+		column(names, rowTypes, row, "ID", TYPE_INT, stats.id);
+		column(names, rowTypes, row, "File", TYPE_STRING, outFile.getParentFile() == null ? "" : outFile
+				.getParentFile().getName());
+		column(names, rowTypes, row, "Config", TYPE_INT, stats.configId);
+		column(names, rowTypes, row, "Strategy", TYPE_STRING, stats.agentStrategy);
+		column(names, rowTypes, row, "OutcomeRule", TYPE_STRING, stats.settings.getOutcomeSelectionRule().name());
+		column(names, rowTypes, row, "Date", TYPE_LONG, stats.date.getTime());
+		column(names, rowTypes, row, "Seed", TYPE_LONG, stats.seed);
+		column(names, rowTypes, row, "Runtime", TYPE_LONG, stats.runtime);
+		if (stats.parameters != null) {
+			for (Entry<String, String> p : stats.parameters.entrySet()) {
+				column(names, rowTypes, row, p.getKey(), TYPE_STRING, p.getValue());
+			}
+		}
+		column(names, rowTypes, row, "O", TYPE_STRING, stats.o == null ? "" : stats.o.inspect());
+		if (strategyPropertiesToTest != null && stats.stratprops != null) {
+			for (Entry<String, Object> p : stats.stratprops.entrySet()) {
+				if (strategyPropertiesToTest.contains(p.getKey())) {
+					column(names, rowTypes, row, p.getKey(), TYPE_BOOLEAN, Boolean.valueOf(p.getValue().toString()));
+				}
+			}
+		}
+		column(names, rowTypes, row, "e_move", TYPE_INT, stats.e_moves);
+		column(names, rowTypes, row, "e_relevance^strong", TYPE_FLOAT, stats.e_strongrelevance);
+		column(names, rowTypes, row, "e_concealment", TYPE_FLOAT, stats.e_concealment);
+		column(names, rowTypes, row, "e_total^avg", TYPE_FLOAT, stats.e_total_avg);
+		column(names, rowTypes, row, "e_total^avg_in", TYPE_FLOAT, stats.e_total_in_avg);
+		column(names, rowTypes, row, "e_total^o", TYPE_INT, stats.e_total_o);
+		column(names, rowTypes, row, "e_pareto^o", TYPE_BOOLEAN, stats.e_pareto_o);
+		StringBuilder totals = new StringBuilder();
+		for (Integer total : stats.e_totalutility.values()) {
+			if (totals.length() > 0) {
+				totals.append(',');
+			}
+			totals.append(total);
+		}
+		column(names, rowTypes, row, "e_total^all", TYPE_STRING, totals.toString());
+
+		if (types == null) {
+			types = rowTypes;
+			if (!headerWritten) {
+				writeHeader(names);
+			}
+		} else if (!types.equals(rowTypes)) {
+			throw new IOException("Dialogue " + stats.id + " has different columns than the earlier dialogues");
+		}
+
+		block.add(row.toArray());
+		if (block.size() >= BLOCK_ROWS) {
+			writeBlock();
+		}
+
+	}
+
+	private void column(List<String> names, List<Byte> types, List<Object> row, String name, byte type, Object value) {
+		names.add(name);
+		types.add(type);
+		row.add(value);
+	}
+
+	private void writeHeader(List<String> names) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(names.size());
+		for (int c = 0; c < names.size(); c++) {
+			out.writeUTF(names.get(c));
+			out.writeByte(types.get(c));
+		}
+		headerWritten = true;
+	}
+
+	private void writeBlock() throws IOException {
+		if (block.isEmpty()) {
+			return;
+		}
+		out.writeInt(block.size());
+		for (int c = 0; c < types.size(); c++) {
+			byte type = types.get(c);
+			if (type == TYPE_STRING) {
+				writeDictionary(c);
+				continue;
+			}
+			for (Object[] row : block) {
+				writeValue(type, row[c]);
+			}
+		}
+		block.clear();
+	}
+
+	private void writeDictionary(int column) throws IOException {
+		Map<String, Integer> dictionary = new LinkedHashMap<String, Integer>();
+		for (Object[] row : block) {
+			String value = row[column] == null ? "" : row[column].toString();
+			if (!dictionary.containsKey(value)) {
+				dictionary.put(value, dictionary.size());
+			}
+		}
+		out.writeInt(dictionary.size());
+		for (String value : dictionary.keySet()) {
+			out.writeUTF(value);
+		}
+		for (Object[] row : block) {
+			out.writeShort(dictionary.get(row[column] == null ? "" : row[column].toString()));
+		}
+	}
+
+	private void writeValue(byte type, Object value) throws IOException {
+		switch (type) {
+		case TYPE_INT:
+			out.writeInt(value == null ? Integer.MIN_VALUE : (Integer) value);
+			break;
+		case TYPE_LONG:
+			out.writeLong(value == null ? Long.MIN_VALUE : (Long) value);
+			break;
+		case TYPE_FLOAT:
+			out.writeFloat(value == null ? Float.NaN : (Float) value);
+			break;
+		default:
+			out.writeByte(value == null ? -1 : ((Boolean) value ? 1 : 0));
+		}
+	}
+
+	@Override
+	public long checkpoint() throws IOException {
+		writeBlock();
+		out.flush();
+		return fileOut.getChannel().position();
+	}
+
+	@Override
+	public void finalise() throws IOException {
+		if (out != null) {
+			if (types != null) {
+				writeBlock();
+			}
+			out.close();
+		}
+	}
+
+}
@@ -0,0 +1,69 @@
+package nl.uu.cs.arg.exp.result;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The running statistics of all dialogue metrics for the dialogues played
+ * with one configuration of the strategy properties.
+ *
+ * @author erickok
+ */
+public class ConfigurationSummary {
+
+	private final int configId;
+	private final String label;
+	private final Map<String, Boolean> levels;
+	private final Map<DialogueMetric, RunningStatistic> statistics = new EnumMap<DialogueMetric, RunningStatistic>(
+			DialogueMetric.class);
+
+	/**
+	 * @param configId The configuration number
+	 * @param label A readable description of the configuration, such as its strategy property values
+	 */
+	public ConfigurationSummary(int configId, String label) {
+		this(configId, label, new HashMap<String, Boolean>());
+	}
+
+	/**
+	 * @param configId The configuration number
+	 * @param label A readable description of the configuration, such as its strategy property values
+	 * @param levels Whether each of the tested strategy properties is on in this configuration
+	 */
+	public ConfigurationSummary(int configId, String label, Map<String, Boolean> levels) {
+		this.configId = configId;
+		this.label = label;
+		this.levels = levels;
+		for (DialogueMetric metric : DialogueMetric.values()) {
+			statistics.put(metric, new RunningStatistic());
+		}
+	}
+
+	public void add(DialogueStats stats) {
+		for (Map.Entry<DialogueMetric, RunningStatistic> s : statistics.entrySet()) {
+			s.getValue().add(s.getKey().value(stats));
+		}
+	}
+
+	public int getConfigId() {
+		return configId;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * @param property The name of a tested strategy property
+	 * @return True if the property is on in this configuration
+	 */
+	public boolean isOn(String property) {
+		return Boolean.TRUE.equals(levels.get(property));
+	}
+
+	public RunningStatistic get(DialogueMetric metric) {
+		return statistics.get(metric);
+	}
+
+}
@@ -35,6 +35,12 @@ public class ConsoleResultWriter implements ExperimentResultWriter {
 
 		System.out.println("Run ID: " + stats.id);
 		System.out.println("Date: " + stats.date.toString());
+		if (stats.seed != null) {
+			System.out.println("Seed: " + stats.seed);
+		}
+		if (stats.parameters != null) {
+			System.out.println("Scenario: " + stats.parameters);
+		}
 		System.out.println(stats.dialogue.prettyPrint());
 		for (Entry<Participant, Map<Constant, Integer>> p : stats.utilities.entrySet()) {
 			for (Entry<Constant, Integer> q : p.getValue().entrySet()) {
@@ -73,6 +79,12 @@ public class ConsoleResultWriter implements ExperimentResultWriter {
 		
 	}
 
+	@Override
+	public long checkpoint() throws IOException {
+		// Console output can not be resumed
+		return -1;
+	}
+
 	@Override
 	public void finalise() throws IOException {
 	}
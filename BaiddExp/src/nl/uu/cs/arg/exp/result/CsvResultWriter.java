@@ -1,8 +1,10 @@
 package nl.uu.cs.arg.exp.result;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 import java.util.Map.Entry;
 
@@ -25,7 +27,7 @@ public class CsvResultWriter implements ExperimentResultWriter {
 	private static final String COLUMN_SEPARATOR = ";";
 	
 	private File outFile;
-	private FileWriter outWriter;
+	private Writer outWriter;
 	private boolean headerWritten;
 	private List<String> strategyPropertiesToTest = null;
 	
@@ -34,7 +36,7 @@ public class CsvResultWriter implements ExperimentResultWriter {
 		this.outFile = file;
 		
 		// Empty or create the requested file for output
-		headerWritten = outFile.exists() && append;
+		headerWritten = outFile.exists() && outFile.length() > 0 && append;
 		if (outFile.exists() && !append) {
 			outFile.delete();
 		}
@@ -46,7 +48,17 @@ public class CsvResultWriter implements ExperimentResultWriter {
 		}
 		
 		// Create write handle
-		outWriter = new FileWriter(outFile, append);
+		outWriter = openWriter(outFile, append);
+	}
+
+	/**
+	 * Opens the character stream to write the CSV text to
+	 * @param file The output file, which exists already
+	 * @param append Whether to add to the existing file contents
+	 * @return The writer to the file
+	 */
+	protected Writer openWriter(File file, boolean append) throws IOException {
+		return new BufferedWriter(new FileWriter(file, append));
 	}
 
 	@Override
@@ -66,6 +78,13 @@ public class CsvResultWriter implements ExperimentResultWriter {
 			//w("Distribution");
 			w("OutcomeRule");
 			w("Date");
+			w("Seed");
+			w("Runtime");
+			if (stats.parameters != null) {
+				for (String p : stats.parameters.keySet()) {
+					w(p);
+				}
+			}
 			w("O");
 			
 			if (strategyPropertiesToTest != null && stats.stratprops != null) {
@@ -105,6 +124,13 @@ public class CsvResultWriter implements ExperimentResultWriter {
 		//w(stats.distribution.id);
 		w(stats.settings.getOutcomeSelectionRule().name());
 		w(stats.date.toString());
+		w(stats.seed == null? "": Long.toString(stats.seed));
+		w(stats.runtime == null? "": Long.toString(stats.runtime));
+		if (stats.parameters != null) {
+			for (String p : stats.parameters.values()) {
+				w(p);
+			}
+		}
 		w((stats.o == null? "": stats.o.inspect()));
 		
 		if (strategyPropertiesToTest != null && stats.stratprops != null) {
@@ -153,6 +179,12 @@ public class CsvResultWriter implements ExperimentResultWriter {
 		outWriter.write(LINE_SEPARATOR);
 	}
 	
+	@Override
+	public long checkpoint() throws IOException {
+		outWriter.flush();
+		return outFile.length();
+	}
+	
 	@Override
 	public void finalise() throws IOException {
 		// Close any connection to the output file
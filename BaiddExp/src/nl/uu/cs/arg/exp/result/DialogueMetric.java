@@ -0,0 +1,49 @@
+package nl.uu.cs.arg.exp.result;
+
+/**
+ * The evaluation metrics of a dialogue that can be aggregated over many
+ * dialogues, each reading its value from the {@link DialogueStats}.
+ *
+ * @author erickok
+ */
+public enum DialogueMetric {
+
+	Moves {
+		@Override
+		public Number value(DialogueStats stats) { return stats.e_moves; }
+	},
+	Relevance {
+		@Override
+		public Number value(DialogueStats stats) { return stats.e_strongrelevance; }
+	},
+	Concealment {
+		@Override
+		public Number value(DialogueStats stats) { return stats.e_concealment; }
+	},
+	TotalAvg {
+		@Override
+		public Number value(DialogueStats stats) { return stats.e_total_avg; }
+	},
+	TotalInAvg {
+		@Override
+		public Number value(DialogueStats stats) { return stats.e_total_in_avg; }
+	},
+	TotalOutcome {
+		@Override
+		public Number value(DialogueStats stats) { return stats.e_total_o; }
+	},
+	ParetoOutcome {
+		@Override
+		public Number value(DialogueStats stats) {
+			// As 0 or 1, so the mean is the fraction of Pareto optimal outcomes
+			return stats.e_pareto_o == null ? null : (stats.e_pareto_o ? 1 : 0);
+		}
+	};
+
+	/**
+	 * @param stats The statistics of a finished dialogue
+	 * @return The value of this metric for the dialogue, or null if it has none (e.g. when there was no outcome)
+	 */
+	public abstract Number value(DialogueStats stats);
+
+}
@@ -18,6 +18,12 @@ public class DialogueStats {
 	public final Date date;
 	//public final Distribution distribution;
 	public final Settings settings;
+	// The master seed of the experiment, with which this dialogue can be repeated
+	public Long seed;
+	// The time it took to set up and play the dialogue, in ms
+	public Long runtime;
+	// The scenario generation parameters, if they were varied in the experiment
+	public Map<String, String> parameters;
 
 	public Map<Constant, Participant> publicbeliefs;
 	public Map<Participant, Integer> otherbeliefsCount;
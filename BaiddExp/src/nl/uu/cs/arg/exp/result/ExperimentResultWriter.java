@@ -17,6 +17,12 @@ public interface ExperimentResultWriter {
 	public abstract void initialise(File file, boolean append) throws IOException;	
 	public abstract void setStrategyPropertiesOutput(List<String> strategyPropertiesToTest);
 	public abstract void writeResult(DialogueStats stats) throws IOException;
+	/**
+	 * Makes sure all results written so far are stored in the output
+	 * @return The size of the output holding these results, to which the output file is cut back when an experiment is
+	 *         resumed, or -1 if the output can not be resumed
+	 */
+	public abstract long checkpoint() throws IOException;
 	public abstract void finalise() throws IOException;	
 	
 }
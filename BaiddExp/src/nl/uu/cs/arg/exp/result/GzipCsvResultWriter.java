@@ -0,0 +1,61 @@
+package nl.uu.cs.arg.exp.result;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A CSV result writer that compresses its output with gzip. The rows are
+ * the same as those of the {@link CsvResultWriter}.
+ *
+ * Every checkpoint ends the current gzip member and starts a new one in
+ * the same file. Standard gzip tools read such concatenated members as one
+ * stream, and the file can be cut back to the size at any checkpoint
+ * (or appended to) without corrupting it.
+ *
+ * @author erickok
+ */
+public class GzipCsvResultWriter extends CsvResultWriter {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private FileOutputStream fileOut;
+	private GZIPOutputStream member;
+
+	@Override
+	protected Writer openWriter(File file, boolean append) throws IOException {
+		fileOut = new FileOutputStream(file, append);
+		member = new GZIPOutputStream(fileOut, BUFFER_SIZE);
+		// Write through the current member, which is replaced on every checkpoint
+		return new BufferedWriter(new OutputStreamWriter(new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				member.write(b);
+			}
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				member.write(b, off, len);
+			}
+			@Override
+			public void close() throws IOException {
+				member.close();
+			}
+		}, "UTF-8"), BUFFER_SIZE);
+	}
+
+	@Override
+	public long checkpoint() throws IOException {
+		// Compress all text written so far and close off the member
+		super.checkpoint();
+		member.finish();
+		long size = fileOut.getChannel().position();
+		member = new GZIPOutputStream(fileOut, BUFFER_SIZE);
+		return size;
+	}
+
+}
@@ -26,6 +26,24 @@ public enum LocalExperimentWriter {
 		public ExperimentResultWriter create() { return new CsvResultWriter(); }
 		@Override
 		public boolean needsFile() { return true; }
+	},
+	CsvGz {
+		@Override
+		public ExperimentResultWriter create() { return new BufferedResultWriter(new GzipCsvResultWriter()); }
+		@Override
+		public boolean needsFile() { return true; }
+	},
+	Columnar {
+		@Override
+		public ExperimentResultWriter create() { return new BufferedResultWriter(new ColumnarResultWriter()); }
+		@Override
+		public boolean needsFile() { return true; }
+	},
+	Summary {
+		@Override
+		public ExperimentResultWriter create() { return new AggregatingResultWriter(); }
+		@Override
+		public boolean needsFile() { return true; }
 	};
 	
 	public abstract ExperimentResultWriter create();
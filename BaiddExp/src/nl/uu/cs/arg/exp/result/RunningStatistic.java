@@ -0,0 +1,215 @@
+package nl.uu.cs.arg.exp.result;
+
+import java.util.Arrays;
+
+/**
+ * Summarises a stream of observations in constant memory: the count, mean
+ * and variance (using Welford's method), the extremes and estimates of a
+ * few quantiles (using the P-square algorithm of Jain and Chlamtac, which
+ * keeps only five markers per quantile).
+ *
+ * @author erickok
+ */
+public class RunningStatistic {
+
+	private long count = 0;
+	private double mean = 0;
+	private double squares = 0; // Sum of squared differences from the mean
+	private double min = Double.NaN;
+	private double max = Double.NaN;
+	private final QuantileEstimate p05 = new QuantileEstimate(0.05);
+	private final QuantileEstimate median = new QuantileEstimate(0.5);
+	private final QuantileEstimate p95 = new QuantileEstimate(0.95);
+
+	/**
+	 * Adds an observation; missing (null or NaN) values are ignored
+	 * @param value The observed value
+	 */
+	public void add(Number value) {
+		if (value == null || Double.isNaN(value.doubleValue())) {
+			return;
+		}
+		double x = value.doubleValue();
+		count++;
+		double delta = x - mean;
+		mean += delta / count;
+		squares += delta * (x - mean);
+		if (count == 1 || x < min) {
+			min = x;
+		}
+		if (count == 1 || x > max) {
+			max = x;
+		}
+		p05.add(x);
+		median.add(x);
+		p95.add(x);
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return count == 0 ? Double.NaN : mean;
+	}
+
+	/**
+	 * @return The sample variance, or NaN if there are fewer than two observations
+	 */
+	public double getVariance() {
+		return count < 2 ? Double.NaN : squares / (count - 1);
+	}
+
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	public double getP05() {
+		return p05.get();
+	}
+
+	public double getMedian() {
+		return median.get();
+	}
+
+	public double getP95() {
+		return p95.get();
+	}
+
+	/**
+	 * @return Half the width of the 95% confidence interval of the mean (using Student's t distribution), or NaN if
+	 *         there are fewer than two observations
+	 */
+	public double getHalfWidth() {
+		if (count < 2) {
+			return Double.NaN;
+		}
+		return studentT975(count - 1) * getStandardDeviation() / Math.sqrt(count);
+	}
+
+	// The 97.5% quantiles of Student's t distribution for 1 to 30 degrees of freedom
+	private static final double[] T975 = { 12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+			2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069, 2.064, 2.060,
+			2.056, 2.052, 2.048, 2.045, 2.042 };
+
+	/**
+	 * Gives the 97.5% quantile of Student's t distribution, from a table for
+	 * few degrees of freedom or else using the expansion around the normal
+	 * quantile (which is accurate to four decimals from there on)
+	 */
+	private static double studentT975(long df) {
+		if (df <= T975.length) {
+			return T975[(int) df - 1];
+		}
+		final double z = 1.959964;
+		double z3 = z * z * z;
+		double z5 = z3 * z * z;
+		return z + (z3 + z) / (4 * df) + (5 * z5 + 16 * z3 + 3 * z) / (96 * df * df);
+	}
+
+	/**
+	 * A P-square estimate of a single quantile.
+	 */
+	private static class QuantileEstimate {
+
+		private final double p;
+		private final double[] heights = new double[5];
+		private final int[] positions = new int[5];
+		private final double[] desired = new double[5];
+		private final double[] increments;
+		private int count = 0;
+
+		public QuantileEstimate(double p) {
+			this.p = p;
+			this.increments = new double[] { 0, p / 2, p, (1 + p) / 2, 1 };
+		}
+
+		public void add(double x) {
+			if (count < 5) {
+				// Collect the first five observations as initial markers
+				heights[count++] = x;
+				if (count == 5) {
+					Arrays.sort(heights);
+					for (int i = 0; i < 5; i++) {
+						positions[i] = i;
+					}
+					desired[0] = 0;
+					desired[1] = 2 * p;
+					desired[2] = 4 * p;
+					desired[3] = 2 + 2 * p;
+					desired[4] = 4;
+				}
+				return;
+			}
+			count++;
+
+			// Find the cell of the new observation, extending the extremes if needed
+			int k;
+			if (x < heights[0]) {
+				heights[0] = x;
+				k = 0;
+			} else if (x >= heights[4]) {
+				heights[4] = x;
+				k = 3;
+			} else {
+				k = 0;
+				while (x >= heights[k + 1]) {
+					k++;
+				}
+			}
+			for (int i = k + 1; i < 5; i++) {
+				positions[i]++;
+			}
+			for (int i = 0; i < 5; i++) {
+				desired[i] += increments[i];
+			}
+
+			// Move the middle markers towards their desired positions
+			for (int i = 1; i < 4; i++) {
+				double d = desired[i] - positions[i];
+				if ((d >= 1 && positions[i + 1] - positions[i] > 1) || (d <= -1 && positions[i - 1] - positions[i] < -1)) {
+					int s = d > 0 ? 1 : -1;
+					double h = parabolic(i, s);
+					if (heights[i - 1] < h && h < heights[i + 1]) {
+						heights[i] = h;
+					} else {
+						heights[i] = heights[i] + s * (heights[i + s] - heights[i]) / (positions[i + s] - positions[i]);
+					}
+					positions[i] += s;
+				}
+			}
+		}
+
+		private double parabolic(int i, int s) {
+			return heights[i]
+					+ (double) s
+					/ (positions[i + 1] - positions[i - 1])
+					* ((positions[i] - positions[i - 1] + s) * (heights[i + 1] - heights[i])
+							/ (positions[i + 1] - positions[i]) + (positions[i + 1] - positions[i] - s)
+							* (heights[i] - heights[i - 1]) / (positions[i] - positions[i - 1]));
+		}
+
+		public double get() {
+			if (count == 0) {
+				return Double.NaN;
+			}
+			if (count < 5) {
+				// Not enough markers yet: use the exact quantile of what we have
+				double[] sorted = Arrays.copyOf(heights, count);
+				Arrays.sort(sorted);
+				return sorted[(int) Math.min(count - 1, Math.round(p * (count - 1)))];
+			}
+			return heights[2];
+		}
+
+	}
+
+}
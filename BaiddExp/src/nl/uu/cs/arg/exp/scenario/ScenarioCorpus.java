@@ -0,0 +1,345 @@
+package nl.uu.cs.arg.exp.scenario;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import nl.uu.cs.arg.exp.scenario.ScenarioTester.ScenarioTestListener;
+import nl.uu.cs.arg.shared.scenario.ScenarioGenerator.Pool;
+
+import org.aspic.inference.Constant;
+import org.aspic.inference.Term;
+import org.aspic.inference.parser.ParseException;
+import org.aspic.inference.parser.PrologSyntax;
+
+/**
+ * A corpus of pre-generated and tested scenarios, so that experiments do
+ * not have to generate them over and again. Scenarios are indexed by the
+ * generator parameters, the master seed and the run number they were
+ * generated for, which is exactly what determines a scenario in an
+ * experiment.
+ *
+ * The corpus is a directory with an index.txt and one text file per
+ * scenario, listing the options, goals and beliefs of every agent in the
+ * Prolog-like syntax of the knowledge bases. New scenarios can only be
+ * added to a directory, but a corpus can also be read from a zip archive
+ * of such a directory. The index lines are 'file;seed;run;parameters;test
+ * results', with the parameters as a comma separated list of name=value.
+ *
+ * @author erickok
+ */
+public class ScenarioCorpus {
+
+	public static final String INDEX_FILE = "index.txt";
+	private static final String COLUMN_SEPARATOR = ";";
+	private static final String LINE_SEPARATOR = "\n";
+
+	private final File location;
+	private final ZipFile archive;
+	private final String archivePrefix;
+	private final Map<String, String[]> index = new HashMap<String, String[]>();
+	private final Set<Long> seeds = new LinkedHashSet<Long>();
+	private Writer indexWriter = null;
+
+	private ScenarioCorpus(File location, ZipFile archive, String archivePrefix) {
+		this.location = location;
+		this.archive = archive;
+		this.archivePrefix = archivePrefix;
+	}
+
+	/**
+	 * Opens a scenario corpus, reading its index
+	 * @param location A corpus directory, which is created if it does not exist yet, or a zip archive of one
+	 * @return The corpus
+	 * @throws IOException Thrown when the corpus can not be read or its index is invalid
+	 */
+	public static ScenarioCorpus open(File location) throws IOException {
+		ScenarioCorpus corpus;
+		if (location.isFile()) {
+			ZipFile archive = new ZipFile(location);
+			// The corpus directory itself may have been included in the archive
+			String prefix = null;
+			for (Enumeration<? extends ZipEntry> e = archive.entries(); e.hasMoreElements();) {
+				String name = e.nextElement().getName();
+				if (name.equals(INDEX_FILE) || name.endsWith("/" + INDEX_FILE)) {
+					prefix = name.substring(0, name.length() - INDEX_FILE.length());
+					break;
+				}
+			}
+			if (prefix == null) {
+				archive.close();
+				throw new IOException("Archive " + location.getPath() + " does not contain a scenario corpus");
+			}
+			corpus = new ScenarioCorpus(location, archive, prefix);
+		} else {
+			location.mkdirs();
+			corpus = new ScenarioCorpus(location, null, null);
+			if (!new File(location, INDEX_FILE).exists()) {
+				return corpus;
+			}
+		}
+		corpus.readIndex();
+		return corpus;
+	}
+
+	private void readIndex() throws IOException {
+		BufferedReader in = new BufferedReader(new InputStreamReader(openEntry(INDEX_FILE)));
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.length() == 0) {
+					continue;
+				}
+				String[] columns = line.split(COLUMN_SEPARATOR);
+				if (columns.length != 5) {
+					throw new IOException("Invalid scenario corpus index line '" + line + "'");
+				}
+				long seed = Long.parseLong(columns[1]);
+				index.put(key(columns[3], seed, Integer.parseInt(columns[2])), columns);
+				seeds.add(seed);
+			}
+		} catch (NumberFormatException e) {
+			throw new IOException("Invalid scenario corpus index: " + e.getMessage());
+		} finally {
+			in.close();
+		}
+	}
+
+	private InputStream openEntry(String name) throws IOException {
+		if (archive == null) {
+			return new FileInputStream(new File(location, name));
+		}
+		ZipEntry entry = archive.getEntry(archivePrefix + name);
+		if (entry == null) {
+			throw new IOException("Archive " + location.getPath() + " does not contain " + name);
+		}
+		return archive.getInputStream(entry);
+	}
+
+	private static String describe(ScenarioParameters parameters) {
+		StringBuilder description = new StringBuilder();
+		for (Entry<String, String> p : parameters.toMap().entrySet()) {
+			if (description.length() > 0) {
+				description.append(',');
+			}
+			description.append(p.getKey()).append('=').append(p.getValue());
+		}
+		return description.toString();
+	}
+
+	private static String key(String parameters, long seed, int run) {
+		return parameters + COLUMN_SEPARATOR + seed + COLUMN_SEPARATOR + run;
+	}
+
+	/**
+	 * @return The master seeds for which the corpus holds scenarios, in the order they were first added
+	 */
+	public synchronized Set<Long> getSeeds() {
+		return new LinkedHashSet<Long>(seeds);
+	}
+
+	/**
+	 * @return The number of scenarios in the corpus
+	 */
+	public synchronized int size() {
+		return index.size();
+	}
+
+	public synchronized boolean contains(ScenarioParameters parameters, long seed, int run) {
+		return index.containsKey(key(describe(parameters), seed, run));
+	}
+
+	/**
+	 * Reads a scenario from the corpus
+	 * @param parameters The parameters the scenario was generated with
+	 * @param seed The master seed of the experiment it was generated for
+	 * @param run The run number it was generated for
+	 * @param testListener If not null, the results of the scenario test that was done when the scenario was added
+	 * are reported to this listener again
+	 * @return The scenario, or null if the corpus does not have it
+	 * @throws IOException Thrown when the scenario file can not be read or parsed
+	 */
+	public List<Pool> load(ScenarioParameters parameters, long seed, int run, ScenarioTestListener testListener)
+			throws IOException {
+		String[] columns;
+		synchronized (this) {
+			columns = index.get(key(describe(parameters), seed, run));
+		}
+		if (columns == null) {
+			return null;
+		}
+		List<Pool> scenario = readScenario(columns[0]);
+		if (testListener != null) {
+			String[] test = columns[4].split(",");
+			testListener.writeHeader("");
+			testListener.writeResult("", "", Integer.parseInt(test[0]), Integer.parseInt(test[1]),
+					Integer.parseInt(test[2]), Integer.parseInt(test[3]), Integer.parseInt(test[4]),
+					Integer.parseInt(test[5]));
+		}
+		return scenario;
+	}
+
+	private List<Pool> readScenario(String file) throws IOException {
+		List<Pool> scenario = new ArrayList<Pool>();
+		PrologSyntax parser = new PrologSyntax(new StringReader(""));
+		BufferedReader in = new BufferedReader(new InputStreamReader(openEntry(file)));
+		try {
+			Pool agent = null;
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.length() == 0 || line.startsWith("#")) {
+					continue;
+				}
+				if (line.equals("agent")) {
+					agent = new Pool(new ArrayList<Term>(), new ArrayList<Constant>(), new ArrayList<Constant>());
+					scenario.add(agent);
+					continue;
+				}
+				int space = line.indexOf(' ');
+				if (agent == null || space < 0) {
+					throw new IOException("Invalid line '" + line + "' in scenario " + file);
+				}
+				String kind = line.substring(0, space);
+				parser.ReInit(new StringReader(line.substring(space + 1)));
+				if (kind.equals("option")) {
+					agent.O.add((Term) parser.Term());
+				} else if (kind.equals("goal")) {
+					agent.G.add(parser.Term());
+				} else if (kind.equals("belief")) {
+					// Rules are terminated by a full stop, which is left out when inspecting a single rule
+					parser.ReInit(new StringReader(line.substring(space + 1) + "."));
+					agent.B.add(parser.Expression());
+				} else {
+					throw new IOException("Invalid line '" + line + "' in scenario " + file);
+				}
+			}
+		} catch (ParseException e) {
+			throw new IOException("Scenario " + file + " can not be parsed: " + e.getMessage());
+		} finally {
+			in.close();
+		}
+		return scenario;
+	}
+
+	/**
+	 * Adds a scenario to the corpus, which should be a directory. Scenarios
+	 * may be added from several threads at once.
+	 * @param parameters The parameters the scenario was generated with
+	 * @param seed The master seed of the experiment it was generated for
+	 * @param run The run number it was generated for
+	 * @param scenario The generated scenario
+	 * @param test The results of testing the scenario
+	 * @throws IOException Thrown when the scenario or the index can not be written
+	 */
+	public void add(ScenarioParameters parameters, long seed, int run, List<Pool> scenario, RecordedTest test)
+			throws IOException {
+		if (archive != null) {
+			throw new IOException("Scenarios can not be added to the corpus archive " + location.getPath()
+					+ "; use a directory instead");
+		}
+		// Serialise outside the lock, as the beliefs of a scenario can be many
+		StringBuilder content = new StringBuilder("# " + describe(parameters) + LINE_SEPARATOR);
+		for (Pool agent : scenario) {
+			content.append("agent").append(LINE_SEPARATOR);
+			for (Term o : agent.O) {
+				content.append("option ").append(o.inspect()).append(LINE_SEPARATOR);
+			}
+			for (Constant g : agent.G) {
+				content.append("goal ").append(g.inspect()).append(LINE_SEPARATOR);
+			}
+			for (Constant b : agent.B) {
+				content.append("belief ").append(b.inspect()).append(LINE_SEPARATOR);
+			}
+		}
+		synchronized (this) {
+			String[] columns = { String.format("%08d.txt", index.size()), Long.toString(seed), Integer.toString(run),
+					describe(parameters), test.toString() };
+			Writer out = new FileWriter(new File(location, columns[0]));
+			try {
+				out.write(content.toString());
+			} finally {
+				out.close();
+			}
+			// Only index the scenario once it is written completely
+			if (indexWriter == null) {
+				indexWriter = new FileWriter(new File(location, INDEX_FILE), true);
+			}
+			for (int i = 0; i < columns.length; i++) {
+				indexWriter.write(columns[i]);
+				indexWriter.write(i < columns.length - 1 ? COLUMN_SEPARATOR : LINE_SEPARATOR);
+			}
+			indexWriter.flush();
+			index.put(key(columns[3], seed, run), columns);
+			seeds.add(seed);
+		}
+	}
+
+	public synchronized void close() throws IOException {
+		if (indexWriter != null) {
+			indexWriter.close();
+			indexWriter = null;
+		}
+		if (archive != null) {
+			archive.close();
+		}
+	}
+
+	/**
+	 * A scenario test listener that remembers the test results of a single
+	 * scenario, to store them along with it in the corpus
+	 */
+	public static class RecordedTest implements ScenarioTestListener {
+
+		private final int[] results = new int[6];
+
+		@Override
+		public void writeHeader(String confDiffHeader) {
+		}
+
+		@Override
+		public void writeResult(String configuration, String confDiff, int totalA, int totalO, int totalArgToGd,
+				int totalCounterArgToGd, int totalArg, int totalCounterArg) {
+			results[0] = totalA;
+			results[1] = totalO;
+			results[2] = totalArgToGd;
+			results[3] = totalCounterArgToGd;
+			results[4] = totalArg;
+			results[5] = totalCounterArg;
+		}
+
+		@Override
+		public void writeError(String string) {
+		}
+
+		@Override
+		public void finalise() {
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder s = new StringBuilder();
+			for (int i = 0; i < results.length; i++) {
+				s.append(i == 0 ? "" : ",").append(results[i]);
+			}
+			return s.toString();
+		}
+
+	}
+
+}
@@ -3,12 +3,18 @@ package nl.uu.cs.arg.exp.scenario;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Date;
 
+import joptsimple.ArgumentAcceptingOptionSpec;
+import joptsimple.OptionException;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
 import nl.uu.cs.arg.exp.scenario.ScenarioTester.ScenarioTestListener;
 import nl.uu.cs.arg.shared.scenario.ScenarioGenerator.AssignmentMethod;
 import nl.uu.cs.arg.shared.scenario.ScenarioGenerator.ConflictMethod;
 import nl.uu.cs.arg.shared.scenario.ScenarioGenerator.InvalidConfigurationException;
+import nl.uu.cs.arg.shared.util.RandomStreams;
 
 public class ScenarioExperiment {
 
@@ -21,6 +27,33 @@ public class ScenarioExperiment {
 		int maxFails = runs * 10;
 		boolean testAll = false; // If not all, then only a single random setting is tested
 		
+		// All random choices are derived from a master seed, with a stream per run (and per retry of a run), so a 
+		// single run can be replayed on its own given the seed it was first played with
+		OptionParser parser = new OptionParser();
+		ArgumentAcceptingOptionSpec<Long> seedOption = parser
+				.acceptsAll(Arrays.asList("S", "seed"), "Master seed for all random choices, to repeat an experiment")
+				.withRequiredArg().ofType(Long.class);
+		ArgumentAcceptingOptionSpec<Integer> onlyRunOption = parser
+				.acceptsAll(Arrays.asList("only-run"), "Only test this run (starting at 0), to replay it")
+				.withRequiredArg().ofType(Integer.class);
+		long seed = System.currentTimeMillis();
+		int firstRun = 0;
+		try {
+			OptionSet options = parser.parse(args);
+			if (options.hasArgument(seedOption)) {
+				seed = seedOption.value(options);
+			}
+			if (options.hasArgument(onlyRunOption)) {
+				firstRun = onlyRunOption.value(options);
+				runs = firstRun + 1;
+			}
+		} catch (OptionException e) {
+			System.out.println(e.getMessage());
+			return;
+		}
+		System.out.println("Seed: " + seed);
+		RandomStreams streams = new RandomStreams(seed);
+		
 		ScenarioTestListener csvWriter = null;
 		try {
 			csvWriter = new ScenarioTestCsvWriter(
@@ -29,7 +62,8 @@ public class ScenarioExperiment {
 	
 			// Perform the runs to test a certain scenario configuration
 			int fails = 0;
-			for (int r = 0; r < runs; r++) {
+			int attempt = 0;
+			for (int r = firstRun; r < runs; r++) {
 				System.out.println("Test run: " + r);
 				ScenarioTester tester = new ScenarioTester("g_d", 
 						new int[] { 1,2,3,4,5,6,7,8,9,10 }, // n_A 
@@ -48,16 +82,19 @@ public class ScenarioExperiment {
 						new ConflictMethod[] { ConflictMethod.Direct, ConflictMethod.Chained }, 
 						false,
 						true);
+				tester.setRandom(streams.split(r).split(attempt).random());
 				tester.addListener(csvWriter);
 				try {
 					if (testAll)
 						tester.testAll();
 					else
 						tester.testRandomSetting();
+					attempt = 0;
 				} catch (InvalidConfigurationException e) {
 					// This configuration didn't work out; don't consider this as a generated run
-					// to make sure 'runs' runs are generated in total
+					// to make sure 'runs' runs are generated in total; retry it with a fresh stream
 					r--;
+					attempt++;
 					// Register this and crash if it happens to often, e.g. more than the desired number of runs
 					fails++;
 					if (fails > maxFails) {
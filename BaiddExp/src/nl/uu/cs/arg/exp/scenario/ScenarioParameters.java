@@ -0,0 +1,121 @@
+package nl.uu.cs.arg.exp.scenario;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import nl.uu.cs.arg.shared.scenario.ScenarioGenerator;
+import nl.uu.cs.arg.shared.scenario.ScenarioGenerator.AssignmentMethod;
+import nl.uu.cs.arg.shared.scenario.ScenarioGenerator.ConflictMethod;
+
+/**
+ * One point in the parameter space of the {@link ScenarioGenerator}: a
+ * value for each of its parameters, by name. The defaults are those of the
+ * scenarios that experiments always used.
+ *
+ * @author erickok
+ */
+public class ScenarioParameters {
+
+	/**
+	 * The names of the parameters, in the order of the generator's arguments
+	 */
+	public static final List<String> NAMES = Collections.unmodifiableList(Arrays.asList("n_A", "n_R", "n_B_s",
+			"n_O_s", "n_G_s", "n_O_r", "n_G_r", "l", "n_G_nro", "n_B_ra", "n_B_nra", "beliefAssignment",
+			"roleAssignment", "conflictMethod"));
+
+	private final Map<String, String> values = new LinkedHashMap<String, String>();
+
+	/**
+	 * Creates the default parameters: 7 agents with 8 roles, 40 beliefs, 17
+	 * options and 12 goals in the context, 8 options and 5 goals per role,
+	 * chains of length 2, 2 non-role goals and 60 plus 35 beliefs per agent
+	 */
+	public ScenarioParameters() {
+		set("n_A", "7");
+		set("n_R", "8");
+		set("n_B_s", "40");
+		set("n_O_s", "17");
+		set("n_G_s", "12");
+		set("n_O_r", "8");
+		set("n_G_r", "5");
+		set("l", "2");
+		set("n_G_nro", "2");
+		set("n_B_ra", "60");
+		set("n_B_nra", "35");
+		set("beliefAssignment", AssignmentMethod.Randomly.name());
+		set("roleAssignment", AssignmentMethod.Evenly.name());
+		set("conflictMethod", ConflictMethod.Chained.name());
+	}
+
+	/**
+	 * Sets a parameter value
+	 * @param name The parameter name, one of {@link #NAMES}
+	 * @param value The value, an integer or the name of an assignment or conflict method
+	 * @throws IllegalArgumentException Thrown when the parameter does not exist or the value is not valid for it
+	 */
+	public void set(String name, String value) {
+		if (!NAMES.contains(name)) {
+			throw new IllegalArgumentException("Unknown scenario parameter " + name);
+		}
+		if (name.equals("beliefAssignment") || name.equals("roleAssignment")) {
+			AssignmentMethod.valueOf(value);
+		} else if (name.equals("conflictMethod")) {
+			ConflictMethod.valueOf(value);
+		} else {
+			Integer.parseInt(value);
+		}
+		values.put(name, value);
+	}
+
+	public String get(String name) {
+		return values.get(name);
+	}
+
+	private int getInt(String name) {
+		return Integer.parseInt(values.get(name));
+	}
+
+	/**
+	 * @return The number of agents in the scenario
+	 */
+	public int getPlayers() {
+		return getInt("n_A");
+	}
+
+	/**
+	 * @return The number of options in the scenario context
+	 */
+	public int getOptionsCount() {
+		return getInt("n_O_s");
+	}
+
+	/**
+	 * @return All parameter values, by name, in the order of {@link #NAMES}
+	 */
+	public Map<String, String> toMap() {
+		return Collections.unmodifiableMap(values);
+	}
+
+	/**
+	 * Creates a generator for scenarios with these parameters
+	 * @param goal The mutual goal of the agents
+	 * @param random The source of randomness for the generator
+	 * @return The scenario generator
+	 */
+	public ScenarioGenerator createGenerator(String goal, Random random) {
+		return new ScenarioGenerator(goal, getInt("n_A"), getInt("n_R"), getInt("n_B_s"), getInt("n_O_s"),
+				getInt("n_G_s"), getInt("n_O_r"), getInt("n_G_r"), getInt("l"), getInt("n_G_nro"), getInt("n_B_ra"),
+				getInt("n_B_nra"), AssignmentMethod.valueOf(get("beliefAssignment")),
+				AssignmentMethod.valueOf(get("roleAssignment")), ConflictMethod.valueOf(get("conflictMethod")), random);
+	}
+
+	@Override
+	public String toString() {
+		return values.toString();
+	}
+
+}
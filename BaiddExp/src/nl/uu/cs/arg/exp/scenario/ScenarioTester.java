@@ -5,12 +5,17 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
+import joptsimple.ArgumentAcceptingOptionSpec;
+import joptsimple.OptionException;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
 import nl.uu.cs.arg.platform.local.StrategyHelper;
 import nl.uu.cs.arg.shared.scenario.ScenarioGenerator;
 import nl.uu.cs.arg.shared.scenario.ScenarioGenerator.AssignmentMethod;
 import nl.uu.cs.arg.shared.scenario.ScenarioGenerator.ConflictMethod;
 import nl.uu.cs.arg.shared.scenario.ScenarioGenerator.InvalidConfigurationException;
 import nl.uu.cs.arg.shared.scenario.ScenarioGenerator.Pool;
+import nl.uu.cs.arg.shared.util.RandomStreams;
 
 import org.aspic.inference.Constant;
 import org.aspic.inference.ConstantList;
@@ -51,7 +56,7 @@ public class ScenarioTester {
 	private final List<ScenarioTestListener> allTestListeners = new ArrayList<ScenarioTestListener>();
 	private final boolean printResultsToConsole;
 	
-	private static final Random random = new Random();
+	private Random random = new Random();
 
 	public ScenarioTester(String g_d, boolean printResultsToConsole) {
 		this.g_d = g_d;
@@ -96,6 +101,14 @@ public class ScenarioTester {
 		this.printResultsToConsole = printResultsToConsole;
 	}
 
+	/**
+	 * Sets the source of randomness used to pick settings and generate scenarios
+	 * @param random The (seeded) random number generator to use
+	 */
+	public void setRandom(Random random) {
+		this.random = random;
+	}
+
 	public void addListener(ScenarioTestListener listener) {
 		allTestListeners.add(listener);
 	}
@@ -120,6 +133,23 @@ public class ScenarioTester {
 				new int[] { 6 }, // n_B_nra
 				AssignmentMethod.Randomly, AssignmentMethod.Evenly, new ConflictMethod[] { ConflictMethod.Chained },
 				false, true);
+		// The setting is picked and the scenario generated from a master seed, which can be given to repeat a test
+		OptionParser parser = new OptionParser();
+		ArgumentAcceptingOptionSpec<Long> seedOption = parser
+				.acceptsAll(Arrays.asList("S", "seed"), "Master seed for all random choices, to repeat a test")
+				.withRequiredArg().ofType(Long.class);
+		long seed = System.currentTimeMillis();
+		try {
+			OptionSet options = parser.parse(args);
+			if (options.hasArgument(seedOption)) {
+				seed = seedOption.value(options);
+			}
+		} catch (OptionException e) {
+			System.out.println(e.getMessage());
+			return;
+		}
+		System.out.println("Seed: " + seed);
+		tester.setRandom(new RandomStreams(seed).random());
 		try {
 			tester.testRandomSetting();
 		} catch (InvalidConfigurationException e) {
@@ -480,7 +510,7 @@ public class ScenarioTester {
 
 		// Generate scenario
 		ScenarioGenerator scenario = new ScenarioGenerator(g_d, n_A, n_R, n_B_s, n_O_s, n_G_s, n_O_r, n_G_r, l,
-				n_G_nro, n_B_ra, n_B_nra, beliefAssignment, roleAssignment, conflictMethod);
+				n_G_nro, n_B_ra, n_B_nra, beliefAssignment, roleAssignment, conflictMethod, random);
 		List<Pool> agents;
 		try {
 			agents = scenario.generate();
@@ -0,0 +1,92 @@
+package nl.uu.cs.arg.exp.scenario;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The ways to sample points from a parameter space in which every
+ * parameter has a finite list of levels. A point is given as the index of
+ * the level of every parameter.
+ *
+ * @author erickok
+ */
+public enum SweepSampling {
+
+	/**
+	 * Every combination of levels; the number of points to sample is ignored
+	 */
+	Grid {
+		@Override
+		public List<int[]> sample(int[] levels, int points, java.util.Random random) {
+			List<int[]> sample = new ArrayList<int[]>();
+			int[] point = new int[levels.length];
+			while (true) {
+				sample.add(point.clone());
+				// Count up, with the last parameter changing fastest
+				int p = levels.length - 1;
+				while (p >= 0 && ++point[p] == levels[p]) {
+					point[p] = 0;
+					p--;
+				}
+				if (p < 0) {
+					return sample;
+				}
+			}
+		}
+	},
+
+	/**
+	 * Points with independently, uniformly drawn levels
+	 */
+	Random {
+		@Override
+		public List<int[]> sample(int[] levels, int points, java.util.Random random) {
+			List<int[]> sample = new ArrayList<int[]>();
+			for (int i = 0; i < points; i++) {
+				int[] point = new int[levels.length];
+				for (int p = 0; p < levels.length; p++) {
+					point[p] = random.nextInt(levels[p]);
+				}
+				sample.add(point);
+			}
+			return sample;
+		}
+	},
+
+	/**
+	 * A Latin hypercube: the range of every parameter is split into as many
+	 * strata as there are points and every stratum is used exactly once, so
+	 * that every parameter is covered evenly, even with few points
+	 */
+	LatinHypercube {
+		@Override
+		public List<int[]> sample(int[] levels, int points, java.util.Random random) {
+			List<int[]> sample = new ArrayList<int[]>();
+			for (int i = 0; i < points; i++) {
+				sample.add(new int[levels.length]);
+			}
+			for (int p = 0; p < levels.length; p++) {
+				List<Integer> strata = new ArrayList<Integer>();
+				for (int i = 0; i < points; i++) {
+					strata.add(i);
+				}
+				Collections.shuffle(strata, random);
+				for (int i = 0; i < points; i++) {
+					double u = (strata.get(i) + random.nextDouble()) / points;
+					sample.get(i)[p] = (int) (u * levels[p]);
+				}
+			}
+			return sample;
+		}
+	};
+
+	/**
+	 * @param levels The number of levels of every parameter
+	 * @param points The number of points to sample
+	 * @param random The source of randomness
+	 * @return The sampled points, as the index of the level of every parameter
+	 */
+	public abstract List<int[]> sample(int[] levels, int points, java.util.Random random);
+
+}
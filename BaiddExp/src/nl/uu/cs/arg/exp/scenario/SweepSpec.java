@@ -0,0 +1,159 @@
+package nl.uu.cs.arg.exp.scenario;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+/**
+ * A sweep over the scenario generation parameters, as read from a small
+ * specification file such as:
+ * <pre>
+ * # Scale the number of agents and beliefs
+ * sampling = LatinHypercube
+ * points = 20
+ * n_A = 2..10
+ * n_B_s = 20..100:20
+ * l = 1, 2, 3
+ * conflictMethod = Direct, Chained
+ * </pre>
+ * Every parameter of {@link ScenarioParameters} can be given a comma
+ * separated list of levels, or an integer range from..to with an optional
+ * step; parameters that are not mentioned keep their default value. The
+ * sampling is one of {@link SweepSampling} and defaults to a Grid, for which
+ * the number of points is not needed.
+ *
+ * @author erickok
+ */
+public class SweepSpec {
+
+	private final Map<String, List<String>> levels = new LinkedHashMap<String, List<String>>();
+	private SweepSampling sampling = SweepSampling.Grid;
+	private int points = 0;
+
+	/**
+	 * Reads a sweep specification
+	 * @param file The specification file
+	 * @return The sweep
+	 * @throws IOException Thrown when the file can not be read or holds an invalid specification
+	 */
+	public static SweepSpec load(File file) throws IOException {
+		SweepSpec spec = new SweepSpec();
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			int lineNumber = 0;
+			while ((line = in.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.length() == 0 || line.startsWith("#")) {
+					continue;
+				}
+				int is = line.indexOf('=');
+				if (is < 0) {
+					throw new IOException("Line " + lineNumber + " of the sweep specification is not a 'name = value'");
+				}
+				String name = line.substring(0, is).trim();
+				String value = line.substring(is + 1).trim();
+				try {
+					spec.set(name, value);
+				} catch (IllegalArgumentException e) {
+					throw new IOException("Line " + lineNumber + " of the sweep specification is invalid: "
+							+ e.getMessage());
+				}
+			}
+		} finally {
+			in.close();
+		}
+		if (spec.sampling != SweepSampling.Grid && spec.points <= 0) {
+			throw new IOException("Specify the number of points to sample, for example: points = 20");
+		}
+		return spec;
+	}
+
+	private void set(String name, String value) {
+		if (name.equals("sampling")) {
+			sampling = SweepSampling.valueOf(value);
+		} else if (name.equals("points")) {
+			points = Integer.parseInt(value);
+		} else {
+			List<String> values = parseLevels(value);
+			// Check the levels right away
+			ScenarioParameters check = new ScenarioParameters();
+			for (String v : values) {
+				check.set(name, v);
+			}
+			levels.put(name, values);
+		}
+	}
+
+	private static List<String> parseLevels(String value) {
+		List<String> values = new ArrayList<String>();
+		for (String part : value.split(",")) {
+			part = part.trim();
+			int range = part.indexOf("..");
+			if (range < 0) {
+				values.add(part);
+				continue;
+			}
+			int from = Integer.parseInt(part.substring(0, range).trim());
+			String rest = part.substring(range + 2);
+			int step = 1;
+			int colon = rest.indexOf(':');
+			if (colon >= 0) {
+				step = Integer.parseInt(rest.substring(colon + 1).trim());
+				rest = rest.substring(0, colon);
+			}
+			int to = Integer.parseInt(rest.trim());
+			if (step <= 0 || to < from) {
+				throw new IllegalArgumentException("Invalid range " + part);
+			}
+			for (int i = from; i <= to; i += step) {
+				values.add(Integer.toString(i));
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Samples the points of this sweep
+	 * @param random The source of randomness for the Random and LatinHypercube sampling
+	 * @return The scenario parameters of every point
+	 */
+	public List<ScenarioParameters> samplePoints(Random random) {
+		List<String> names = new ArrayList<String>(levels.keySet());
+		int[] counts = new int[names.size()];
+		for (int p = 0; p < counts.length; p++) {
+			counts[p] = levels.get(names.get(p)).size();
+		}
+		List<ScenarioParameters> sample = new ArrayList<ScenarioParameters>();
+		for (int[] point : sampling.sample(counts, points, random)) {
+			ScenarioParameters parameters = new ScenarioParameters();
+			for (int p = 0; p < counts.length; p++) {
+				parameters.set(names.get(p), levels.get(names.get(p)).get(point[p]));
+			}
+			sample.add(parameters);
+		}
+		return sample;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder(sampling.name());
+		if (sampling != SweepSampling.Grid) {
+			s.append(" of ").append(points).append(" points");
+		}
+		s.append(" over");
+		for (Entry<String, List<String>> l : levels.entrySet()) {
+			s.append(' ').append(l.getKey()).append('=').append(l.getValue());
+		}
+		return s.toString();
+	}
+
+}
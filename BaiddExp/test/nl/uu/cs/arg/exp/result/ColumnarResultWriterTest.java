@@ -0,0 +1,122 @@
+package nl.uu.cs.arg.exp.result;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import nl.uu.cs.arg.platform.Settings;
+import nl.uu.cs.arg.shared.dialogue.protocol.OutcomeSelectionRule;
+
+import org.aspic.inference.Constant;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ColumnarResultWriterTest {
+
+	private File file;
+
+	@Before
+	public void createFile() throws IOException {
+		file = File.createTempFile("columnar", ".bdc");
+	}
+
+	@After
+	public void deleteFile() {
+		file.delete();
+	}
+
+	@Test
+	public void writesDialoguesWithDifferentOptionCounts() throws IOException {
+		ColumnarResultWriter writer = new ColumnarResultWriter();
+		writer.initialise(file, false);
+		writer.writeResult(stats(1, 5, 7));
+		writer.writeResult(stats(2, 1, 2, 3));
+		writer.finalise();
+
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			assertEquals(ColumnarResultWriter.MAGIC, in.readInt());
+			int columns = in.readInt();
+			List<String> names = new ArrayList<String>();
+			List<Byte> types = new ArrayList<Byte>();
+			for (int c = 0; c < columns; c++) {
+				names.add(in.readUTF());
+				types.add(in.readByte());
+			}
+			int totals = names.indexOf("e_total^all");
+			assertEquals(ColumnarResultWriter.TYPE_STRING, (byte) types.get(totals));
+
+			assertEquals(2, in.readInt());
+			List<Object> ids = new ArrayList<Object>();
+			List<Object> values = new ArrayList<Object>();
+			for (int c = 0; c < columns; c++) {
+				List<Object> column = readColumn(in, types.get(c), 2);
+				if (c == names.indexOf("ID")) {
+					ids = column;
+				} else if (c == totals) {
+					values = column;
+				}
+			}
+			assertEquals(-1, in.read());
+			assertEquals(1, ids.get(0));
+			assertEquals(2, ids.get(1));
+			assertEquals("5,7", values.get(0));
+			assertEquals("1,2,3", values.get(1));
+		} finally {
+			in.close();
+		}
+	}
+
+	private DialogueStats stats(int id, int... totals) {
+		Settings settings = new Settings(null, null, OutcomeSelectionRule.FirstThatIsIn);
+		DialogueStats stats = new DialogueStats(null, id, new Date(0), 1, settings, totals.length, "BDIAgent");
+		Map<Constant, Integer> utilities = new LinkedHashMap<Constant, Integer>();
+		for (int o = 0; o < totals.length; o++) {
+			utilities.put(new Constant("o" + o), totals[o]);
+		}
+		stats.e_totalutility = utilities;
+		return stats;
+	}
+
+	private List<Object> readColumn(DataInputStream in, byte type, int rows) throws IOException {
+		List<Object> column = new ArrayList<Object>();
+		if (type == ColumnarResultWriter.TYPE_STRING) {
+			List<String> dictionary = new ArrayList<String>();
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				dictionary.add(in.readUTF());
+			}
+			for (int r = 0; r < rows; r++) {
+				column.add(dictionary.get(in.readShort()));
+			}
+			return column;
+		}
+		for (int r = 0; r < rows; r++) {
+			switch (type) {
+			case ColumnarResultWriter.TYPE_INT:
+				column.add(in.readInt());
+				break;
+			case ColumnarResultWriter.TYPE_LONG:
+				column.add(in.readLong());
+				break;
+			case ColumnarResultWriter.TYPE_FLOAT:
+				column.add(in.readFloat());
+				break;
+			default:
+				column.add(in.readByte());
+			}
+		}
+		return column;
+	}
+
+}
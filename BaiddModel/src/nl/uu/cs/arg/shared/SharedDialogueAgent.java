@@ -0,0 +1,25 @@
+package nl.uu.cs.arg.shared;
+
+import nl.uu.cs.arg.shared.dialogue.DialogueView;
+
+/**
+ * An agent that can follow the dialogue through a read-only view on the
+ * dialogue of the platform, rather than building its own copy from the
+ * moves and messages it receives. A platform that runs in the same process
+ * as its agents hands out this view before asking them to join; other
+ * platforms simply never do, in which case the agent keeps its own copy.
+ * 
+ * @author erickok
+ *
+ */
+public interface SharedDialogueAgent extends Agent {
+
+	/**
+	 * Gives the agent access to the dialogue that the platform maintains. 
+	 * When the agent receives new moves or a state change, the view already 
+	 * shows them.
+	 * @param dialogue The read-only view on the platform's dialogue
+	 */
+	public void setDialogueView(DialogueView dialogue);
+	
+}
@@ -0,0 +1,130 @@
+package nl.uu.cs.arg.shared.dialogue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import nl.uu.cs.arg.shared.dialogue.locutions.ArgueLocution;
+import nl.uu.cs.arg.shared.dialogue.locutions.Locution;
+import nl.uu.cs.arg.shared.dialogue.locutions.WhyLocution;
+
+import org.aspic.inference.Constant;
+import org.aspic.inference.Fingerprint;
+import org.aspic.inference.RuleArgument;
+
+/**
+ * An index of what was played in one branch of a proposal tree, i.e. the
+ * moves from the propose move down to some move in the tree. It holds the
+ * arguments of the argue moves and the premises questioned by the why moves
+ * in the branch, by a fingerprint that ignores the names of variables, and
+ * the logic strings of all other locutions. Whether something was played
+ * already in the branch is thus a lookup, instead of a walk over all the
+ * moves to the root.
+ *
+ * A branch index is never changed: the index of a reply to some move is the
+ * index of that move extended with the reply.
+ *
+ * @author erickok
+ *
+ */
+public class BranchIndex {
+
+	/**
+	 * The index of a branch without any moves
+	 */
+	public static final BranchIndex EMPTY = new BranchIndex(Collections.<String, List<RuleArgument>>emptyMap(),
+			Collections.<String, List<Constant>>emptyMap(), Collections.<String>emptySet());
+
+	private final Map<String, List<RuleArgument>> arguments;
+	private final Map<String, List<Constant>> questionedPremises;
+	private final Set<String> otherLocutions;
+
+	private BranchIndex(Map<String, List<RuleArgument>> arguments, Map<String, List<Constant>> questionedPremises,
+			Set<String> otherLocutions) {
+		this.arguments = arguments;
+		this.questionedPremises = questionedPremises;
+		this.otherLocutions = otherLocutions;
+	}
+
+	/**
+	 * Returns the index of this branch extended with one more move
+	 * @param move The move that replies to the last move of this branch
+	 * @return A new index
+	 */
+	public BranchIndex extend(Move<? extends Locution> move) {
+		if (move.getLocution() instanceof ArgueLocution) {
+			RuleArgument argument = ((ArgueLocution) move.getLocution()).getArgument();
+			return new BranchIndex(with(arguments, Fingerprint.of(argument), argument), questionedPremises, otherLocutions);
+		} else if (move.getLocution() instanceof WhyLocution) {
+			Constant premise = ((WhyLocution) move.getLocution()).getAttackedPremise();
+			return new BranchIndex(arguments, with(questionedPremises, Fingerprint.of(premise), premise), otherLocutions);
+		}
+		Set<String> others = new HashSet<String>(otherLocutions);
+		others.add(move.getLocution().toLogicString());
+		return new BranchIndex(arguments, questionedPremises, others);
+	}
+
+	// Copies the map and the one list that changes, so that the branches that share the old map are not affected
+	private static <T> Map<String, List<T>> with(Map<String, List<T>> map, String fingerprint, T value) {
+		Map<String, List<T>> copy = new HashMap<String, List<T>>(map);
+		List<T> values = map.containsKey(fingerprint)? new ArrayList<T>(map.get(fingerprint)): new ArrayList<T>(1);
+		values.add(value);
+		copy.put(fingerprint, values);
+		return copy;
+	}
+
+	/**
+	 * Returns whether some argument was already moved in this branch
+	 * @param argument The argument to look for
+	 * @return True if some argue move in the branch has an argument that is semantically equal to it
+	 */
+	public boolean containsArgument(RuleArgument argument) {
+		List<RuleArgument> played = arguments.get(Fingerprint.of(argument));
+		if (played != null) {
+			for (RuleArgument p : played) {
+				if (p.isSemanticallyEqual(argument)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether some premise was already questioned in this branch
+	 * @param premise The premise to look for
+	 * @return True if some why move in the branch attacked a premise that is equal to it modulo variables
+	 */
+	public boolean isQuestioned(Constant premise) {
+		List<Constant> questioned = questionedPremises.get(Fingerprint.of(premise));
+		if (questioned != null) {
+			for (Constant q : questioned) {
+				if (q.isEqualModuloVariables(premise)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether some locution was already played in this branch: an 
+	 * argue move with a semantically equal argument, a why move that questions 
+	 * an equal premise or another move with the same logic string
+	 * @param locution The locution to look for
+	 * @return True if the locution would repeat a move in the branch
+	 */
+	public boolean containsLocution(Locution locution) {
+		if (locution instanceof ArgueLocution) {
+			return containsArgument(((ArgueLocution) locution).getArgument());
+		} else if (locution instanceof WhyLocution) {
+			return isQuestioned(((WhyLocution) locution).getAttackedPremise());
+		}
+		return otherLocutions.contains(locution.toLogicString());
+	}
+
+}
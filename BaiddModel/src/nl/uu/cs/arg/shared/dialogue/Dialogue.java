@@ -10,6 +10,7 @@ import nl.uu.cs.arg.shared.dialogue.locutions.Locution;
 import nl.uu.cs.arg.shared.dialogue.locutions.ProposalRelatedLocution;
 import nl.uu.cs.arg.shared.dialogue.locutions.ProposeLocution;
 import nl.uu.cs.arg.shared.util.IndexedNode;
+import nl.uu.cs.arg.shared.util.LongMap;
 
 import org.aspic.inference.Constant;
 import org.aspic.inference.Term;
@@ -55,17 +56,30 @@ public class Dialogue{
 	 */
 	private List<Proposal> proposals;
 
+	/**
+	 * The proposal (tree) that every move in this dialogue was added to, by 
+	 * the move index; the node of the move is found through the proposal's 
+	 * own index.
+	 */
+	private LongMap<Proposal> moveIndex;
+
 	/**
 	 * The list of beliefs (rules, terms and constants) that agents exposed
 	 * using inform(p) style moves.
 	 */
 	private Set<Constant> informedBeliefs;
+
+	/**
+	 * The read-only view on this dialogue that is handed out to agents
+	 */
+	private DialogueView view = null;
 	
 	public Dialogue(Term topic, Goal topicGoal) {
 		this.state = DialogueState.Unopened;
 		this.topic = topic;
 		this.topicGoal = topicGoal;
 		this.proposals = new ArrayList<Proposal>();
+		this.moveIndex = new LongMap<Proposal>();
 		this.informedBeliefs = new HashSet<Constant>();
 	}
 	
@@ -131,12 +145,13 @@ public class Dialogue{
 				// add it to the appropriate proposal (tree)
 				IndexedNode<Move<? extends Locution>> wasAddedTo = null;
 				if (newMove.getTarget() != null) {
-					for (Proposal proposal : proposals) {
+					Proposal proposal = getProposal(newMove.getTarget());
+					if (proposal != null) {
 						wasAddedTo = proposal.addMoveNode(newMove);
-						if (wasAddedTo != null) {
-							// The target was found and the new move was added to its target
-							break;
-						}
+					}
+					if (wasAddedTo != null) {
+						// The target was found and the new move was added to its target
+						moveIndex.put(newMove.getIndex(), proposal);
 					}
 				}
 				
@@ -155,7 +170,29 @@ public class Dialogue{
 		if (this.state != DialogueState.Deliberating) {
 			throw new DialogueException("Tried to add a proposal, but that cannot happen in state " + this.state.toString());
 		}
-		this.proposals.add(new Proposal(proposeMove));
+		Proposal proposal = new Proposal(proposeMove);
+		this.proposals.add(proposal);
+		this.moveIndex.put(proposeMove.getIndex(), proposal);
+	}
+
+	/**
+	 * Returns the proposal in whose tree some move was played
+	 * @param move The move to find
+	 * @return The proposal that contains the move, or null if it is not part of any proposal tree
+	 */
+	public Proposal getProposal(Move<? extends Locution> move) {
+		Proposal proposal = moveIndex.get(move.getIndex());
+		if (proposal != null) {
+			return proposal;
+		}
+		// Proposals may have been added to the list directly
+		for (Proposal p : proposals) {
+			if (p.findNodeByIndex(move.getIndex()) != null) {
+				moveIndex.put(move.getIndex(), p);
+				return p;
+			}
+		}
+		return null;
 	}
 
 	/**
@@ -174,6 +211,18 @@ public class Dialogue{
 		return this.informedBeliefs;
 	}
 
+	/**
+	 * Returns a read-only view on this dialogue, through which it can be 
+	 * shared with agents instead of every agent keeping a copy
+	 * @return The view, which always shows the current state of this dialogue
+	 */
+	public DialogueView getView() {
+		if (this.view == null) {
+			this.view = new DialogueView(this);
+		}
+		return this.view;
+	}
+
 	public String prettyPrint() {
 		String s = "Topic: " + this.topic.inspect() + "\n";
 		s += "Goal: " + this.topicGoal.inspect() + "\n\n\n";
@@ -0,0 +1,95 @@
+package nl.uu.cs.arg.shared.dialogue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import nl.uu.cs.arg.shared.dialogue.locutions.Locution;
+
+import org.aspic.inference.Constant;
+import org.aspic.inference.Term;
+
+/**
+ * A read-only view on a {@link Dialogue}. The platform owns a single 
+ * dialogue, which only grows as moves are added, and hands out a view on 
+ * it to the agents. This way the moves and proposal trees are stored and 
+ * updated once, instead of in a copy per agent. An agent that wants to 
+ * remember anything of its own about the dialogue keeps that in its own 
+ * tables, for instance by move index.
+ * 
+ * The proposal trees are returned as {@link ProposalView}s, which can only 
+ * be read.
+ * 
+ * @author erickok
+ *
+ */
+public class DialogueView {
+
+	private final Dialogue dialogue;
+	// The view on every proposal of the dialogue, in the same order, and by the proposal it views
+	private final List<ProposalView> proposals = new ArrayList<ProposalView>();
+	private final Map<Proposal, ProposalView> proposalViews = new IdentityHashMap<Proposal, ProposalView>();
+
+	DialogueView(Dialogue dialogue) {
+		this.dialogue = dialogue;
+	}
+
+	public DialogueState getState() {
+		return dialogue.getState();
+	}
+
+	public Term getTopic() {
+		return dialogue.getTopic();
+	}
+
+	public Goal getTopicGoal() {
+		return dialogue.getTopicGoal();
+	}
+
+	/**
+	 * Return a list of all previously made proposals
+	 * @return Views on the existing proposals in the dialogue, which can not be changed
+	 */
+	public List<ProposalView> getProposals() {
+		List<Proposal> current = dialogue.getProposals();
+		if (proposals.size() != current.size()) {
+			proposals.clear();
+			for (Proposal proposal : current) {
+				proposals.add(getView(proposal));
+			}
+		}
+		return Collections.unmodifiableList(proposals);
+	}
+
+	/**
+	 * Returns the proposal in whose tree some move was played
+	 * @param move The move to find
+	 * @return A view on the proposal that contains the move, or null if it is not part of any proposal tree
+	 */
+	public ProposalView getProposal(Move<? extends Locution> move) {
+		Proposal proposal = dialogue.getProposal(move);
+		return proposal == null? null: getView(proposal);
+	}
+
+	// Returns the same view every time a proposal is asked for
+	private ProposalView getView(Proposal proposal) {
+		ProposalView view = proposalViews.get(proposal);
+		if (view == null) {
+			view = new ProposalView(proposal);
+			proposalViews.put(proposal, view);
+		}
+		return view;
+	}
+
+	public Set<Constant> getInformedBeliefs() {
+		return Collections.unmodifiableSet(dialogue.getInformedBeliefs());
+	}
+
+	public String prettyPrint() {
+		return dialogue.prettyPrint();
+	}
+
+}
@@ -16,9 +16,15 @@ import nl.uu.cs.arg.shared.util.IndexedObject;
 public class Move<T extends Locution> implements IndexedObject {
 
 	/**
-	 * A counter used to create unique move identifiers; buildMove() will use and increment this
+	 * A counter used to create unique move identifiers; buildMove() will use and increment this. 
+	 * There is one counter per thread, so that dialogues can run on several threads at once.
 	 */
-	private static int uniqueMoveCounter = 0;
+	private static ThreadLocal<Integer> uniqueMoveCounter = new ThreadLocal<Integer>() {
+		@Override
+		protected Integer initialValue() {
+			return 0;
+		}
+	};
 	
 	/**
 	 * The internal, dialogue-unique identifier for a single move.
@@ -98,14 +104,16 @@ public class Move<T extends Locution> implements IndexedObject {
 	 */
 	public static <T extends Locution> Move<T> buildMove(Participant player, Move<? extends Locution> targetMove, T locution) {
 		// Note that the move id counter is incremented (after the Move object was instantiated)
-		return new Move<T>(uniqueMoveCounter++, player, targetMove, locution);
+		int index = uniqueMoveCounter.get();
+		uniqueMoveCounter.set(index + 1);
+		return new Move<T>(index, player, targetMove, locution);
 	}
 	
 	/**
-	 * Resets the internal move counter; to be used when starting a new dialogue (platform)
+	 * Resets the internal move counter of the current thread; to be used when starting a new dialogue (platform)
 	 */
 	public static void resetMoveCounter() {
-		uniqueMoveCounter = 0;
+		uniqueMoveCounter.set(0);
 	}
 
 	/**
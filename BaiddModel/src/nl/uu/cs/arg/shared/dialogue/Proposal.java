@@ -12,6 +12,7 @@ import nl.uu.cs.arg.shared.dialogue.locutions.ProposeLocution;
 import nl.uu.cs.arg.shared.dialogue.locutions.SurrenderingLocution;
 import nl.uu.cs.arg.shared.util.IndexedNode;
 import nl.uu.cs.arg.shared.util.IndexedTree;
+import nl.uu.cs.arg.shared.util.LongMap;
 
 /**
  * A Proposal represents a concrete proposal as put forward by one of
@@ -27,6 +28,16 @@ import nl.uu.cs.arg.shared.util.IndexedTree;
  */
 public class Proposal extends IndexedTree<Move<? extends Locution>> {
 
+	/**
+	 * The index of every branch in this tree, by the index of the move it ends with
+	 */
+	private LongMap<BranchIndex> branches = new LongMap<BranchIndex>();
+
+	/**
+	 * The dialogical status of every move in this tree (true if it is 'in'), by the move index
+	 */
+	private LongMap<Boolean> labels = new LongMap<Boolean>();
+
 	/**
 	 * Internal constructor (which also initializes the moves tree)
 	 * @param originator The agent that originally made this proposal
@@ -35,6 +46,8 @@ public class Proposal extends IndexedTree<Move<? extends Locution>> {
 	public Proposal(Move<ProposeLocution> proposeMove) {
 		super();
 		this.setRootElement(new IndexedNode<Move<? extends Locution>>(this, proposeMove));
+		this.branches.put(proposeMove.getIndex(), BranchIndex.EMPTY.extend(proposeMove));
+		this.labels.put(proposeMove.getIndex(), evaluateIsIn(getRootElement()));
 	}
 	
 	/**
@@ -78,6 +91,20 @@ public class Proposal extends IndexedTree<Move<? extends Locution>> {
 		
 		// Found the target; add a node for this newMove to its children
 		target.addChild(new IndexedNode<Move<? extends Locution>>(this, newMove));
+		branches.put(newMove.getIndex(), branches.get(target.getData().getIndex()).extend(newMove));
+		
+		// Label the new move and update the status of the moves above it, up to where the status no longer changes
+		IndexedNode<Move<? extends Locution>> node = findNodeByIndex(newMove.getIndex());
+		labels.put(newMove.getIndex(), evaluateIsIn(node));
+		node = target;
+		while (node != null) {
+			boolean isIn = evaluateIsIn(node);
+			if (labels.put(node.getData().getIndex(), isIn) == isIn) {
+				break;
+			}
+			Move<? extends Locution> parent = node.getData().getTarget();
+			node = parent == null? null: findNodeByIndex(parent.getIndex());
+		}
 		return target;
 		
 	}
@@ -100,6 +127,20 @@ public class Proposal extends IndexedTree<Move<? extends Locution>> {
 		return replies;
 	}
 	
+	/**
+	 * Returns what was played in the branch from the propose move down to some move in this proposal tree
+	 * @param move The last move of the branch
+	 * @return The index of the arguments and questioned premises in the branch, including those of the move itself
+	 * @throws DialogueException Thrown when the branch is asked for some move that is not in this proposal's tree
+	 */
+	public BranchIndex getBranchIndex(Move<? extends Locution> move) throws DialogueException {
+		BranchIndex branch = branches.get(move.getIndex());
+		if (branch == null) {
+			throw new DialogueException("Asked for the branch of '" + move.toLogicString() + "', but it is not present in this proposal tree.");
+		}
+		return branch;
+	}
+	
 	/**
 	 * This evaluates the dialogical status of this proposal, which in effect
 	 * is the dialogical status of the move in which it was proposed. See
@@ -118,20 +159,29 @@ public class Proposal extends IndexedTree<Move<? extends Locution>> {
 	 * This evaluates the dialogical status of some move (which should be played 
 	 * inside this proposal tree); a move m in dialogue d is <i>in</i> iff (1) m 
 	 * is surrendered to by all agents that attacked this move; or else (2) all 
-	 * attacking replies to m are <i>out</i>.
+	 * attacking replies to m are <i>out</i>. The status is kept up to date as 
+	 * moves are added, so this is only a look-up.
 	 * @param move The move to evaluate for its dialogical status
 	 * @return True if the move is <i>in</i>
 	 * @throws DialogueException Thrown when the dialogical status of some move is asked that is not inside this proposal
 	 */
 	public boolean isIn(Move<? extends Locution> move) throws DialogueException {
 		
-		IndexedNode<Move<? extends Locution>> node = findNodeByIndex(move.getIndex());
-		if (node == null) {
+		Boolean isIn = labels.get(move.getIndex());
+		if (isIn == null) {
 			throw new DialogueException("Asked for the dialectical status of '" + move.toLogicString() + "', but it is not present in this proposal tree.");
 		}
+		return isIn;
+		
+	}
+	
+	// Determines the status of a move from the (already labelled) status of its replies
+	private boolean evaluateIsIn(IndexedNode<Move<? extends Locution>> node) {
+		
+		Move<? extends Locution> move = node.getData();
 		
 		// Surrendering replies are always out
-		if (node.getData().getLocution() instanceof SurrenderingLocution) {
+		if (move.getLocution() instanceof SurrenderingLocution) {
 			return false;
 		}
 
@@ -140,7 +190,7 @@ public class Proposal extends IndexedTree<Move<? extends Locution>> {
 		
 		// Check for attacking replies
 		for (IndexedNode<Move<? extends Locution>> reply : node.getChildren()) {
-			if (reply.getData().getLocution() instanceof AttackingLocution && this.isIn(reply.getData())) {
+			if (reply.getData().getLocution() instanceof AttackingLocution && labels.get(reply.getData().getIndex())) {
 				// Found an attacker that is 'in' (not considering the surrenders)
 				isIn = false;
 				attackers.add(reply.getData().getPlayer());
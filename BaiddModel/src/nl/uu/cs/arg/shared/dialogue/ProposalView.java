@@ -0,0 +1,98 @@
+package nl.uu.cs.arg.shared.dialogue;
+
+import java.util.List;
+
+import nl.uu.cs.arg.shared.dialogue.locutions.Locution;
+import nl.uu.cs.arg.shared.dialogue.locutions.ProposeLocution;
+
+/**
+ * A read-only view on a {@link Proposal} of a {@link DialogueView}. It
+ * offers everything an agent may ask about the proposal tree, but no way
+ * to add moves to it or otherwise change the tree, which is owned by the
+ * platform's dialogue.
+ *
+ * @author erickok
+ *
+ */
+public class ProposalView {
+
+	private final Proposal proposal;
+
+	ProposalView(Proposal proposal) {
+		this.proposal = proposal;
+	}
+
+	/**
+	 * Returns the original propose move by which this proposal was submitted
+	 * @return The propose move, which contains the propose locution
+	 */
+	public Move<ProposeLocution> getProposalMove() {
+		return proposal.getProposalMove();
+	}
+
+	/**
+	 * Returns the locution in which the original proposal was made
+	 * @return The original propose locution
+	 */
+	public ProposeLocution getProposalLocution() {
+		return proposal.getProposalLocution();
+	}
+
+	/**
+	 * Returns all the replies to some move in this proposal tree
+	 * @param move A move to return all it's replies for
+	 * @return A new list of all the moves that were replies to the given move
+	 * @throws DialogueException Thrown when the replies are asked for some move that is not in this proposal's tree
+	 */
+	public List<Move<? extends Locution>> getReplies(Move<? extends Locution> move) throws DialogueException {
+		return proposal.getReplies(move);
+	}
+
+	/**
+	 * Returns what was played in the branch from the propose move down to some move in this proposal tree
+	 * @param move The last move of the branch
+	 * @return The index of the arguments and questioned premises in the branch, which is never changed
+	 * @throws DialogueException Thrown when the branch is asked for some move that is not in this proposal's tree
+	 */
+	public BranchIndex getBranchIndex(Move<? extends Locution> move) throws DialogueException {
+		return proposal.getBranchIndex(move);
+	}
+
+	/**
+	 * @return True if this proposal is 'in', see {@link Proposal#isIn()}
+	 */
+	public boolean isIn() {
+		return proposal.isIn();
+	}
+
+	/**
+	 * @param move The move to evaluate for its dialogical status
+	 * @return True if the move is <i>in</i>, see {@link Proposal#isIn(Move)}
+	 * @throws DialogueException Thrown when the dialogical status of some move is asked that is not inside this proposal
+	 */
+	public boolean isIn(Move<? extends Locution> move) throws DialogueException {
+		return proposal.isIn(move);
+	}
+
+	/**
+	 * Returns the list of active attackers in this proposal tree; moves
+	 * that are concrete causes for this proposal to be 'out'
+	 * @return A new list of all moves in this tree that are active attackers
+	 */
+	public List<Move<? extends Locution>> getActiveAttackers() {
+		return proposal.getActiveAttackers();
+	}
+
+	/**
+	 * Returns a string indication the concrete proposal contents, which is the inspect() on the actual Term
+	 * @return A formatted and human-readable string
+	 */
+	public String inspect() {
+		return proposal.inspect();
+	}
+
+	public String toString() {
+		return proposal.toString();
+	}
+
+}
@@ -1,6 +1,6 @@
 package nl.uu.cs.arg.shared.dialogue.locutions;
 
-import nl.uu.cs.arg.shared.dialogue.Proposal;
+import nl.uu.cs.arg.shared.dialogue.ProposalView;
 
 /**
  * The drop-reject(P) locution is used to drop a reject(P) locution.
@@ -18,9 +18,9 @@ public class DropRejectLocution extends SurrenderingLocution {
 	/**
 	 * The proposal that was originally rejected
 	 */
-	private Proposal rejectedProposal;
+	private ProposalView rejectedProposal;
 	
-	public DropRejectLocution(Proposal rejectedProposal) {
+	public DropRejectLocution(ProposalView rejectedProposal) {
 		super(LOCUTION_NAME);
 		this.rejectedProposal = rejectedProposal;
 	}
@@ -29,7 +29,7 @@ public class DropRejectLocution extends SurrenderingLocution {
 	 * Returns the proposal that was originally proposed and then rejected in a reject(P) locution
 	 * @return The attacked proposal object
 	 */
-	public Proposal getRejectedProposal() {
+	public ProposalView getRejectedProposal() {
 		return this.rejectedProposal;
 	}
 	
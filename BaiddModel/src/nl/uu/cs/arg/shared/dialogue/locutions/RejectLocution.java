@@ -2,7 +2,7 @@ package nl.uu.cs.arg.shared.dialogue.locutions;
 
 import java.util.Set;
 
-import nl.uu.cs.arg.shared.dialogue.Proposal;
+import nl.uu.cs.arg.shared.dialogue.ProposalView;
 
 import org.aspic.inference.Constant;
 
@@ -21,9 +21,9 @@ public class RejectLocution extends AttackingLocution {
 	/**
 	 * The proposal that is rejected
 	 */
-	private Proposal rejectedProposal;
+	private ProposalView rejectedProposal;
 	
-	public RejectLocution(Proposal rejectedProposal) {
+	public RejectLocution(ProposalView rejectedProposal) {
 		super(LOCUTION_NAME);
 		this.rejectedProposal = rejectedProposal;
 	}
@@ -32,7 +32,7 @@ public class RejectLocution extends AttackingLocution {
 	 * Returns the proposal that is rejected with this reject locution
 	 * @return The attacked proposal object
 	 */
-	public Proposal getRejectedProposal() {
+	public ProposalView getRejectedProposal() {
 		return this.rejectedProposal;
 	}
 	
@@ -2,7 +2,7 @@ package nl.uu.cs.arg.shared.dialogue.locutions;
 
 import java.util.Set;
 
-import nl.uu.cs.arg.shared.dialogue.Proposal;
+import nl.uu.cs.arg.shared.dialogue.ProposalView;
 
 import org.aspic.inference.Constant;
 
@@ -20,9 +20,9 @@ public class WhyProposeLocution extends AttackingLocution {
 	/**
 	 * The proposal that is attacked
 	 */
-	private Proposal targetProposal;
+	private ProposalView targetProposal;
 	
-	public WhyProposeLocution(Proposal targetProposal) {
+	public WhyProposeLocution(ProposalView targetProposal) {
 		super(LOCUTION_NAME);
 		this.targetProposal = targetProposal;
 	}
@@ -31,7 +31,7 @@ public class WhyProposeLocution extends AttackingLocution {
 	 * Returns the proposal that is attacked with this why-propose locution
 	 * @return The attacked proposal object
 	 */
-	public Proposal getAttackedProposal() {
+	public ProposalView getAttackedProposal() {
 		return this.targetProposal;
 	}
 	
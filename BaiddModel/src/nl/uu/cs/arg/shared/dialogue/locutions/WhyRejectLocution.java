@@ -2,7 +2,7 @@ package nl.uu.cs.arg.shared.dialogue.locutions;
 
 import java.util.Set;
 
-import nl.uu.cs.arg.shared.dialogue.Proposal;
+import nl.uu.cs.arg.shared.dialogue.ProposalView;
 
 import org.aspic.inference.Constant;
 
@@ -21,9 +21,9 @@ public class WhyRejectLocution extends AttackingLocution {
 	/**
 	 * The proposal that was rejected
 	 */
-	private Proposal rejectedProposal;
+	private ProposalView rejectedProposal;
 	
-	public WhyRejectLocution(Proposal rejectedProposal) {
+	public WhyRejectLocution(ProposalView rejectedProposal) {
 		super(LOCUTION_NAME);
 		this.rejectedProposal = rejectedProposal;
 	}
@@ -32,7 +32,7 @@ public class WhyRejectLocution extends AttackingLocution {
 	 * Returns the proposal that was originally proposed and rejected in a reject(P) locution and now questioned with a why-reject(P)
 	 * @return The attacked proposal object
 	 */
-	public Proposal getRejectedProposal() {
+	public ProposalView getRejectedProposal() {
 		return this.rejectedProposal;
 	}
 	
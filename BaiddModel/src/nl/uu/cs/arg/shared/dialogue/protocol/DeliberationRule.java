@@ -1,7 +1,9 @@
 package nl.uu.cs.arg.shared.dialogue.protocol;
 
 import nl.uu.cs.arg.shared.dialogue.Dialogue;
+import nl.uu.cs.arg.shared.dialogue.DialogueException;
 import nl.uu.cs.arg.shared.dialogue.Move;
+import nl.uu.cs.arg.shared.dialogue.Proposal;
 import nl.uu.cs.arg.shared.dialogue.locutions.Locution;
 
 /**
@@ -27,10 +29,29 @@ public enum DeliberationRule {
 			return null;
 		}
 	},
+	/**
+	 * Returns an exception if the move repeats one that was played earlier in 
+	 * the same branch of a proposal tree, i.e. by the target or any of the 
+	 * moves above it
+	 */
 	NoRepeatInBranch {
 		@Override
 		public ProtocolException evaluateMove(Dialogue dialogue, Move<? extends Locution> newMove) {
-			// TODO: Implement it (using proposal's .isRepeatedMove or something)
+			if (newMove == null || newMove.getTarget() == null) {
+				return null;
+			}
+			Proposal proposal = dialogue.getProposal(newMove.getTarget());
+			if (proposal == null) {
+				// Not a reply in some proposal tree: this is up to the dialogue itself
+				return null;
+			}
+			try {
+				if (proposal.getBranchIndex(newMove.getTarget()).containsLocution(newMove.getLocution())) {
+					return new ProtocolException(newMove, "The new move repeats a move in the same branch: An agent may not repeat moves of itself or any other player");
+				}
+			} catch (DialogueException e) {
+				return null;
+			}
 			return null;
 		}
 	};
@@ -3,6 +3,7 @@ package nl.uu.cs.arg.shared.dialogue.protocol;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import nl.uu.cs.arg.shared.dialogue.Dialogue;
 import nl.uu.cs.arg.shared.dialogue.Move;
@@ -13,7 +14,7 @@ public enum OutcomeSelectionRule {
 
 	FirstThatIsIn {
 		@Override
-		public Proposal determineOutcome(Dialogue dialogue, List<Move<? extends Locution>> allMoves) {
+		public Proposal determineOutcome(Dialogue dialogue, List<Move<? extends Locution>> allMoves, Random random) {
 			// Select the first proposal that is in
 			for (Proposal proposal : dialogue.getProposals()) {
 				if (proposal.isIn()) {
@@ -26,9 +27,9 @@ public enum OutcomeSelectionRule {
 
 	RandomInProposal {
 		@Override
-		public Proposal determineOutcome(Dialogue dialogue, List<Move<? extends Locution>> allMoves) {
+		public Proposal determineOutcome(Dialogue dialogue, List<Move<? extends Locution>> allMoves, Random random) {
 			ArrayList<Proposal> proposals = new ArrayList<Proposal>(dialogue.getProposals());
-			Collections.shuffle(proposals);
+			Collections.shuffle(proposals, random);
 			// Select the first proposal that is in
 			for (Proposal proposal : proposals) {
 				if (proposal.isIn()) {
@@ -43,8 +44,9 @@ public enum OutcomeSelectionRule {
 	 * Selects a proposal from those made in the dialogue as dialogue outcome
 	 * @param dialogue The final, terminated dialogue
 	 * @param allMoves All legal moves made by the agents, including prefer and other moves not affecting a proposal tree
+	 * @param random The source of randomness for rules that select the outcome at random
 	 * @return The winning proposal, or null if there is no dialogue outcome
 	 */
-	public abstract Proposal determineOutcome(Dialogue dialogue, List<Move<? extends Locution>> allMoves);
+	public abstract Proposal determineOutcome(Dialogue dialogue, List<Move<? extends Locution>> allMoves, Random random);
 	
 }
@@ -6,6 +6,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import org.aspic.inference.Constant;
@@ -40,7 +41,7 @@ public class ScenarioGenerator {
 		Randomly, Evenly
 	}
 
-	public class Pool {
+	public static class Pool {
 		public Pool(List<Term> O, List<Constant> G, List<Constant> B) {
 			this.O = O;
 			this.G = G;
@@ -75,6 +76,7 @@ public class ScenarioGenerator {
 	private final AssignmentMethod beliefAssignment;
 	private final AssignmentMethod roleAssignment;
 	private final ConflictMethod conflictMethod;
+	private final Random random;
 
 	private List<Rule> kb = new ArrayList<Rule>();
 	private int ruleCounter = 0;
@@ -83,6 +85,19 @@ public class ScenarioGenerator {
 			int n_O_s, int n_G_s, int n_O_r, int n_G_r, int l, int n_G_nro,
 			int n_B_ra, int n_B_nra, AssignmentMethod assignment,
 			AssignmentMethod roleAssignment, ConflictMethod conflictMethod) {
+		this(g_d, n_A, n_R, n_B_s, n_O_s, n_G_s, n_O_r, n_G_r, l, n_G_nro, n_B_ra, n_B_nra, assignment,
+				roleAssignment, conflictMethod, new Random());
+	}
+
+	/**
+	 * Creates a scenario generator that draws all its random choices from
+	 * the given generator, so that a seeded generator always results in the
+	 * same scenario
+	 */
+	public ScenarioGenerator(String g_d, int n_A, int n_R, int n_B_s,
+			int n_O_s, int n_G_s, int n_O_r, int n_G_r, int l, int n_G_nro,
+			int n_B_ra, int n_B_nra, AssignmentMethod assignment,
+			AssignmentMethod roleAssignment, ConflictMethod conflictMethod, Random random) {
 		this.g_d = g_d;
 		this.n_A = n_A;
 		this.n_R = n_R;
@@ -98,6 +113,7 @@ public class ScenarioGenerator {
 		this.beliefAssignment = assignment;
 		this.roleAssignment = roleAssignment;
 		this.conflictMethod = conflictMethod;
+		this.random = random;
 	}
 
 	public List<Pool> generate() throws InvalidConfigurationException {
@@ -151,8 +167,8 @@ public class ScenarioGenerator {
 					// Generate rule chain
 					// Randomize the beliefs seedset and the role's goals (so we can
 					// pick a random one to generate this chain to)
-					Collections.shuffle(B_s);
-					Collections.shuffle(role.G);
+					Collections.shuffle(B_s, random);
+					Collections.shuffle(role.G, random);
 					Set<Rule> C_go = new HashSet<Rule>();
 					Constant last = o;
 					for (int i = 0; i < l; i++) {
@@ -168,7 +184,7 @@ public class ScenarioGenerator {
 					}
 
 					// Generate rule chain for the mutual goal
-					Collections.shuffle(B_s);
+					Collections.shuffle(B_s, random);
 					Set<Rule> C_gd = new HashSet<Rule>();
 					Constant last2 = o;
 					for (int i = 0; i < l; i++) {
@@ -202,7 +218,7 @@ public class ScenarioGenerator {
 					if (!role.O.contains(o)) {
 
 						// Randomize the list of chains so we pick one at random to generate negated beliefs for
-						Collections.shuffle(chains);
+						Collections.shuffle(chains, random);
 						// Define all negations for every rule in the chain
 						Set<Rule> B_nro = new HashSet<Rule>();
 						for (Rule rule : chains.get(0)) {
@@ -240,7 +256,7 @@ public class ScenarioGenerator {
 			Pool role;
 			if (roleAssignment == AssignmentMethod.Randomly) {
 				// Get a random role
-				Collections.shuffle(roles);
+				Collections.shuffle(roles, random);
 				role = roles.get(0);
 			} else {
 				// Get the next not-yet-assigned role, or start over again if we
@@ -274,8 +290,8 @@ public class ScenarioGenerator {
 					// Generate rule chain
 					// Randomize the beliefs seedset and the agent's goals (so we can pick a random one to generate this
 					// chain to)
-					Collections.shuffle(B_s);
-					Collections.shuffle(G_a);
+					Collections.shuffle(B_s, random);
+					Collections.shuffle(G_a, random);
 					Set<Rule> C_go = new HashSet<Rule>();
 					Constant last = o;
 					for (int i = 0; i < l; i++) {
@@ -294,7 +310,7 @@ public class ScenarioGenerator {
 
 				} else {
 					
-					Collections.shuffle(B_s);
+					Collections.shuffle(B_s, random);
 					// From all beliefs in the context, either assign the negation of one or generate a conflict chain
 					List<Constant> S = new ArrayList<Constant>(B_s);
 					Constant b = S.remove(0);
@@ -336,7 +352,7 @@ public class ScenarioGenerator {
 						+ " but the list B_s from which to build it is only " + B_s.size() + " long.");
 			}
 			// Generate a chain with the negation as conclusion
-			Collections.shuffle(B_s);
+			Collections.shuffle(B_s, random);
 			Set<Rule> nC = new HashSet<Rule>();
 			Constant last = B_s.get(0);
 			for (int i = 0; i < l; i++) {
@@ -439,7 +455,7 @@ public class ScenarioGenerator {
 		}
 		// Randomize the list first?
 		if (beliefAssignment == AssignmentMethod.Randomly) {
-			Collections.shuffle(list);
+			Collections.shuffle(list, random);
 		}
 		// List is 'ordered' so now assign the first n number of elements
 		List<T> out = new ArrayList<T>();
@@ -1,6 +1,7 @@
 package nl.uu.cs.arg.shared.util;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -37,12 +38,13 @@ public class IndexedNode<T extends IndexedObject> {
      * Return the children of IndexedNode<T>. The IndexedTree<T> is represented by a single
      * root IndexedNode<T> whose children are represented by a List<IndexedNode<T>>. Each of
      * these IndexedNode<T> elements in the List can have children. The getChildren()
-     * method will return the children of a IndexedNode<T>.
+     * method will return the children of a IndexedNode<T>. A node without 
+     * children returns a shared empty list, which can not be changed.
      * @return the children of IndexedNode<T>
      */
     public List<IndexedNode<T>> getChildren() {
         if (this.children == null) {
-            return new ArrayList<IndexedNode<T>>();
+            return Collections.emptyList();
         }
         return this.children;
     }
@@ -1,8 +1,6 @@
 package nl.uu.cs.arg.shared.util;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Represents a Tree of Objects of generic type T. The Tree is represented as
@@ -14,7 +12,8 @@ import java.util.Map;
  * 
  * This particular tree is indexed. It maintains a map connecting unique object
  * indexes to their {@link IndexedNode} objects. This allows for quick access to
- * nodes in the tree.
+ * nodes in the tree. The map is keyed by the primitive indexes directly, so 
+ * adding and finding nodes does not create garbage.
  * 
  * @author Sujit Pal
  * @author erickok
@@ -23,7 +22,7 @@ import java.util.Map;
  */
 public class IndexedTree<T extends IndexedObject> {
  
-	private Map<Long, IndexedNode<T>> index;
+	private LongMap<IndexedNode<T>> index;
 	private IndexedNode<T> rootElement;
      
     /**
@@ -31,7 +30,7 @@ public class IndexedTree<T extends IndexedObject> {
      */
     public IndexedTree() {
         super();
-        index = new HashMap<Long, IndexedNode<T>>();
+        index = new LongMap<IndexedNode<T>>();
     }
  
     /**
@@ -0,0 +1,143 @@
+package nl.uu.cs.arg.shared.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive long keys to objects, such as from move indexes
+ * to the nodes of a dialogue tree. It uses open addressing with linear
+ * probing in two plain arrays, so that, unlike a HashMap<Long, V>, looking
+ * up or adding a key does not box the key or allocate an entry object.
+ *
+ * Null values can not be stored: get returns null for keys that are absent.
+ *
+ * @author erickok
+ */
+public final class LongMap<V> {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] keys;
+	private Object[] values;
+	private int size = 0;
+
+	public LongMap() {
+		this.keys = new long[INITIAL_CAPACITY];
+		this.values = new Object[INITIAL_CAPACITY];
+	}
+
+	// Spreads the key bits (with the SplitMix64 finaliser) as move indexes are consecutive
+	private static int slot(long key, int mask) {
+		key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+		key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+		return (int) (key ^ (key >>> 31)) & mask;
+	}
+
+	/**
+	 * @param key The key to look up
+	 * @return The value stored for the key, or null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int mask = keys.length - 1;
+		for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				return (V) values[i];
+			}
+		}
+		return null;
+	}
+
+	public boolean containsKey(long key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Stores a value for some key, replacing the value that was stored for it
+	 * @param key The key to store the value for
+	 * @param value The value, which may not be null
+	 * @return The value that was stored for the key before, or null if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		if (value == null) {
+			throw new NullPointerException("A LongMap can not store null values");
+		}
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+		for (; values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				V old = (V) values[i];
+				values[i] = value;
+				return old;
+			}
+		}
+		keys[i] = key;
+		values[i] = value;
+		// Keep the table at most half full, so that probe sequences stay short
+		if (++size * 2 > keys.length) {
+			resize(keys.length * 2);
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the value stored for some key
+	 * @param key The key to remove
+	 * @return The value that was stored for the key, or null if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+		for (; values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				break;
+			}
+		}
+		if (values[i] == null) {
+			return null;
+		}
+		V old = (V) values[i];
+		values[i] = null;
+		size--;
+		// Shift back the entries after it that would otherwise no longer be found by their probe sequence
+		for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+			int home = slot(keys[j], mask);
+			if ((j > i && (home <= i || home > j)) || (j < i && home <= i && home > j)) {
+				keys[i] = keys[j];
+				values[i] = values[j];
+				values[j] = null;
+				i = j;
+			}
+		}
+		return old;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new long[capacity];
+		values = new Object[capacity];
+		int mask = capacity - 1;
+		for (int o = 0; o < oldKeys.length; o++) {
+			if (oldValues[o] != null) {
+				int i = slot(oldKeys[o], mask);
+				while (values[i] != null) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[o];
+				values[i] = oldValues[o];
+			}
+		}
+	}
+
+}
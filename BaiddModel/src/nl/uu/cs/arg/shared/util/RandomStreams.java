@@ -0,0 +1,67 @@
+package nl.uu.cs.arg.shared.util;
+
+import java.util.Random;
+
+/**
+ * A tree of independent random number streams derived from a single master
+ * seed. Every stream can be split into child streams by some key (such as a
+ * run number or an agent index), where the seed of a child only depends on
+ * its parent's seed and the key. This way every part of an experiment gets
+ * the same random numbers for the same master seed, regardless of the order
+ * (or the thread) in which the parts are executed.
+ *
+ * The seeds are mixed with the SplitMix64 finaliser, so that streams with
+ * neighbouring keys are not correlated.
+ *
+ * @author erickok
+ */
+public final class RandomStreams {
+
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private final long seed;
+
+	/**
+	 * Creates the root stream for some master seed
+	 * @param seed The master seed
+	 */
+	public RandomStreams(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @return The seed of this stream
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Derives an independent child stream
+	 * @param key The key identifying the child, for example a run number
+	 * @return The child stream, which is the same for every call with the same key
+	 */
+	public RandomStreams split(long key) {
+		return new RandomStreams(mix(seed + mix(key + GOLDEN_GAMMA)));
+	}
+
+	/**
+	 * @return A new random number generator that produces this stream's numbers
+	 */
+	public Random random() {
+		return new Random(mix(seed));
+	}
+
+	private static long mix(long z) {
+		z += GOLDEN_GAMMA;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	@Override
+	public String toString() {
+		return Long.toString(seed);
+	}
+
+}
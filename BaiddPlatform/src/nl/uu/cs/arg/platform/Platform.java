@@ -6,6 +6,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import nl.uu.cs.arg.shared.Agent;
+import nl.uu.cs.arg.shared.SharedDialogueAgent;
 import nl.uu.cs.arg.shared.dialogue.Dialogue;
 import nl.uu.cs.arg.shared.dialogue.DialogueException;
 import nl.uu.cs.arg.shared.dialogue.DialogueMessage;
@@ -25,7 +26,9 @@ import nl.uu.cs.arg.shared.dialogue.protocol.ProtocolException;
 import nl.uu.cs.arg.shared.dialogue.protocol.TerminationMessage;
 import nl.uu.cs.arg.shared.dialogue.protocol.TerminationRule;
 
+import org.aspic.inference.RuleArgument;
 import org.aspic.inference.Term;
+import org.aspic.inference.Variable;
 
 /**
  * The platform manages the running of a single {@link Dialogue} between some
@@ -130,7 +133,10 @@ public class Platform implements Runnable {
 		
 		this.dialogue = new Dialogue(topic, topicGoal);
 		this.allMoves = new ArrayList<Move<? extends Locution>>();
+		// Number the moves, arguments and variables of this dialogue from the start
 		Move.resetMoveCounter();
+		RuleArgument.resetArgCounter();
+		Variable.resetNames();
 		
 		// For each agent, create a participant data structure and initialize it
 		int participantCount = 0;
@@ -143,6 +149,10 @@ public class Platform implements Runnable {
 			
 			// Initialize agent
 			agent.initialize(pa.getParticipant());
+			if (agent instanceof SharedDialogueAgent) {
+				// Agents running in this process can read our dialogue instead of keeping a copy
+				((SharedDialogueAgent) agent).setDialogueView(dialogue.getView());
+			}
 			
 		}
 		lastToMove = null;
@@ -259,8 +269,9 @@ public class Platform implements Runnable {
 	}
 	
 	private void setDialogueState(DialogueState newState) {
-		broadcastMessage(new DialogueStateChangeMessage(newState), false);
+		// Change the state first, so that agents viewing our dialogue see it when they are notified
 		dialogue.setState(newState);
+		broadcastMessage(new DialogueStateChangeMessage(newState), false);
 	}
 	
 	private ParticipatingAgent getNextToMove() {
@@ -421,7 +432,7 @@ public class Platform implements Runnable {
 	private void determineOutcome() {
 		
 		// Get the dialogue outcome and broadcast this message
-		broadcastMessage(new OutcomeMessage(settings.getOutcomeSelectionRule().determineOutcome(dialogue, allMoves)), false);
+		broadcastMessage(new OutcomeMessage(settings.getOutcomeSelectionRule().determineOutcome(dialogue, allMoves, settings.getRandom())), false);
 		
 		// Set the dialogue state to terminated
 		setDialogueState(DialogueState.Terminated);
@@ -1,6 +1,7 @@
 package nl.uu.cs.arg.platform;
 
 import java.util.List;
+import java.util.Random;
 
 import nl.uu.cs.arg.shared.dialogue.protocol.DeliberationRule;
 import nl.uu.cs.arg.shared.dialogue.protocol.OutcomeSelectionRule;
@@ -30,9 +31,14 @@ public class Settings {
 	public final static String APPLICATION_NAME_VERSION = APPLICATION_NAME + " " + APPLICATION_VERSION;
 
 	public Settings(List<DeliberationRule> deliberationRules, List<TerminationRule> terminationRules, OutcomeSelectionRule outcomeSelectionRule) {
+		this(deliberationRules, terminationRules, outcomeSelectionRule, new Random());
+	}
+
+	public Settings(List<DeliberationRule> deliberationRules, List<TerminationRule> terminationRules, OutcomeSelectionRule outcomeSelectionRule, Random random) {
 		this.deliberationRules = deliberationRules;
 		this.terminationRules = terminationRules;
 		this.outcomeSelectionRule = outcomeSelectionRule;
+		this.random = random;
 	}
 
 	/**
@@ -59,4 +65,12 @@ public class Settings {
 		return outcomeSelectionRule;
 	}
 	
+	/**
+	 * The source of randomness of the platform, such as for a random outcome selection; seed it to replay a dialogue
+	 */
+	private final Random random;
+	public Random getRandom() {
+		return random;
+	}
+	
 }
@@ -4,7 +4,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -15,7 +14,7 @@ import nl.uu.cs.arg.shared.Agent;
 import nl.uu.cs.arg.shared.dialogue.DialogueException;
 import nl.uu.cs.arg.shared.dialogue.Goal;
 import nl.uu.cs.arg.shared.dialogue.Move;
-import nl.uu.cs.arg.shared.dialogue.Proposal;
+import nl.uu.cs.arg.shared.dialogue.ProposalView;
 import nl.uu.cs.arg.shared.dialogue.locutions.ArgueLocution;
 import nl.uu.cs.arg.shared.dialogue.locutions.DeliberationLocution;
 import nl.uu.cs.arg.shared.dialogue.locutions.InformLocution;
@@ -31,7 +30,6 @@ import org.aspic.inference.ConstantList;
 import org.aspic.inference.ReasonerException;
 import org.aspic.inference.Rule;
 import org.aspic.inference.RuleArgument;
-import org.aspic.inference.Term;
 import org.aspic.inference.parser.ParseException;
 
 /**
@@ -124,7 +122,7 @@ public class BDIAgent extends DeliberatingAgent implements Agent, StrategyExpose
 				// Do we know about it already?
 				if (!isBeliefInOptions(proposal)) {
 					// Is not known yet: add it as option belief
-					this.optionBeliefs.add(new Rule(proposal));
+					addOptionBelief(new Rule(proposal));
 				}
 				
 			} else if ((Boolean)this.properties.get(Property.AdoptBeliefs) && move.getLocution() instanceof DeliberationLocution) {
@@ -140,17 +138,23 @@ public class BDIAgent extends DeliberatingAgent implements Agent, StrategyExpose
 							beliefs.addRule((Rule)b);
 						}*/
 					} else {
-						// We add constants and terms directly, if they are not options or the mutual goal
-						if (!dialogue.getTopicGoal().getGoalContent().equals(b) && 
-								!dialogue.getTopic().isUnifiable(b) && !beliefs.ruleExists(new Rule(b))) {
-							if ((Boolean)this.properties.get(Property.AdoptOnlyBeliefsWithoutCounterargument)) {
-								List<RuleArgument> proofs = helper.findProof(new ConstantList(b.negation()), 0.0, this.beliefs, this.optionBeliefs, null);
-								if (proofs.size() == 0) {
-									beliefs.addRule(new Rule(b));
-								}
-							} else {
-								beliefs.addRule(new Rule(b));
+						// We adopt constants and terms directly, if they are not options or the mutual goal
+						if (dialogue.getTopicGoal().getGoalContent().equals(b) || dialogue.getTopic().isUnifiable(b)) {
+							continue;
+						}
+						Rule fact = new Rule(b);
+						if (isKnownFact(fact)) {
+							continue;
+						}
+						if ((Boolean)this.properties.get(Property.AdoptOnlyBeliefsWithoutCounterargument)) {
+							// The search for a counterargument should see the beliefs adopted before, so add it right away
+							List<RuleArgument> proofs = helper.findProof(new ConstantList(b.negation()), 0.0, this.beliefs, this.optionBeliefs, null);
+							if (proofs.size() == 0) {
+								adoptFact(fact);
+								commitAdoptedFacts();
 							}
+						} else {
+							adoptFact(fact);
 						}
 					}
 					
@@ -160,40 +164,8 @@ public class BDIAgent extends DeliberatingAgent implements Agent, StrategyExpose
 			
 		}
 		
-	}
-
-	/**
-	 * Considering the beliefbase and a set of goals, generate new options. 
-	 * This is done by querying on the dialogue topic, considering our belief base
-	 * and option beliefs and see if we can form an argument. The proof of such 
-	 * an argument will contain a bottom-level rule with the concrete proposal.
-	 * @return A list of all the options we can think of
-	 */
-	@Override
-	protected List<Constant> generateOptions() throws ParseException, ReasonerException {
-	
-		Term topic = this.dialogue.getTopic();
-		List<RuleArgument> proofs = helper.findProof(new ConstantList(topic), 0.0, this.beliefs, this.optionBeliefs, null);
-		List<Constant> found = new ArrayList<Constant>();
-		
-		// If there are arguments found, use one to create a new proposal
-		for (RuleArgument proof : proofs) {
-			
-			// Look into the sub-arguments to get the original concrete instantiation of the topic
-			// (This sub-arguments iterator is handles the recursion)
-			Iterator<RuleArgument> iter = proof.subArgumentIterator();
-			while (iter.hasNext()) {
-				RuleArgument arg = iter.next();
-				
-				// If we have found the bottom-level rule, add this as the concrete proposal (but no duplicates)
-				if (arg.isAtomic() && arg.getClaim() instanceof Term && arg.getClaim().isUnifiable(topic) && !found.contains(arg.getClaim())) {
-					found.add((Term) arg.getClaim());
-					break;
-				}
-			}			
-			
-		}
-		return found;
+		// Add the beliefs adopted in this round in one go
+		commitAdoptedFacts();
 		
 	}
 
@@ -206,22 +178,20 @@ public class BDIAgent extends DeliberatingAgent implements Agent, StrategyExpose
 	@Override
 	protected List<ValuedOption> evaluateAllOptions(List<Constant> options) throws ParseException, ReasonerException {
 		
-		// For each of the known options (including existing proposals)
+		// Determine which goals each of the known options (including existing proposals) satisfies
+		SatisfactionMatrix satisfaction = evaluateGoalSatisfaction(options, allPersonalGoals());
 		List<ValuedOption> valuedOptions = new ArrayList<ValuedOption>();
-		for (Constant option : options) {
-			
-			// Determine which goals this option satisfies
-			Set<Goal> satisfied = helper.evaluateGoalSatisfaction(option, allPersonalGoals(), this.beliefs);
+		for (int o = 0; o < options.size(); o++) {
 			
 			// Sum the goal utilities to form the option utility 
 			int optionUtility = 0;
-			for (Goal goal : satisfied) {
+			for (Goal goal : satisfaction.getSatisfiedGoals(o)) {
 				// NOTE: We don't consider goals that we have no utility value for
 				if (goal instanceof ValuedGoal) {
 					optionUtility += ((ValuedGoal)goal).getUtility();
 				}
 			}
-			valuedOptions.add(new ValuedOption(option, optionUtility));
+			valuedOptions.add(new ValuedOption(options.get(o), optionUtility));
 			
 		}
 		return valuedOptions;
@@ -302,8 +272,8 @@ public class BDIAgent extends DeliberatingAgent implements Agent, StrategyExpose
 		for (ValuedOption option : valuedOptions) {
 			
 			// See if it already exists in the dialogue as proposal
-			Proposal existingProposal = null;
-			for (Proposal proposed : this.dialogue.getProposals()) {
+			ProposalView existingProposal = null;
+			for (ProposalView proposed : this.dialogue.getProposals()) {
 				if (proposed.getProposalLocution().getConcreteProposal().equals(option.getOption())) {
 					existingProposal = proposed;
 					break;
@@ -367,19 +337,19 @@ public class BDIAgent extends DeliberatingAgent implements Agent, StrategyExpose
 				RuleArgument newArgue = null;
 				if (attacker instanceof WhyProposeLocution) {
 					// Find argument to support a goal given this proposal
-					newArgue = helper.generateArgument(this.beliefs, topicGoal, 0.0, attackMove, replies, 
+					newArgue = helper.generateArgument(this.beliefs, topicGoal, 0.0, existingProposal, attackMove, replies, 
 							optionAsKnowledge, requireOptionPremise);
 				} else if (attacker instanceof WhyRejectLocution) {
 					// Find argument for the negation of a goal given this proposal
-					newArgue = helper.generateArgument(this.beliefs, topicGoal.negation(), 0.0, attackMove, replies, 
+					newArgue = helper.generateArgument(this.beliefs, topicGoal.negation(), 0.0, existingProposal, attackMove, replies, 
 							optionAsKnowledge, requireOptionPremise);
 				} else if (attacker instanceof WhyLocution) {
 					// Find argument to support a premise that was questioned in a why move
 					newArgue = helper.generateArgument(this.beliefs, ((WhyLocution)attacker).getAttackedPremise(), 
-							0.0, attackMove, replies);
+							0.0, existingProposal, attackMove, replies);
 				} else if (attacker instanceof ArgueLocution) {
 					newArgue = helper.generateCounterAttack(this.beliefs, ((ArgueLocution)attacker).getArgument(), 
-							(Move<ArgueLocution>) attackMove, replies, optionAsKnowledge);
+							existingProposal, (Move<ArgueLocution>) attackMove, replies, optionAsKnowledge);
 				}
 				// Found an argument? Then make the move
 				if (newArgue != null) {
@@ -408,7 +378,7 @@ public class BDIAgent extends DeliberatingAgent implements Agent, StrategyExpose
 						// No why-propose reply yet: check if we can (should) make this move
 						if (!((Boolean) this.properties.get(Property.OnlyWhyProposeIfCounterArgument)) ||
 								helper.generateArgument(this.beliefs, dialogue.getTopicGoal().getGoalContent(), 0.0, 
-										attackMove, replies, optionAsKnowledge, requireOptionPremise) != null) {
+										existingProposal, attackMove, replies, optionAsKnowledge, requireOptionPremise) != null) {
 							moves.add(Move.buildMove(this.participant, attackMove, new WhyProposeLocution(existingProposal)));
 							break;
 						}
@@ -416,7 +386,7 @@ public class BDIAgent extends DeliberatingAgent implements Agent, StrategyExpose
 						// No reject reply yet: check if we can (should) make this move
 						if (!((Boolean) this.properties.get(Property.OnlyRejectIfCounterArgument)) ||
 								helper.generateArgument(this.beliefs, dialogue.getTopicGoal().getGoalContent().negation(), 0.0, 
-										attackMove, replies, optionAsKnowledge, requireOptionPremise) != null) {
+										existingProposal, attackMove, replies, optionAsKnowledge, requireOptionPremise) != null) {
 							moves.add(Move.buildMove(this.participant, attackMove, new RejectLocution(existingProposal)));
 							break;
 						}
@@ -437,7 +407,7 @@ public class BDIAgent extends DeliberatingAgent implements Agent, StrategyExpose
 						// No why-reject reply yet: check if we can (should) make this move
 						if (!((Boolean) this.properties.get(Property.OnlyWhyRejectIfArgument)) ||
 								helper.generateArgument(this.beliefs, this.dialogue.getTopicGoal().getGoalContent(), 
-										0.0, attackMove, replies, optionAsKnowledge) == null) {
+										0.0, existingProposal, attackMove, replies, optionAsKnowledge) == null) {
 							moves.add(Move.buildMove(this.participant, attackMove, new WhyRejectLocution(existingProposal)));
 							break;
 						}
@@ -450,7 +420,7 @@ public class BDIAgent extends DeliberatingAgent implements Agent, StrategyExpose
 					if ((Boolean) this.properties.get(Property.OnlyWhyIfCounterArgument)) {
 						// Check if we actually have a counter argument
 						RuleArgument underminer = helper.generateUnderminerOrUndercutter(this.beliefs, ((ArgueLocution)attacker).getArgument(), 
-								(Move<ArgueLocution>) attackMove, replies, optionAsKnowledge);
+								existingProposal, (Move<ArgueLocution>) attackMove, replies, optionAsKnowledge);
 						if (underminer != null) {
 							whyLocution = new WhyLocution(underminer.getClaim().negation());
 						}
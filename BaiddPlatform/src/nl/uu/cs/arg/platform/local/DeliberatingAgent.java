@@ -8,12 +8,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import nl.uu.cs.arg.shared.Agent;
 import nl.uu.cs.arg.shared.Participant;
+import nl.uu.cs.arg.shared.SharedDialogueAgent;
 import nl.uu.cs.arg.shared.dialogue.Dialogue;
 import nl.uu.cs.arg.shared.dialogue.DialogueException;
 import nl.uu.cs.arg.shared.dialogue.DialogueMessage;
 import nl.uu.cs.arg.shared.dialogue.DialogueState;
+import nl.uu.cs.arg.shared.dialogue.DialogueView;
 import nl.uu.cs.arg.shared.dialogue.DialogueStateChangeMessage;
 import nl.uu.cs.arg.shared.dialogue.Goal;
 import nl.uu.cs.arg.shared.dialogue.Move;
@@ -23,12 +24,10 @@ import nl.uu.cs.arg.shared.dialogue.locutions.Locution;
 import nl.uu.cs.arg.shared.dialogue.locutions.OpenDialogueLocution;
 
 import org.aspic.inference.Constant;
-import org.aspic.inference.ConstantList;
+import org.aspic.inference.Fingerprint;
 import org.aspic.inference.KnowledgeBase;
 import org.aspic.inference.ReasonerException;
 import org.aspic.inference.Rule;
-import org.aspic.inference.RuleArgument;
-import org.aspic.inference.Term;
 import org.aspic.inference.parser.ParseException;
 
 /**
@@ -37,15 +36,21 @@ import org.aspic.inference.parser.ParseException;
  * @author erickok
  *
  */
-public abstract class DeliberatingAgent implements Agent, StrategyExposer {
+public abstract class DeliberatingAgent implements SharedDialogueAgent, StrategyExposer {
 
 	private static final String NAME = "Deliberating agent";
 	protected String name = NAME;
+	private static final int PROOF_CACHE_SIZE = 1000;
 
-	protected StrategyHelper helper = StrategyHelper.DefaultHelper;
+	// Every agent has its own helper, as it remembers the proofs found on our beliefs
+	protected StrategyHelper helper = new StrategyHelper(StrategyHelper.DefaultHelper.getReasonerToUse());
 	protected Participant participant;
 	protected List<Participant> participants = new ArrayList<Participant>();
-	protected Dialogue dialogue;
+	protected DialogueView dialogue;
+	// Our own copy of the dialogue, only kept when the platform does not share its dialogue with us
+	private Dialogue ownDialogue = null;
+	// Whether the platform gave us a view on the dialogue that we are about to join
+	private boolean dialogueViewSet = false;
 	protected int skipCount = 0;
 	
 	protected KnowledgeBase beliefs;
@@ -54,12 +59,27 @@ public abstract class DeliberatingAgent implements Agent, StrategyExposer {
 	protected List<Goal> goalsPublic;
 	protected Set<Constant> initialBeliefs;
 	
+	// The option valuation is kept between turns and only redone for what the changed beliefs may affect
+	private List<Constant> knownOptions = null;
+	// Bumped whenever an option belief is added, so the options known are from before that if they have an older version
+	private int optionBeliefsVersion = 0;
+	private int knownOptionsVersion = 0;
+	private Map<Constant, Map<Goal, Double>> knownSatisfaction = new HashMap<Constant, Map<Goal, Double>>();
+	private Set<Constant> changedBeliefs = new HashSet<Constant>();
+	private Map<Constant, Set<String>> relevance = new HashMap<Constant, Set<String>>();
+	private boolean valuationReusable = true;
+	// The facts in our beliefs by the fingerprint of their claim, such that adopting a belief needs no scan of the 
+	// belief base, and the facts that were adopted but not yet added to it
+	private Map<String, List<Rule>> knownFacts = null;
+	private List<Rule> adoptedFacts = new ArrayList<Rule>();
+	
 	protected DeliberatingAgent(String name, Map<String, Object> rawProperties, KnowledgeBase beliefs, List<Rule> optionBeliefs, List<Goal> goalsHidden, List<Goal> goalsPublic) {
 		this.name = name;
 		this.beliefs = beliefs;
 		this.optionBeliefs = optionBeliefs;
 		this.goalsHidden = goalsHidden;
 		this.goalsPublic = goalsPublic;
+		this.helper.enableProofCache(PROOF_CACHE_SIZE);
 		this.initialBeliefs = new HashSet<Constant>();
 		this.initialBeliefs.addAll(this.beliefs.getRules());
 		this.initialBeliefs.addAll(this.optionBeliefs);
@@ -84,6 +104,23 @@ public abstract class DeliberatingAgent implements Agent, StrategyExposer {
 				xmlDataFile.getPublicGoals());
 	}
 
+	/**
+	 * Shares the goal satisfaction and option generation results of this agent with (or takes them from) the same 
+	 * agent in other dialogues on the same scenario
+	 * @param cache The reasoning cache of the scenario
+	 * @param fill Whether this agent adds its results to the cache, or only reads from it
+	 */
+	public void setReasoningCache(ReasoningCache cache, boolean fill) {
+		this.helper.setReasoningCache(cache, name, fill);
+	}
+
+	/**
+	 * @return The helper that this agent reasons with, which also counts how often its remembered proofs were used
+	 */
+	public StrategyHelper getStrategyHelper() {
+		return this.helper;
+	}
+
 	@Override
 	public String getName() {
 		return this.name;
@@ -94,12 +131,24 @@ public abstract class DeliberatingAgent implements Agent, StrategyExposer {
 		this.participant = participant;
 	}
 
+	@Override
+	public void setDialogueView(DialogueView dialogue) {
+		this.dialogue = dialogue;
+		this.ownDialogue = null;
+		this.dialogueViewSet = true;
+	}
+
 	@Override
 	public Move<? extends Locution> decideToJoin(OpenDialogueLocution openDialogue) {
 		
-		// Store the dialogue (with topic and goal)
-		this.dialogue = new Dialogue(openDialogue.getTopic(), openDialogue.getTopicGoal());
-		this.dialogue.setState(DialogueState.Joining);
+		// Store the dialogue (with topic and goal), unless we can view the platform's dialogue; a view or copy that 
+		// is left from an earlier dialogue is replaced, and a next dialogue needs a view of its own again
+		if (!this.dialogueViewSet) {
+			this.ownDialogue = new Dialogue(openDialogue.getTopic(), openDialogue.getTopicGoal());
+			this.ownDialogue.setState(DialogueState.Joining);
+			this.dialogue = this.ownDialogue.getView();
+		}
+		this.dialogueViewSet = false;
 		
 		// Always join the dialogue
 		Move<JoinDialogueLocution> join = Move.buildMove(participant, null, new JoinDialogueLocution(openDialogue.getTopic()));
@@ -116,6 +165,7 @@ public abstract class DeliberatingAgent implements Agent, StrategyExposer {
 			// See onNewMovesReceived
 			
 			// 2: Option generation
+			invalidateValuation();
 			List<Constant> options = generateOptions();
 			
 			// 3: Option evaluation
@@ -145,37 +195,202 @@ public abstract class DeliberatingAgent implements Agent, StrategyExposer {
 	 */
 	protected abstract void storeNewBeliefs(List<Move<? extends Locution>> moves) throws ParseException, ReasonerException;
 
+	/**
+	 * Adds a new option belief, such that the options are generated again 
+	 * the next time; option beliefs should only be added by this method
+	 * @param option The option belief to add
+	 */
+	protected void addOptionBelief(Rule option) {
+		this.optionBeliefs.add(option);
+		optionBeliefsVersion++;
+	}
+
+	/**
+	 * Returns whether some fact is in our belief base already (or was adopted 
+	 * to be added to it), modulo the names of variables
+	 * @param fact The fact to look for
+	 * @return True if the belief base has a fact that is equal to it
+	 */
+	protected boolean isKnownFact(Rule fact) {
+		if (knownFacts == null) {
+			knownFacts = new HashMap<String, List<Rule>>();
+			for (Iterator<Rule> rules = this.beliefs.ruleIterator(); rules.hasNext();) {
+				Rule rule = rules.next();
+				if (rule.isFact()) {
+					indexFact(rule);
+				}
+			}
+			for (Rule adopted : adoptedFacts) {
+				indexFact(adopted);
+			}
+		}
+		List<Rule> known = knownFacts.get(Fingerprint.of(fact.getConsequent()));
+		if (known != null) {
+			for (Rule k : known) {
+				if (k.isEqualModuloVariables(fact)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void indexFact(Rule fact) {
+		String fingerprint = Fingerprint.of(fact.getConsequent());
+		List<Rule> known = knownFacts.get(fingerprint);
+		if (known == null) {
+			known = new ArrayList<Rule>(1);
+			knownFacts.put(fingerprint, known);
+		}
+		known.add(fact);
+	}
+
+	/**
+	 * Adopts a new fact, which is only added to the belief base when the 
+	 * adopted facts are committed; until then it is already known
+	 * @param fact A fact that is not known yet
+	 */
+	protected void adoptFact(Rule fact) {
+		if (knownFacts != null) {
+			indexFact(fact);
+		}
+		adoptedFacts.add(fact);
+	}
+
+	/**
+	 * Adds all adopted facts to the belief base at once and updates the 
+	 * option valuation and proof cache for them only once
+	 */
+	protected void commitAdoptedFacts() {
+		if (adoptedFacts.isEmpty()) {
+			return;
+		}
+		this.beliefs.addNewFacts(adoptedFacts);
+		for (Rule fact : adoptedFacts) {
+			changedBeliefs.add(fact.getConsequent());
+		}
+		helper.invalidateProofCache();
+		adoptedFacts.clear();
+	}
+
+	/**
+	 * Forgets the options and goal satisfactions that may have changed by the 
+	 * beliefs that changed since the last valuation. An adopted belief can only 
+	 * matter to a goal (or the topic) if it shares its predicate with, or is 
+	 * the negation of, some element of a rule that (indirectly) concludes the 
+	 * goal or one of its attackers. When some of our rules are still bound to 
+	 * the knowledge base of another agent, the outcome depends on that agent's 
+	 * beliefs too and nothing is kept.
+	 */
+	private void invalidateValuation() {
+		helper.invalidateBindings();
+		valuationReusable = StrategyHelper.isSelfContained(this.beliefs);
+		if (!valuationReusable) {
+			knownOptions = null;
+			knownSatisfaction.clear();
+			changedBeliefs.clear();
+			return;
+		}
+		if (changedBeliefs.isEmpty()) {
+			return;
+		}
+		for (Constant belief : changedBeliefs) {
+			if (belief instanceof Rule && !((Rule) belief).isFact()) {
+				// New rules can make anything relevant
+				relevance.clear();
+			}
+		}
+		if (knownOptions != null && isAffected(this.dialogue.getTopic())) {
+			knownOptions = null;
+		}
+		List<Goal> goals = new ArrayList<Goal>(this.goalsHidden);
+		goals.addAll(this.goalsPublic);
+		for (Goal goal : goals) {
+			if (isAffected(goal.getGoalContent())) {
+				for (Map<Goal, Double> satisfaction : knownSatisfaction.values()) {
+					satisfaction.remove(goal);
+				}
+			}
+		}
+		changedBeliefs.clear();
+	}
+
+	private boolean isAffected(Constant query) {
+		Set<String> relevant = relevance.get(query);
+		if (relevant == null) {
+			relevant = StrategyHelper.relevantPredicates(query, this.beliefs);
+			relevance.put(query, relevant);
+		}
+		for (Constant belief : changedBeliefs) {
+			Constant fact = belief instanceof Rule? ((Rule) belief).getConsequent(): belief;
+			if (relevant.contains(fact.ruleTag())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Considering the beliefbase and a set of goals, generate new options. 
 	 * This is done by querying on the dialogue topic, considering our belief base
 	 * and option beliefs and see if we can form an argument. The proof of such 
 	 * an argument will contain a bottom-level rule with the concrete proposal.
+	 * The options found earlier are reused when no new option beliefs or 
+	 * relevant beliefs were added since.
 	 * @return A list of all the options we can think of
 	 */
 	protected List<Constant> generateOptions() throws ParseException, ReasonerException {
 	
-		Term topic = this.dialogue.getTopic();
-		List<RuleArgument> proofs = helper.findProof(new ConstantList(topic), 0.0, this.beliefs, this.optionBeliefs, null);
-		List<Constant> found = new ArrayList<Constant>();
+		if (knownOptions == null || knownOptionsVersion != optionBeliefsVersion) {
+			List<Constant> options = helper.generateOptions(this.dialogue.getTopic(), this.beliefs, this.optionBeliefs);
+			if (!valuationReusable) {
+				return options;
+			}
+			knownOptions = options;
+			knownOptionsVersion = optionBeliefsVersion;
+		} else {
+			helper.bindOptions(this.dialogue.getTopic(), this.beliefs, this.optionBeliefs);
+		}
+		return new ArrayList<Constant>(knownOptions);
 		
-		// If there are arguments found, use one to create a new proposal
-		for (RuleArgument proof : proofs) {
-			
-			// Look into the sub-arguments to get the original concrete instantiation of the topic
-			// (This sub-arguments iterator is handles the recursion)
-			Iterator<RuleArgument> iter = proof.subArgumentIterator();
-			while (iter.hasNext()) {
-				RuleArgument arg = iter.next();
-				
-				// If we have found the bottom-level rule, add this as the concrete proposal (but no duplicates)
-				if (arg.isAtomic() && arg.getClaim() instanceof Term && arg.getClaim().isUnifiable(topic) && !found.contains(arg.getClaim())) {
-					found.add((Term) arg.getClaim());
-					break;
+	}
+
+	/**
+	 * Determines which goals are satisfied by some options, and how strongly, 
+	 * only querying for the goals of which the satisfaction by an option is 
+	 * not yet known or may have changed since
+	 * @param options The options to check goal satisfaction for
+	 * @param goals All the goals to consider
+	 * @return The satisfaction strength of every option for every goal
+	 */
+	protected SatisfactionMatrix evaluateGoalSatisfaction(List<Constant> options, List<Goal> goals) throws ParseException, ReasonerException {
+		
+		SatisfactionMatrix matrix = new SatisfactionMatrix(options, goals);
+		for (int o = 0; o < options.size(); o++) {
+			Map<Goal, Double> known = knownSatisfaction.get(options.get(o));
+			for (int g = 0; known != null && g < goals.size(); g++) {
+				Double strength = known.get(goals.get(g));
+				if (strength != null) {
+					matrix.setStrength(o, g, strength);
 				}
-			}			
-			
+			}
+		}
+		helper.evaluateGoalSatisfaction(matrix, this.beliefs);
+		if (!valuationReusable) {
+			knownSatisfaction.clear();
+			return matrix;
 		}
-		return found;
+		for (int o = 0; o < options.size(); o++) {
+			Map<Goal, Double> known = knownSatisfaction.get(options.get(o));
+			if (known == null) {
+				known = new HashMap<Goal, Double>();
+				knownSatisfaction.put(options.get(o), known);
+			}
+			for (int g = 0; g < goals.size(); g++) {
+				known.put(goals.get(g), matrix.getStrength(o, g));
+			}
+		}
+		return matrix;
 		
 	}
 
@@ -208,6 +423,9 @@ public abstract class DeliberatingAgent implements Agent, StrategyExposer {
 	@Override
 	public void onNewMovesReceived(List<Move<? extends Locution>> moves) {
 		
+		// Other agents may have rebound our beliefs since we last reasoned
+		helper.invalidateBindings();
+
 		// Update our knowledge of the agents that are playing
 		for (Move<? extends Locution> move : moves) {
 			if (move.getLocution() instanceof JoinDialogueLocution) {
@@ -218,10 +436,10 @@ public abstract class DeliberatingAgent implements Agent, StrategyExposer {
 		// Update the skip count
 		skipCount = 0;
 		
-		// Update our internal dialogue model
+		// Update our internal dialogue model (a shared dialogue is already updated by the platform)
 		try {
-			if (this.dialogue != null) {
-				this.dialogue.update(moves);
+			if (this.ownDialogue != null) {
+				this.ownDialogue.update(moves);
 			}
 		} catch (DialogueException e) {
 			// Invalid moves were played by some agent: ignore this
@@ -246,9 +464,9 @@ public abstract class DeliberatingAgent implements Agent, StrategyExposer {
 	@Override
 	public void onDialogueMessagesReceived(List<? extends DialogueMessage> messages) {
 		for (DialogueMessage message : messages) {
-			if (dialogue != null && message instanceof DialogueStateChangeMessage) {
+			if (ownDialogue != null && message instanceof DialogueStateChangeMessage) {
 				// Update the state of our dialogue
-				dialogue.setState(((DialogueStateChangeMessage)message).getNewState());
+				ownDialogue.setState(((DialogueStateChangeMessage)message).getNewState());
 			} else if (dialogue != null && message instanceof SkipMoveMessage) {
 				// Update the skip count
 				skipCount++;
@@ -267,6 +485,7 @@ public abstract class DeliberatingAgent implements Agent, StrategyExposer {
 	@Override
 	public List<ValuedOption> getAllOptions() {
 		try {
+			invalidateValuation();
 			return this.evaluateAllOptions(generateOptions());
 		} catch (ParseException e) {
 			e.printStackTrace();
@@ -0,0 +1,131 @@
+package nl.uu.cs.arg.platform.local;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspic.inference.Constant;
+import org.aspic.inference.ConstantList;
+import org.aspic.inference.Element;
+import org.aspic.inference.KnowledgeBase;
+import org.aspic.inference.Rule;
+
+/**
+ * Reasoning results of the agents of one scenario, to be shared between the
+ * dialogues that play this scenario with different strategy configurations.
+ * Every agent starts such a dialogue with the same knowledge, so until the
+ * dialogues diverge the agents ask the same queries on the same knowledge
+ * bases. One dialogue fills the cache and the others only read from it.
+ *
+ * Results are stored by agent, a hash of the full knowledge base content
+ * (including the rule names and the order in which the reasoner sees the
+ * rules) and the query. Only answers that do not hold the reasoner's
+ * arguments are stored: whether a goal is satisfied and which option
+ * beliefs an agent can propose. Arguments keep a reference to the
+ * knowledge base they were built on, so they can not be shared with the
+ * agents of another dialogue.
+ *
+ * @author erickok
+ */
+public class ReasoningCache {
+
+	// Queries made late in a dialogue are unlikely to be asked in another one
+	public static final int MAX_ENTRIES = 50000;
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final ConcurrentHashMap<String, Double> satisfaction = new ConcurrentHashMap<String, Double>();
+	private final ConcurrentHashMap<String, int[]> options = new ConcurrentHashMap<String, int[]>();
+
+	/**
+	 * Builds the key of a query
+	 * @param agent The name of the agent asking the query
+	 * @param kbHash The content hash of the knowledge base that is queried, or null if it has none
+	 * @param kb The knowledge base that is queried
+	 * @param addKnowledge The rules that are temporarily added to the knowledge base for this query, or null
+	 * @param query The query
+	 * @param needed The minimum required degree of belief of the proofs
+	 * @param requiredPremise The premise that the proofs should be based on, or null
+	 * @return The key to look up and store the answer with, or null if the answer can not be cached because (part
+	 * of) the query or the knowledge base is bound to another knowledge base
+	 */
+	public String key(String agent, Long kbHash, KnowledgeBase kb, List<Rule> addKnowledge, ConstantList query,
+			Double needed, Constant requiredPremise) {
+		if (kbHash == null || (query.getKnowledgeBase() != null && query.getKnowledgeBase() != kb)) {
+			return null;
+		}
+		for (Element element : query) {
+			if (element.getKnowledgeBase() != null && element.getKnowledgeBase() != kb) {
+				return null;
+			}
+		}
+		StringBuilder key = new StringBuilder(agent).append('\n').append(Long.toHexString(kbHash)).append('\n');
+		if (addKnowledge != null) {
+			for (Rule rule : addKnowledge) {
+				key.append(rule.inspect(true, true)).append('\n');
+			}
+		}
+		key.append(query.inspect()).append('\n').append(needed).append('\n');
+		if (requiredPremise != null) {
+			key.append(requiredPremise.inspect());
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Hashes all rules of a knowledge base, in the order in which the reasoner sees them
+	 * @param kb The knowledge base
+	 * @return A 64 bit (FNV-1a) hash of the knowledge base content, or null if some rule is (partly) bound to another
+	 * knowledge base, such as a belief that was adopted from another agent, which the reasoner would then consult too
+	 */
+	public static Long contentHash(KnowledgeBase kb) {
+		if (!StrategyHelper.isSelfContained(kb)) {
+			return null;
+		}
+		long hash = FNV_OFFSET;
+		for (Iterator<Rule> rules = kb.ruleIterator(); rules.hasNext();) {
+			String rule = rules.next().inspect(true, true);
+			for (int i = 0; i < rule.length(); i++) {
+				hash = (hash ^ rule.charAt(i)) * FNV_PRIME;
+			}
+			hash = (hash ^ '\n') * FNV_PRIME;
+		}
+		return hash;
+	}
+
+	/**
+	 * @param key The key of a goal query, asked with the option added to the knowledge base
+	 * @return The strength with which the goal was satisfied when this was asked before (or
+	 * {@link SatisfactionMatrix#NOT_SATISFIED}), or null if it was not cached
+	 */
+	public Double getSatisfaction(String key) {
+		return satisfaction.get(key);
+	}
+
+	public void putSatisfaction(String key, double strength) {
+		if (size() < MAX_ENTRIES) {
+			satisfaction.putIfAbsent(key, strength);
+		}
+	}
+
+	/**
+	 * @param key The key of a topic query, asked with the option beliefs added to the knowledge base
+	 * @return The indices (in the agent's option beliefs) of the options that were found when this was asked before,
+	 * in the order they were found, or null if it was not cached
+	 */
+	public int[] getOptions(String key) {
+		return options.get(key);
+	}
+
+	public void putOptions(String key, int[] found) {
+		if (size() < MAX_ENTRIES) {
+			options.putIfAbsent(key, found.clone());
+		}
+	}
+
+	public int size() {
+		return satisfaction.size() + options.size();
+	}
+
+}
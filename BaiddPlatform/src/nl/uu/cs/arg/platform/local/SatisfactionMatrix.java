@@ -0,0 +1,90 @@
+package nl.uu.cs.arg.platform.local;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import nl.uu.cs.arg.shared.dialogue.Goal;
+
+import org.aspic.inference.Constant;
+
+/**
+ * The goal satisfaction of a list of options, as the strength with which
+ * every option satisfies every goal. The strength is the highest degree of
+ * belief of the arguments that could be formed for the goal with the option
+ * as premise, or {@link #NOT_SATISFIED} if there are none. Note that an
+ * argument with a degree of belief of 0 still satisfies the goal. Strengths
+ * that were not determined yet are NaN.
+ *
+ * @author erickok
+ *
+ */
+public class SatisfactionMatrix {
+
+	/**
+	 * The strength of a goal that can not be argued for with the option at all
+	 */
+	public static final double NOT_SATISFIED = -1;
+
+	private final List<Constant> options;
+	private final List<Goal> goals;
+	private final double[][] strengths;
+
+	public SatisfactionMatrix(List<Constant> options, List<Goal> goals) {
+		this.options = options;
+		this.goals = goals;
+		this.strengths = new double[options.size()][goals.size()];
+		for (double[] row : strengths) {
+			Arrays.fill(row, Double.NaN);
+		}
+	}
+
+	public List<Constant> getOptions() {
+		return options;
+	}
+
+	public List<Goal> getGoals() {
+		return goals;
+	}
+
+	/**
+	 * The strength with which some option satisfies some goal
+	 * @param option The index of the option
+	 * @param goal The index of the goal
+	 * @return The highest degree of belief of an argument for the goal based on the option, or {@link #NOT_SATISFIED}
+	 * if the goal is not satisfied by it
+	 */
+	public double getStrength(int option, int goal) {
+		return strengths[option][goal];
+	}
+
+	public void setStrength(int option, int goal, double strength) {
+		strengths[option][goal] = strength;
+	}
+
+	public boolean isKnown(int option, int goal) {
+		return !Double.isNaN(strengths[option][goal]);
+	}
+
+	public boolean isSatisfied(int option, int goal) {
+		// NaN (unknown) is not satisfied either
+		return strengths[option][goal] >= 0;
+	}
+
+	/**
+	 * Returns the goals that some option satisfies
+	 * @param option The index of the option
+	 * @return The set of goals satisfied by the option
+	 */
+	public Set<Goal> getSatisfiedGoals(int option) {
+		Set<Goal> satisfied = new HashSet<Goal>();
+		for (int g = 0; g < goals.size(); g++) {
+			if (isSatisfied(option, g)) {
+				satisfied.add(goals.get(g));
+			}
+		}
+		return satisfied;
+	}
+
+}
@@ -2,15 +2,22 @@ package nl.uu.cs.arg.platform.local;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import nl.uu.cs.arg.shared.dialogue.BranchIndex;
 import nl.uu.cs.arg.shared.dialogue.DialogueException;
 import nl.uu.cs.arg.shared.dialogue.Goal;
 import nl.uu.cs.arg.shared.dialogue.Move;
-import nl.uu.cs.arg.shared.dialogue.Proposal;
+import nl.uu.cs.arg.shared.dialogue.ProposalView;
 import nl.uu.cs.arg.shared.dialogue.locutions.ArgueLocution;
 import nl.uu.cs.arg.shared.dialogue.locutions.Locution;
 import nl.uu.cs.arg.shared.dialogue.locutions.WhyLocution;
@@ -18,14 +25,17 @@ import nl.uu.cs.arg.shared.dialogue.locutions.WhyLocution;
 import org.aspic.inference.Constant;
 import org.aspic.inference.ConstantList;
 import org.aspic.inference.Engine;
+import org.aspic.inference.Fingerprint;
 import org.aspic.inference.Engine.Property;
 import org.aspic.inference.Element;
 import org.aspic.inference.KnowledgeBase;
+import org.aspic.inference.KnowledgeBaseSource;
 import org.aspic.inference.Query;
 import org.aspic.inference.Reasoner;
 import org.aspic.inference.ReasonerException;
 import org.aspic.inference.Rule;
 import org.aspic.inference.RuleArgument;
+import org.aspic.inference.Term;
 import org.aspic.inference.parser.ParseException;
 
 public class StrategyHelper {
@@ -33,11 +43,84 @@ public class StrategyHelper {
 	public static StrategyHelper DefaultHelper = new StrategyHelper(Reasoner.PREFERRED_CREDULOUS);
 	
 	private Reasoner reasonerToUse;
+	private ReasoningCache cache = null;
+	private String cacheOwner = null;
+	private boolean fillCache = false;
+	private Map<String, List<RuleArgument>> proofCache = null;
+	private KnowledgeBase proofCacheKb = null;
+	private Boolean proofCacheKbSelfContained = null;
+	private int proofCacheHits = 0;
+	private int proofCacheMisses = 0;
+	private KnowledgeBase hashedKb = null;
+	private int hashedKbModifications = 0;
+	private Long hashedKbContent = null;
 
 	public StrategyHelper(Reasoner reasonerToUse) {
 		this.reasonerToUse = reasonerToUse;
 	}
 
+	/**
+	 * Lets this helper remember the proofs it found, so that asking the same 
+	 * query again on the same knowledge base does not need the reasoner. As 
+	 * the knowledge base itself is not part of the cache key, only use this 
+	 * for a helper that is private to one agent and invalidate the cache 
+	 * whenever its knowledge base changes.
+	 * @param maxEntries The number of queries to remember the proofs of; the least recently asked ones are forgotten first
+	 */
+	public void enableProofCache(final int maxEntries) {
+		this.proofCache = new LinkedHashMap<String, List<RuleArgument>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, List<RuleArgument>> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Forgets all remembered proofs; to be called when the knowledge base changed
+	 */
+	public void invalidateProofCache() {
+		if (proofCache != null) {
+			proofCache.clear();
+		}
+		proofCacheKbSelfContained = null;
+		hashedKb = null;
+	}
+
+	/**
+	 * Makes the proof cache look again whether its knowledge base is still 
+	 * self contained (see {@link #isSelfContained(KnowledgeBase)}); to be 
+	 * called whenever other agents may have adopted or questioned some of 
+	 * its beliefs, which rebinds them without changing the knowledge base
+	 */
+	public void invalidateBindings() {
+		proofCacheKbSelfContained = null;
+		hashedKb = null;
+	}
+
+	public int getProofCacheHits() {
+		return proofCacheHits;
+	}
+
+	public int getProofCacheMisses() {
+		return proofCacheMisses;
+	}
+
+	/**
+	 * Lets this helper look up goal satisfaction and option generation 
+	 * results in a cache that is shared with the helpers of agents in other
+	 * dialogues on the same scenario
+	 * @param cache The reasoning cache to use
+	 * @param owner The name of the agent that uses this helper
+	 * @param fill Whether the results found by this helper are added to the cache as well
+	 */
+	public void setReasoningCache(ReasoningCache cache, String owner, boolean fill) {
+		this.cache = cache;
+		this.cacheOwner = owner;
+		this.fillCache = fill;
+	}
+
 	public Reasoner getReasonerToUse() {
 		return reasonerToUse;
 	}
@@ -60,6 +143,17 @@ public class StrategyHelper {
 	 */
 	public List<RuleArgument> findProof(ConstantList query, Double needed, KnowledgeBase kb, List<Rule> addKnowledge, Constant requiredPremise) throws ParseException, ReasonerException {
 		
+		String key = proofCacheKey(query, needed, kb, addKnowledge, requiredPremise);
+		if (key != null) {
+			List<RuleArgument> cached = proofCache.get(key);
+			if (cached != null) {
+				proofCacheHits++;
+				touchKnowledge(kb, addKnowledge, query);
+				return new LinkedList<RuleArgument>(cached);
+			}
+			proofCacheMisses++;
+		}
+		
 		//KnowledgeBase useKb = (KnowledgeBase) kb.clone(); // KnowledgeBase.clone() leaks memory!
 		KnowledgeBase useKb = kb;
 		// Add new knowledge
@@ -68,14 +162,66 @@ public class StrategyHelper {
 		} 
 		
 		// Start the reasoning engine on our query
-		Engine engine = new Engine(useKb);
+		List<RuleArgument> proofs = runQuery(createEngine(useKb), useKb, query, needed, requiredPremise);
+		
+		// Remove added knowledge
+		if (addKnowledge != null)
+			for (Rule r : addKnowledge) { kb.removeRule(r); }
+		
+		if (key != null) {
+			proofCache.put(key, new ArrayList<RuleArgument>(proofs));
+		}
+		return proofs;
+		
+	}
+
+	// Builds the key to remember the proofs of a query with, or returns null if they can not be remembered: when 
+	// the knowledge base or the query is (partly) bound to another knowledge base, the reasoner consults that one too
+	private String proofCacheKey(ConstantList query, Double needed, KnowledgeBase kb, List<Rule> addKnowledge, Constant requiredPremise) {
+		if (proofCache == null) {
+			return null;
+		}
+		if (kb != proofCacheKb) {
+			proofCache.clear();
+			proofCacheKb = kb;
+			proofCacheKbSelfContained = null;
+		}
+		if (proofCacheKbSelfContained == null) {
+			proofCacheKbSelfContained = isSelfContained(kb);
+		}
+		if ((query.getKnowledgeBase() != null && query.getKnowledgeBase() != kb) || !proofCacheKbSelfContained) {
+			return null;
+		}
+		StringBuilder key = new StringBuilder(query.inspect()).append('\n').append(needed).append('\n');
+		for (Element element : query) {
+			if (element.getKnowledgeBase() != null && element.getKnowledgeBase() != kb) {
+				return null;
+			}
+		}
+		if (requiredPremise != null) {
+			key.append(requiredPremise.inspect());
+		}
+		if (addKnowledge != null) {
+			for (Rule rule : addKnowledge) {
+				key.append('\n').append(rule.inspect(true, true));
+			}
+		}
+		return key.toString();
+	}
+
+	private Engine createEngine(KnowledgeBase kb) {
+		Engine engine = new Engine(kb);
 		engine.setProperty(Property.SEMANTICS, this.getReasonerToUse());
+		return engine;
+	}
+
+	private List<RuleArgument> runQuery(Engine engine, KnowledgeBase kb, ConstantList query, Double needed, Constant requiredPremise) throws ParseException, ReasonerException {
 		Query runQuery = engine.createQuery(query);
 		List<RuleArgument> proofs = new LinkedList<RuleArgument>();
 		for (RuleArgument proof: runQuery.getProof()) {
 			// Throw away trivial undercutter counter-arguments: these are not allowed by ASPIC but the implementation does return them
-			// This is hacked by seeing if the claim isn't a rule name (i.e. starting with 'r')
-			if (proof.getClaim().getFunctor().startsWith("r")) {
+			// These are the arguments that only claim a rule name (while undercutters claim its negation)
+			if (kb.isRuleName(proof.getClaim())) {
 				continue;
 			}
 			// If some constant is required to be present as premise in the argument, test if this is the case
@@ -87,13 +233,7 @@ public class StrategyHelper {
 				proofs.add(proof);
 			}
 		}
-		
-		// Remove added knowledge
-		if (addKnowledge != null)
-			for (Rule r : addKnowledge) { kb.removeRule(r); }
-		
 		return proofs;
-		
 	}
 
 	/**
@@ -104,19 +244,236 @@ public class StrategyHelper {
 	 * @return The list of goals that are satisfied 
 	 */
 	public Set<Goal> evaluateGoalSatisfaction(Constant option, List<Goal> goals, KnowledgeBase kb) throws ParseException, ReasonerException {
+		return evaluateGoalSatisfaction(Arrays.asList(option), goals, kb).getSatisfiedGoals(0);
+	}
+
+	/**
+	 * Determines for a list of options which goals they satisfy, and how strongly
+	 * @param options The options to check goal satisfaction for
+	 * @param goals All the goals to consider
+	 * @param kb A reference to the knowledge base to query against
+	 * @return The satisfaction strength of every option for every goal
+	 */
+	public SatisfactionMatrix evaluateGoalSatisfaction(List<Constant> options, List<Goal> goals, KnowledgeBase kb) throws ParseException, ReasonerException {
+		SatisfactionMatrix matrix = new SatisfactionMatrix(options, goals);
+		evaluateGoalSatisfaction(matrix, kb);
+		return matrix;
+	}
+
+	/**
+	 * Completes the goal satisfaction of a list of options. Every option is 
+	 * assumed in the knowledge base only once, after which all of its goals are 
+	 * queried with the same reasoning engine. A goal is not queried at all for 
+	 * options that none of the arguments for or against the goal can rest on.
+	 * @param matrix The options and goals to consider, in which only the strengths that are not known yet are filled in
+	 * @param kb A reference to the knowledge base to query against
+	 */
+	public void evaluateGoalSatisfaction(SatisfactionMatrix matrix, KnowledgeBase kb) throws ParseException, ReasonerException {
 		
-		Set<Goal> satisfiedGoals = new HashSet<Goal>();
+		List<Constant> options = matrix.getOptions();
+		List<Goal> goals = matrix.getGoals();
+		Long kbHash = cache == null? null: contentHash(kb);
+		List<Set<String>> relevant = new ArrayList<Set<String>>();
 		for (Goal goal : goals) {
+			relevant.add(relevantPredicates(goal.getGoalContent(), kb));
+		}
+		
+		for (int o = 0; o < options.size(); o++) {
+			Constant option = options.get(o);
 			
 			// A goal is satisfied by the option if we can form an argument for the 
 			// goal given the belief base added with the option
 			// We require the option to be used as premise in this argument
-			List<RuleArgument> proofs = findProof(new ConstantList(goal.getGoalContent()), 0.0, kb, Arrays.asList(new Rule(option)), option);
-			if (proofs.size() > 0) {
-				satisfiedGoals.add(goal);
+			List<Rule> addKnowledge = Arrays.asList(new Rule(option));
+			kb.addRules(addKnowledge);
+			Engine engine = null;
+			for (int g = 0; g < goals.size(); g++) {
+				
+				ConstantList query = new ConstantList(goals.get(g).getGoalContent());
+				String key = null;
+				if (!matrix.isKnown(o, g) && !relevant.get(g).contains(option.ruleTag())) {
+					matrix.setStrength(o, g, SatisfactionMatrix.NOT_SATISFIED);
+				} else if (!matrix.isKnown(o, g)) {
+					key = cache == null? null: cache.key(cacheOwner, kbHash, kb, addKnowledge, query, 0.0, option);
+					Double strength = key == null? null: cache.getSatisfaction(key);
+					if (strength == null) {
+						if (engine == null) {
+							engine = createEngine(kb);
+						}
+						strength = SatisfactionMatrix.NOT_SATISFIED;
+						for (RuleArgument proof : runQuery(engine, kb, query, 0.0, option)) {
+							strength = Math.max(strength, proof.getModifier());
+						}
+						if (key != null && fillCache) {
+							cache.putSatisfaction(key, strength);
+						}
+						matrix.setStrength(o, g, strength);
+						continue;
+					}
+					matrix.setStrength(o, g, strength);
+				}
+				// Leave the goal bound to the knowledge base exactly as when it was queried
+				new KnowledgeBaseSource(kb).bind(query);
+				
+			}
+			for (Rule r : addKnowledge) { kb.removeRule(r); }
+			
+		}
+		
+	}
+
+	/**
+	 * Collects the predicates of everything that may be used in an argument for 
+	 * or against (an argument for) some query: the elements of the rules that 
+	 * conclude it, their negations and the names of these rules (which can be 
+	 * undercut), and so on for these elements in turn
+	 * @param query The query to find the relevant predicates for
+	 * @param kb A reference to the knowledge base with the rules to consider
+	 * @return The rule tags of all relevant constants and terms
+	 */
+	public static Set<String> relevantPredicates(Constant query, KnowledgeBase kb) {
+		// Index the rules on their conclusion
+		Map<String, List<Rule>> concluding = new HashMap<String, List<Rule>>();
+		for (Iterator<Rule> rules = kb.ruleIterator(); rules.hasNext();) {
+			Rule rule = rules.next();
+			List<Rule> list = concluding.get(rule.getConsequent().ruleTag());
+			if (list == null) {
+				list = new ArrayList<Rule>();
+				concluding.put(rule.getConsequent().ruleTag(), list);
+			}
+			list.add(rule);
+		}
+		Set<String> relevant = new HashSet<String>();
+		LinkedList<Constant> open = new LinkedList<Constant>();
+		open.add(query);
+		while (!open.isEmpty()) {
+			Constant c = open.removeFirst();
+			if (!relevant.add(c.ruleTag())) {
+				continue;
+			}
+			open.add(c.negation());
+			// Arguments of terms may be claims themselves, as in negations
+			if (c instanceof Term) {
+				for (int i = 0; i < ((Term) c).numberOfArgs(); i++) {
+					if (((Term) c).getArg(i) instanceof Constant) {
+						open.add((Constant) ((Term) c).getArg(i));
+					}
+				}
+			}
+			List<Rule> rules = concluding.get(c.ruleTag());
+			if (rules != null) {
+				for (Rule rule : rules) {
+					for (Element antecedent : rule.getAntecedent()) {
+						if (antecedent instanceof Constant) {
+							open.add((Constant) antecedent);
+						}
+					}
+					if (rule.getName() != null) {
+						open.add(rule.getName());
+					}
+				}
+			}
+		}
+		return relevant;
+	}
+
+	/**
+	 * Considering some knowledge base and option beliefs, generate the options 
+	 * for a dialogue topic. This is done by querying on the topic and see if we 
+	 * can form an argument. The proof of such an argument will contain a 
+	 * bottom-level rule with the concrete option.
+	 * @param topic The dialogue topic
+	 * @param kb A reference to the knowledge base to query against
+	 * @param optionBeliefs The option beliefs to temporarily add to the knowledge base
+	 * @return A list of all the options that can be formed
+	 */
+	public List<Constant> generateOptions(Term topic, KnowledgeBase kb, List<Rule> optionBeliefs) throws ParseException, ReasonerException {
+		
+		ConstantList query = new ConstantList(topic);
+		String key = cache == null? null: cache.key(cacheOwner, contentHash(kb), kb, optionBeliefs, query, 0.0, null);
+		int[] cached = key == null? null: cache.getOptions(key);
+		List<Constant> found = new ArrayList<Constant>();
+		if (cached != null) {
+			touchKnowledge(kb, optionBeliefs, query);
+			for (int i : cached) {
+				found.add(optionBeliefs.get(i).getConsequent());
+			}
+			return found;
+		}
+		
+		// If there are arguments found, use one to create a new proposal
+		List<RuleArgument> proofs = findProof(query, 0.0, kb, optionBeliefs, null);
+		for (RuleArgument proof : proofs) {
+			
+			// Look into the sub-arguments to get the original concrete instantiation of the topic
+			// (This sub-arguments iterator is handles the recursion)
+			Iterator<RuleArgument> iter = proof.subArgumentIterator();
+			while (iter.hasNext()) {
+				RuleArgument arg = iter.next();
+				
+				// If we have found the bottom-level rule, add this as the concrete proposal (but no duplicates)
+				if (arg.isAtomic() && arg.getClaim() instanceof Term && arg.getClaim().isUnifiable(topic) && !found.contains(arg.getClaim())) {
+					found.add((Term) arg.getClaim());
+					break;
+				}
+			}			
+			
+		}
+		
+		// The options can only be shared if they are the option beliefs themselves 
+		if (key != null && fillCache) {
+			int[] indices = new int[found.size()];
+			for (int f = 0; f < indices.length; f++) {
+				indices[f] = -1;
+				for (int i = 0; i < optionBeliefs.size(); i++) {
+					if (optionBeliefs.get(i).getConsequent() == found.get(f)) {
+						indices[f] = i;
+						break;
+					}
+				}
+				if (indices[f] < 0) {
+					return found;
+				}
 			}
+			cache.putOptions(key, indices);
+		}
+		return found;
+		
+	}
+
+	/**
+	 * Binds the topic and option beliefs to the knowledge base like generating 
+	 * the options does, but without querying; used when the options are still 
+	 * known from an earlier generation
+	 * @param topic The dialogue topic
+	 * @param kb A reference to the knowledge base that would have been queried
+	 * @param optionBeliefs The option beliefs that would have been added
+	 */
+	public void bindOptions(Term topic, KnowledgeBase kb, List<Rule> optionBeliefs) {
+		touchKnowledge(kb, optionBeliefs, new ConstantList(topic));
+	}
+
+	// Binds the query and the added knowledge to the knowledge base like findProof does, for when its answer is taken 
+	// from the cache; later queries on these same elements are then still resolved exactly as they would otherwise be. 
+	// Adding and removing the knowledge leaves it named and bound (see KnowledgeBase.removeRule), and the query is 
+	// bound with the same KnowledgeBaseSource.bind that the reasoner uses.
+	private void touchKnowledge(KnowledgeBase kb, List<Rule> addKnowledge, ConstantList query) {
+		if (addKnowledge != null) {
+			kb.addRules(addKnowledge);
+			for (Rule r : addKnowledge) { kb.removeRule(r); }
+		}
+		new KnowledgeBaseSource(kb).bind(query);
+	}
+
+	// Hashes the knowledge base content for the reasoning cache, only when rules were added to or removed from it, 
+	// or their bindings may have changed (see invalidateBindings), since it was last hashed
+	private Long contentHash(KnowledgeBase kb) {
+		if (kb != hashedKb || kb.getModificationCount() != hashedKbModifications) {
+			hashedKbContent = ReasoningCache.contentHash(kb);
+			hashedKb = kb;
+			hashedKbModifications = kb.getModificationCount();
 		}
-		return satisfiedGoals;
+		return hashedKbContent;
 	}
 
 	private boolean onBasisOfConstant(Constant p, RuleArgument arg) {
@@ -136,84 +493,175 @@ public class StrategyHelper {
 	 * we want to attack. Returns null if none could be found.
 	 * @param kb A reference to the knowledge base to query against
 	 * @param argumentToAttack The argument that we are generating the underminer or undercutter for (this may be different than the argueMoveToAttack's argument when looking into its sub-arguments)
+	 * @param proposal The proposal tree that the argue move to attack is in
 	 * @param argueMoveToAttack The argue move that we want to attack
 	 * @param existingReplies The existing replies to the argue move that we want to attack
-	 * @return A list of all the proposals that are viable, i.e. that we can build a sufficient argument for
 	 * @return A single argument that undermines or undercuts the given argue move
 	 */
-	public RuleArgument generateUnderminerOrUndercutter(KnowledgeBase kb, RuleArgument argumentToAttack, Move<ArgueLocution> argueMoveToAttack, List<Move<? extends Locution>> existingReplies, List<Rule> addKnowledge) throws ParseException, ReasonerException {
+	public RuleArgument generateUnderminerOrUndercutter(KnowledgeBase kb, RuleArgument argumentToAttack, ProposalView proposal, Move<ArgueLocution> argueMoveToAttack, List<Move<? extends Locution>> existingReplies, List<Rule> addKnowledge) throws ParseException, ReasonerException, DialogueException {
+		List<RuleArgument> found = generateCounterArguments(kb, argumentToAttack, false, proposal, argueMoveToAttack, existingReplies, addKnowledge, 1);
+		return found.isEmpty()? null: found.get(0);
+	}
 
-		// Premises are atomic claims
-		//if (argumentToAttack.isAtomic()) {
-			
-			// Find arguments for the negation of this claim
-			List<RuleArgument> proofs = findProof(new ConstantList(argumentToAttack.getClaim().negation()), argumentToAttack.getModifier(), kb, addKnowledge, null);
+	/**
+	 * Searches for arguments that attack some argument: on its claim 
+	 * (rebutting), on the claims of its sub-arguments (undermining) and on the 
+	 * names of the rules it applies (undercutting). All these attack points 
+	 * are collected first, in the order of a walk over the argument where an 
+	 * argument comes before its sub-arguments and the name of its top rule 
+	 * after them, and their negations are then queried in one reasoning 
+	 * session: the extra knowledge is added only once and all queries share 
+	 * the same engine. Attack points are visited in that order and the search 
+	 * stops as soon as the wanted number of counter-arguments is found. Only 
+	 * these are ranked, so with more than one wanted, a stronger 
+	 * counter-argument on a later attack point may be missed.
+	 * An undercutter needs the degree of belief of the rule it attacks. The 
+	 * reasoner adds the name of every applied (non-fact) rule as the last 
+	 * premise of the rule (see <code>Rule.argumentIterator</code>), and the 
+	 * argument for that name is built from the rule hook, which has the same 
+	 * degree of belief. So an undercut point always equals that sub-argument's 
+	 * point and is merged with it, and the attack points are the same as when 
+	 * only the sub-arguments were walked. The explicit point only matters for 
+	 * arguments that were not built by the reasoner.
+	 * @param kb A reference to the knowledge base to query against
+	 * @param argumentToAttack The argument to attack
+	 * @param rebut Whether a counter-argument may rebut the argument itself; if false its claim is only attacked as premise, i.e. not if it was questioned already
+	 * @param proposal The proposal tree that the argue move to attack is in
+	 * @param argueMoveToAttack The argue move that we want to attack
+	 * @param existingReplies The existing replies to the argue move that we want to attack
+	 * @param addKnowledge Some beliefs to temporarily add to the knowledge base, just for this search, or null
+	 * @param wanted The number of counter-arguments after which to stop searching
+	 * @return At most the wanted number of counter-arguments that were not moved yet: the first ones found, strongest first (and in the order of the attack points for equally strong ones)
+	 */
+	public List<RuleArgument> generateCounterArguments(KnowledgeBase kb, RuleArgument argumentToAttack, boolean rebut, ProposalView proposal, Move<ArgueLocution> argueMoveToAttack, List<Move<? extends Locution>> existingReplies, List<Rule> addKnowledge, int wanted) throws ParseException, ReasonerException, DialogueException {
+		
+		// Collect the attack points, skipping those with the same claim and strength as one visited before
+		List<AttackPoint> points = new ArrayList<AttackPoint>();
+		collectAttackPoints(argumentToAttack, points, new HashMap<String, List<AttackPoint>>());
+		
+		List<RuleArgument> found = new ArrayList<RuleArgument>();
+		BranchIndex branch = branchAbove(proposal, argueMoveToAttack);
+		if (addKnowledge != null) {
+			kb.addRules(addKnowledge);
+		}
+		Engine engine = null;
+		for (int p = 0; p < points.size() && found.size() < wanted; p++) {
 			
-			// If an argument can be formed that was not yet moved, return this as the new underminer
-			RuleArgument newArgument = null;
-			for (RuleArgument proof : proofs) {
-				boolean alreadyUsed = false;
-				
-				// Look if we didn't already move it earlier in the branch
-				Move<? extends Locution> target = argueMoveToAttack.getTarget();
-				while (target != null) {
-					if (target.getLocution() instanceof ArgueLocution && ((ArgueLocution)target.getLocution()).getArgument().isSemanticallyEqual(proof)) {
-						// This existing argue move has the same claim as the new found prove
-						alreadyUsed = true;
-						break;
-					} else if (target.getLocution() instanceof WhyLocution && ((WhyLocution)target.getLocution()).getAttackedPremise().isEqualModuloVariables(proof.getClaim().negation())) {
-						// This existing why move already questions the claim of the new found proof
-						alreadyUsed = true;
-						break;
-					}
-					target = target.getTarget();
+			// Find arguments for the negation of the claim, using the proofs we still know if possible
+			AttackPoint point = points.get(p);
+			ConstantList query = new ConstantList(point.claim.negation());
+			String key = proofCacheKey(query, point.needed, kb, addKnowledge, null);
+			List<RuleArgument> proofs = key == null? null: proofCache.get(key);
+			if (proofs != null) {
+				proofCacheHits++;
+				new KnowledgeBaseSource(kb).bind(query);
+			} else {
+				if (key != null) {
+					proofCacheMisses++;
 				}
-				
-				if (!alreadyUsed) {
-					// Look if we already moved it as reply to this argue move that we are attacking now
-					for (Move<? extends Locution> existingReply : existingReplies) {
-						if (existingReply.getLocution() instanceof ArgueLocution && ((ArgueLocution)existingReply.getLocution()).getArgument().isSemanticallyEqual(proof)) {
-							// This existing argue move has the same claim as the new found prove
-							alreadyUsed = true;
-							break;
-						} else if (existingReply.getLocution() instanceof WhyLocution && ((WhyLocution)existingReply.getLocution()).getAttackedPremise().isEqualModuloVariables(proof.getClaim().negation())) {
-							// This existing why move already questions the claim of the new found proof
-							alreadyUsed = true;
-							break;
-						}
-					}
+				if (engine == null) {
+					engine = createEngine(kb);
 				}
-				
-				if (!alreadyUsed) {
-					newArgument = proof;
-					break;
+				proofs = runQuery(engine, kb, query, point.needed, null);
+				if (key != null) {
+					proofCache.put(key, new ArrayList<RuleArgument>(proofs));
 				}
 			}
-			if (newArgument != null) {
-				return newArgument;
-			}
 			
-		//}
-		
-		// Try to find a single argument that attacks one of the premises used in the argumentToAttack
-		for (RuleArgument subArgument : argumentToAttack.getSubArgumentList().getArguments()) {
-			RuleArgument newFound = generateUnderminerOrUndercutter(kb, subArgument, argueMoveToAttack, existingReplies, addKnowledge);
-			if (newFound != null) {
-				return newFound;
+			// Only the argument itself may be rebutted when its claim was questioned already
+			boolean asPremise = !rebut || p > 0;
+			for (RuleArgument proof : proofs) {
+				if (found.size() < wanted && !isAlreadyUsed(proof, branch, existingReplies, asPremise) && !containsArgument(found, proof)) {
+					found.add(proof);
+				}
 			}
+			
+		}
+		if (addKnowledge != null) {
+			for (Rule r : addKnowledge) { kb.removeRule(r); }
 		}
 		
-		// No underminer/undercutter found at all for this argument or any of its subarguments
-		return null;
+		// Rank the counter-arguments on their strength
+		Collections.sort(found, new Comparator<RuleArgument>() {
+			@Override
+			public int compare(RuleArgument a, RuleArgument b) {
+				return b.getModifier().compareTo(a.getModifier());
+			}
+		});
+		return found;
 		
 	}
 
-	public RuleArgument generateArgument(KnowledgeBase kb, Constant termToProve, double needed, Move<? extends Locution> moveToAttack, List<Move<? extends Locution>> existingReplies) throws ParseException, ReasonerException {
-		return generateArgument(kb, termToProve, needed, moveToAttack, existingReplies, null);
+	// Adds the attack points of an argument: its own claim, those of its sub-arguments and then its top rule's name
+	private static void collectAttackPoints(RuleArgument argument, List<AttackPoint> points, Map<String, List<AttackPoint>> seen) {
+		addAttackPoint(new AttackPoint(argument.getClaim(), argument.getModifier()), points, seen);
+		for (RuleArgument sub : argument.getSubArgumentList().getArguments()) {
+			collectAttackPoints(sub, points, seen);
+		}
+		// The rule name is a sub-argument (hidden premise) already, with the rule's strength, so this point is then merged with it
+		Rule topRule = argument.getTopRule();
+		if (!argument.isAtomic() && topRule.getName() != null) {
+			addAttackPoint(new AttackPoint(topRule.getName(), topRule.getDob()), points, seen);
+		}
+	}
+
+	private static void addAttackPoint(AttackPoint point, List<AttackPoint> points, Map<String, List<AttackPoint>> seen) {
+		String fingerprint = Fingerprint.of(point.claim);
+		List<AttackPoint> same = seen.get(fingerprint);
+		if (same == null) {
+			same = new ArrayList<AttackPoint>(1);
+			seen.put(fingerprint, same);
+		}
+		for (AttackPoint s : same) {
+			if (s.claim.isEqualModuloVariables(point.claim) && s.needed.equals(point.needed)) {
+				return;
+			}
+		}
+		same.add(point);
+		points.add(point);
+	}
+
+	// A claim to find counter-arguments for, with the strength they need to have
+	private static class AttackPoint {
+		final Constant claim;
+		final Double needed;
+		AttackPoint(Constant claim, Double needed) {
+			this.claim = claim;
+			this.needed = needed;
+		}
+	}
+
+	// Looks if an argument was already moved earlier in the branch or as reply to the argue move that we are attacking 
+	// now; for an attack on a premise also if that premise was questioned already by a why move
+	private boolean isAlreadyUsed(RuleArgument proof, BranchIndex branch, List<Move<? extends Locution>> existingReplies, boolean asPremise) {
+		if (branch.containsArgument(proof) || branch.isQuestioned(proof.getClaim().negation())) {
+			return true;
+		}
+		for (Move<? extends Locution> existingReply : existingReplies) {
+			if (existingReply.getLocution() instanceof ArgueLocution && ((ArgueLocution)existingReply.getLocution()).getArgument().isSemanticallyEqual(proof)) {
+				return true;
+			} else if (asPremise && existingReply.getLocution() instanceof WhyLocution && ((WhyLocution)existingReply.getLocution()).getAttackedPremise().isEqualModuloVariables(proof.getClaim().negation())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean containsArgument(List<RuleArgument> arguments, RuleArgument argument) {
+		for (RuleArgument a : arguments) {
+			if (a.isSemanticallyEqual(argument)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public RuleArgument generateArgument(KnowledgeBase kb, Constant termToProve, double needed, ProposalView proposal, Move<? extends Locution> moveToAttack, List<Move<? extends Locution>> existingReplies) throws ParseException, ReasonerException, DialogueException {
+		return generateArgument(kb, termToProve, needed, proposal, moveToAttack, existingReplies, null);
 	}
 	
-	public RuleArgument generateArgument(KnowledgeBase kb, Constant termToProve, double needed, Move<? extends Locution> moveToAttack, List<Move<? extends Locution>> existingReplies, List<Rule> addKnowledge) throws ParseException, ReasonerException {
-		return generateArgument(kb, termToProve, needed, moveToAttack, existingReplies, addKnowledge, null);
+	public RuleArgument generateArgument(KnowledgeBase kb, Constant termToProve, double needed, ProposalView proposal, Move<? extends Locution> moveToAttack, List<Move<? extends Locution>> existingReplies, List<Rule> addKnowledge) throws ParseException, ReasonerException, DialogueException {
+		return generateArgument(kb, termToProve, needed, proposal, moveToAttack, existingReplies, addKnowledge, null);
 	}
 	
 	/**
@@ -224,31 +672,22 @@ public class StrategyHelper {
 	 * @param kb A reference to the knowledge base to query against
 	 * @param termToProve The term that we want to support
 	 * @param needed The minimum required degree of belief (support)
+	 * @param proposal The proposal tree that the move to attack is in
 	 * @param moveToAttack The move that we want to attack
 	 * @param existingReplies The existing replies to the argue move that we want to attack
 	 * @param addKnowledge Some beliefs to temporarily add to the knowledge base, just for this query
 	 * @param requiredPremise Optionally a premise that is mandatory to be used as premise in any found argument
 	 * @return An argument supporting the term we want to prove; or null if none could be formed
 	 */
-	public RuleArgument generateArgument(KnowledgeBase kb, Constant termToProve, double needed, Move<? extends Locution> moveToAttack, List<Move<? extends Locution>> existingReplies, List<Rule> addKnowledge, Constant requiredPremise) throws ParseException, ReasonerException {
+	public RuleArgument generateArgument(KnowledgeBase kb, Constant termToProve, double needed, ProposalView proposal, Move<? extends Locution> moveToAttack, List<Move<? extends Locution>> existingReplies, List<Rule> addKnowledge, Constant requiredPremise) throws ParseException, ReasonerException, DialogueException {
 
 		// Try to find a single argument for the term that we are trying to prove
 		List<RuleArgument> proofs = findProof(new ConstantList(termToProve), needed, kb, addKnowledge, requiredPremise);
+		BranchIndex branch = branchAbove(proposal, moveToAttack);
 		for (RuleArgument proof : proofs) {
 
 			// Look if we didn't already move it earlier in the branch
-			boolean alreadyUsed = false;
-			Move<? extends Locution> target = moveToAttack.getTarget();
-			while (target != null) {
-				if (target.getLocution() instanceof ArgueLocution && ((ArgueLocution)target.getLocution()).getArgument().isSemanticallyEqual(proof)) {
-					alreadyUsed = true;
-					break;
-				} else if (target.getLocution() instanceof WhyLocution && ((WhyLocution)target.getLocution()).getAttackedPremise().isEqualModuloVariables(proof.getClaim().negation())) {
-					alreadyUsed = true;
-					break;
-				}
-				target = target.getTarget();
-			}
+			boolean alreadyUsed = branch.containsArgument(proof) || branch.isQuestioned(proof.getClaim().negation());
 
 			if (!alreadyUsed) {
 				// Look if we already moved it as reply to this argue move that we are attacking now
@@ -272,18 +711,12 @@ public class StrategyHelper {
 		
 	}
 	
-	public RuleArgument generateCounterAttack(KnowledgeBase kb, RuleArgument argumentToAttack, Move<ArgueLocution> argueMoveToAttack, List<Move<? extends Locution>> existingReplies, List<Rule> addKnowledge) throws ParseException, ReasonerException {
+	public RuleArgument generateCounterAttack(KnowledgeBase kb, RuleArgument argumentToAttack, ProposalView proposal, Move<ArgueLocution> argueMoveToAttack, List<Move<? extends Locution>> existingReplies, List<Rule> addKnowledge) throws ParseException, ReasonerException, DialogueException {
 		
-		// Try to attack the move's conclusion (rebutting)
-		RuleArgument rebuttal = generateArgument(kb, argumentToAttack.getClaim().negation(), argumentToAttack.getModifier(), argueMoveToAttack, existingReplies, addKnowledge);
-		if (rebuttal != null) {
-			return rebuttal;
-		}
-		
-		// Try to attack a premise (undermining) or used rule (undercutting) of the move's argument
-		RuleArgument underminer = generateUnderminerOrUndercutter(kb, argumentToAttack, argueMoveToAttack, existingReplies, addKnowledge);
-		if (underminer != null) {
-			return underminer;
+		// Try to attack the move's conclusion (rebutting), a premise (undermining) or used rule (undercutting) of the move's argument
+		List<RuleArgument> found = generateCounterArguments(kb, argumentToAttack, true, proposal, argueMoveToAttack, existingReplies, addKnowledge, 1);
+		if (!found.isEmpty()) {
+			return found.get(0);
 		}
 		
 		// No counter-argument can be formed
@@ -291,7 +724,15 @@ public class StrategyHelper {
 		
 	}
 
-	public Constant generateUncheckedUnderminerOrUndercutter(RuleArgument argumentToAttack, Proposal proposal, Move<ArgueLocution> argueMoveToAttack, List<Move<? extends Locution>> existingReplies, Constant dialogueTopic) throws DialogueException {
+	// Returns the index of the branch down to (but not including) some move, to find what was already played above it
+	private BranchIndex branchAbove(ProposalView proposal, Move<? extends Locution> move) throws DialogueException {
+		if (move.getTarget() == null) {
+			return BranchIndex.EMPTY;
+		}
+		return proposal.getBranchIndex(move.getTarget());
+	}
+
+	public Constant generateUncheckedUnderminerOrUndercutter(RuleArgument argumentToAttack, ProposalView proposal, Move<ArgueLocution> argueMoveToAttack, List<Move<? extends Locution>> existingReplies, Constant dialogueTopic) throws DialogueException {
 
 		// Premises are atomic claims and we don't consider the dialogue topic as a premise to attack
 		if (argumentToAttack.isAtomic() && !argumentToAttack.getClaim().equals(dialogueTopic)) {
@@ -331,6 +772,30 @@ public class StrategyHelper {
 		
 	}
 
+	/**
+	 * Looks whether all rules of a knowledge base are bound to this knowledge 
+	 * base only. Elements are bound to the knowledge base they were last added 
+	 * to or queried against, and the reasoner follows that binding. So when 
+	 * another agent adopted or questioned one of our beliefs, reasoning on our 
+	 * knowledge base also depends on the knowledge of that other agent.
+	 * @param kb The knowledge base to check
+	 * @return True if reasoning on this knowledge base only depends on its own content
+	 */
+	public static boolean isSelfContained(KnowledgeBase kb) {
+		for (Iterator<Rule> rules = kb.ruleIterator(); rules.hasNext();) {
+			Rule rule = rules.next();
+			if (rule.getKnowledgeBase() != kb || rule.getConsequent().getKnowledgeBase() != kb) {
+				return false;
+			}
+			for (Element antecedent : rule.getAntecedent()) {
+				if (antecedent.getKnowledgeBase() != kb) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Look whether a new rule would cause a loop when applying rules (which is a way of circular reasoning not
 	 * supported by the AspicInference project)